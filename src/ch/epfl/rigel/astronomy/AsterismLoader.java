@@ -6,11 +6,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
 import ch.epfl.rigel.astronomy.HygDatabaseLoader.COLUMNS;
+import ch.epfl.rigel.structure.IntHashMap;
 
 
 /**
@@ -39,11 +39,13 @@ public enum AsterismLoader implements StarCatalogue.Loader {
             String[] charTableWithName;
             String asterismName;
             List<Star> starList = new ArrayList<Star>();
-            HashMap<Integer, Star> starMap = new HashMap<Integer, Star>();
+            StarStore.Builder columns = builder.starColumns();
+            IntHashMap starMap = new IntHashMap(columns.size());
 
-            //Load the star map
-            for(Star s:  builder.stars()){
-                starMap.put(s.hipparcosId(), s);
+            //Load the star map, the last star of a hipparcos id being kept.
+            //Only the stars of the asterisms are created.
+            for(int i = columns.size() - 1; i >= 0; i--){
+                starMap.putIfAbsent(columns.hipparcosId(i), i);
             }
 
             while (line != null) {
@@ -51,8 +53,8 @@ public enum AsterismLoader implements StarCatalogue.Loader {
                 charTableWithName = line.split(",");
                 asterismName = charTableWithName[0];
                 for(int i = 1; i < charTableWithName.length; i++){
-                    Star star = starMap.get(Integer.parseInt(charTableWithName[i]));
-                    starList.add(star);
+                    int starIndex = starMap.get(Integer.parseInt(charTableWithName[i]), -1);
+                    starList.add(starIndex < 0 ? null : columns.star(starIndex));
                 }
 
                 builder.addAsterism(new Asterism(starList, asterismName));
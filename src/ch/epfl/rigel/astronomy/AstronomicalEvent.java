@@ -0,0 +1,119 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.math.Angle;
+
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * An event between two celestial objects found by {@link EventSearchEngine}: a conjunction of two planets,
+ * the opposition or the greatest elongation of a planet, or a close approach of the Moon to a star.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class AstronomicalEvent {
+
+    private final Type type;
+    private final ZonedDateTime when;
+    private final String first;
+    private final String second;
+    private final double separation;
+
+    /**
+     * Constructs an event.
+     *
+     * @param type       the type of the event.
+     * @param when       the instant of the event.
+     * @param first      the name of the first object: a planet, or the Moon.
+     * @param second     the name of the second object: a planet, the Sun or a star.
+     * @param separation the angular distance between the objects at the instant, in radians.
+     * @throws NullPointerException if the type, the instant or one of the names is null.
+     */
+    AstronomicalEvent(Type type, ZonedDateTime when, String first, String second, double separation) {
+        this.type = Objects.requireNonNull(type);
+        this.when = Objects.requireNonNull(when);
+        this.first = Objects.requireNonNull(first);
+        this.second = Objects.requireNonNull(second);
+        this.separation = separation;
+    }
+
+    /**
+     * Returns the type of the event.
+     *
+     * @return the type of the event.
+     */
+    public Type type() {
+        return this.type;
+    }
+
+    /**
+     * Returns the instant of the event.
+     *
+     * @return the instant of the event, in UTC.
+     */
+    public ZonedDateTime when() {
+        return this.when;
+    }
+
+    /**
+     * Returns the name of the first object of the event: a planet, or the Moon for the close approaches.
+     *
+     * @return the name of the first object.
+     */
+    public String first() {
+        return this.first;
+    }
+
+    /**
+     * Returns the name of the second object of the event: the other planet of a conjunction,
+     * the Sun for the oppositions and elongations, the star for the close approaches.
+     *
+     * @return the name of the second object.
+     */
+    public String second() {
+        return this.second;
+    }
+
+    /**
+     * Returns the angular distance between the objects at the instant of the event, i.e. the elongation.
+     *
+     * @return the angular distance in radians.
+     */
+    public double separation() {
+        return this.separation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %s %s-%s (%.3f°)", this.when, this.type, this.first, this.second,
+                Angle.toDeg(this.separation));
+    }
+
+    /**
+     * The types of events.
+     */
+    public enum Type {
+        /**
+         * Two planets at their closest in the sky.
+         */
+        CONJUNCTION,
+        /**
+         * A planet farther than the Earth from the Sun opposite to the Sun, in ecliptic longitude.
+         */
+        OPPOSITION,
+        /**
+         * A planet closer than the Earth to the Sun at its farthest east of the Sun, seen in the evening.
+         */
+        GREATEST_EASTERN_ELONGATION,
+        /**
+         * A planet closer than the Earth to the Sun at its farthest west of the Sun, seen in the morning.
+         */
+        GREATEST_WESTERN_ELONGATION,
+        /**
+         * The Moon at its closest to a bright star.
+         */
+        LUNAR_APPROACH
+    }
+}
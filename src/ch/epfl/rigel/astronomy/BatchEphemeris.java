@@ -0,0 +1,175 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the positions, magnitudes and angular sizes of the Sun, the Moon or a planet at many instants, into
+ * primitive arrays: no object is allocated per instant, the models computing their state into a buffer reused
+ * for all the instants. Intended for timelines and event searches, which need tens of thousands of instants.
+ * The values are the same as the ones of the objects computed by {@link CelestialObjectModel#at} with the
+ * conversion of the instant, the computations being shared with it.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class BatchEphemeris {
+
+    //Number of instants below which a range is not split any more by the parallel computation.
+    private static final int MIN_PARALLEL_INSTANTS = 1024;
+    /**
+     * Size of the buffer of the state of an object.
+     */
+    static final int STATE_SIZE = Math.max(SunModel.STATE_SIZE, Math.max(MoonModel.STATE_SIZE, PlanetModel.STATE_SIZE));
+    /**
+     * Number of values computed per instant: the right ascension, the declination, the magnitude and the angular size.
+     */
+    static final int VALUES = 4;
+
+    private BatchEphemeris() {
+    }
+
+    /**
+     * Computes the given object at the given instants, as {@code model.at(days[i], conversion)} would with
+     * the conversion at the instant {@code days[i]}, for all i.
+     *
+     * @param model          the model of the Sun, of the Moon or of a planet other than the Earth.
+     * @param daysSinceJ2010 the instants, in days since J2010.
+     * @param ra             array receiving the right ascensions, in radians.
+     * @param dec            array receiving the declinations, in radians.
+     * @param magnitude      array receiving the magnitudes.
+     * @param angularSize    array receiving the angular sizes, in radians.
+     * @param parallel       true to split the instants between the threads of the common fork/join pool.
+     * @throws NullPointerException     if one of the arguments is null.
+     * @throws IllegalArgumentException if the model is not supported or if one of the arrays is shorter
+     *                                  than the array of the instants.
+     */
+    public static void compute(CelestialObjectModel<?> model, double[] daysSinceJ2010, double[] ra, double[] dec,
+                               double[] magnitude, double[] angularSize, boolean parallel) {
+        Objects.requireNonNull(model);
+        int count = daysSinceJ2010.length;
+        Preconditions.checkArgument(model == SunModel.SUN || model == MoonModel.MOON
+                || (model instanceof PlanetModel && model != PlanetModel.EARTH));
+        Preconditions.checkArgument(ra.length >= count && dec.length >= count
+                && magnitude.length >= count && angularSize.length >= count);
+
+        Columns columns = new Columns(model, daysSinceJ2010, ra, dec, magnitude, angularSize);
+        if (parallel && count > MIN_PARALLEL_INSTANTS) {
+            ForkJoinPool.commonPool().invoke(new RangeTask(columns, 0, count));
+        } else {
+            columns.compute(0, count);
+        }
+    }
+
+    /**
+     * Computes the given object at the given instant, as {@link #compute} does, without allocating anything.
+     *
+     * @param model          the model of the Sun, of the Moon or of a planet other than the Earth.
+     * @param daysSinceJ2010 the instant, in days since J2010.
+     * @param state          buffer of at least {@link #STATE_SIZE} elements.
+     * @param sunState       buffer of at least {@link SunModel#STATE_SIZE} elements.
+     * @param values         array receiving the right ascension, the declination, the magnitude and the angular
+     *                       size, in this order.
+     */
+    static void computeAt(CelestialObjectModel<?> model, double daysSinceJ2010, double[] state, double[] sunState,
+                          double[] values) {
+        double obliquity = EclipticToEquatorialConversion.obliquity(Epoch.J2000.julianCenturiesUntil(Epoch.J2010, daysSinceJ2010));
+        double cosObliquity = Math.cos(obliquity);
+        double sinObliquity = Math.sin(obliquity);
+
+        float objectMagnitude;
+        if (model == SunModel.SUN) {
+            SunModel.SUN.eclipticState(daysSinceJ2010, state);
+            objectMagnitude = Sun.MAGNITUDE;
+        } else if (model == MoonModel.MOON) {
+            SunModel.SUN.eclipticState(daysSinceJ2010, sunState);
+            //The moon model uses the mean anomaly of the Sun as kept by the Sun, rounded to a float.
+            MoonModel.MOON.eclipticState(daysSinceJ2010, (float) sunState[3], sunState[0], state);
+            objectMagnitude = MoonModel.MAGNITUDE;
+        } else {
+            double earthTrueAnomaly = PlanetModel.EARTH.computeTrueAnomaly(daysSinceJ2010);
+            ((PlanetModel) model).eclipticState(daysSinceJ2010, PlanetModel.EARTH.computeOrbitRadius(earthTrueAnomaly),
+                    PlanetModel.EARTH.computeLongitude(earthTrueAnomaly), state);
+            objectMagnitude = (float) state[3];
+        }
+
+        values[0] = EclipticToEquatorialConversion.ra(state[0], state[1], cosObliquity, sinObliquity);
+        values[1] = EclipticToEquatorialConversion.dec(state[0], state[1], cosObliquity, sinObliquity);
+        values[2] = objectMagnitude;
+        //Kept as a float by the objects.
+        values[3] = (float) state[2];
+    }
+
+    /**
+     * The model, the instants and the arrays receiving the values of a computation.
+     */
+    private static final class Columns {
+        private final CelestialObjectModel<?> model;
+        private final double[] days;
+        private final double[] ra;
+        private final double[] dec;
+        private final double[] magnitude;
+        private final double[] angularSize;
+
+        private Columns(CelestialObjectModel<?> model, double[] days, double[] ra, double[] dec,
+                        double[] magnitude, double[] angularSize) {
+            this.model = model;
+            this.days = days;
+            this.ra = ra;
+            this.dec = dec;
+            this.magnitude = magnitude;
+            this.angularSize = angularSize;
+        }
+
+        /**
+         * Computes the values of the given range of instants.
+         *
+         * @param from index of the first instant (included).
+         * @param to   index of the last instant (excluded).
+         */
+        private void compute(int from, int to) {
+            //Buffers of the whole range.
+            double[] state = new double[STATE_SIZE];
+            double[] sunState = new double[SunModel.STATE_SIZE];
+            double[] values = new double[VALUES];
+            for (int i = from; i < to; i++) {
+                computeAt(model, days[i], state, sunState, values);
+                ra[i] = values[0];
+                dec[i] = values[1];
+                magnitude[i] = values[2];
+                angularSize[i] = values[3];
+            }
+        }
+    }
+
+    /**
+     * Task splitting its range of instants in halves until it is small enough to be computed sequentially.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        private RangeTask(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PARALLEL_INSTANTS) {
+                columns.compute(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(columns, from, middle), new RangeTask(columns, middle, to));
+            }
+        }
+    }
+}
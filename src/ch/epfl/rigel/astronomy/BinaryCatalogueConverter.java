@@ -0,0 +1,128 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the HYG Database to the binary catalogue format read by {@link BinaryCatalogueLoader}.
+ * Intended to be run once, the binary catalogue being shipped instead of the CSV file:
+ * {@code java ch.epfl.rigel.astronomy.BinaryCatalogueConverter hygdata_v3.csv hygdata_v3.bin}
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class BinaryCatalogueConverter {
+
+    private BinaryCatalogueConverter() {
+    }
+
+    /**
+     * Converts the HYG Database file given as first argument to the binary file given as second argument.
+     *
+     * @param args paths of the HYG Database and of the binary catalogue.
+     * @throws IOException if one of the files can not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryCatalogueConverter <hygdata.csv> <catalogue.bin>");
+            return;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(args[0]));
+             OutputStream out = Files.newOutputStream(Path.of(args[1]))) {
+            convert(in, out);
+        }
+    }
+
+    /**
+     * Converts the HYG Database read from the input stream to the binary catalogue format.
+     *
+     * @param hygStream    input stream with the HYG Database.
+     * @param outputStream output stream receiving the binary catalogue.
+     * @throws IOException if the streams can not be read or written.
+     */
+    public static void convert(InputStream hygStream, OutputStream outputStream) throws IOException {
+        Columns columns = new Columns();
+        HygDatabaseLoader.forEachRow(hygStream, columns::add);
+        outputStream.write(columns.toBytes());
+    }
+
+    /**
+     * Columns accumulated while parsing the database.
+     */
+    private static final class Columns {
+        private double[] raDec = new double[2 * 1024];
+        private int[] hipparcosIds = new int[1024];
+        private int[] nameIndices = new int[1024];
+        private float[] magnitudes = new float[1024];
+        private float[] colorIndices = new float[1024];
+        private int size = 0;
+        private final Map<String, Integer> nameTable = new HashMap<String, Integer>();
+        private final List<byte[]> names = new ArrayList<byte[]>();
+
+        private void add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            Integer nameIndex = nameTable.get(name);
+            if (nameIndex == null) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Star name too long: " + name);
+                }
+                nameIndex = names.size();
+                nameTable.put(name, nameIndex);
+                names.add(bytes);
+            }
+            if (size == magnitudes.length) {
+                raDec = Arrays.copyOf(raDec, 4 * size);
+                hipparcosIds = Arrays.copyOf(hipparcosIds, 2 * size);
+                nameIndices = Arrays.copyOf(nameIndices, 2 * size);
+                magnitudes = Arrays.copyOf(magnitudes, 2 * size);
+                colorIndices = Arrays.copyOf(colorIndices, 2 * size);
+            }
+            raDec[2 * size] = ra;
+            raDec[2 * size + 1] = dec;
+            hipparcosIds[size] = hipparcosId;
+            nameIndices[size] = nameIndex;
+            magnitudes[size] = magnitude;
+            colorIndices[size] = colorIndex;
+            size++;
+        }
+
+        private byte[] toBytes() {
+            int namesBytes = 0;
+            for (byte[] name : names) {
+                namesBytes += Short.BYTES + name.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BinaryCatalogueLoader.HEADER_BYTES
+                    + size * BinaryCatalogueLoader.STAR_BYTES + namesBytes)
+                    .order(BinaryCatalogueLoader.BYTE_ORDER);
+
+            buffer.putInt(BinaryCatalogueLoader.MAGIC)
+                    .putInt(BinaryCatalogueLoader.VERSION)
+                    .putInt(size)
+                    .putInt(names.size());
+            buffer.asDoubleBuffer().put(raDec, 0, 2 * size);
+            buffer.position(buffer.position() + 2 * Double.BYTES * size);
+            buffer.asIntBuffer().put(hipparcosIds, 0, size);
+            buffer.position(buffer.position() + Integer.BYTES * size);
+            buffer.asIntBuffer().put(nameIndices, 0, size);
+            buffer.position(buffer.position() + Integer.BYTES * size);
+            buffer.asFloatBuffer().put(magnitudes, 0, size);
+            buffer.position(buffer.position() + Float.BYTES * size);
+            buffer.asFloatBuffer().put(colorIndices, 0, size);
+            buffer.position(buffer.position() + Float.BYTES * size);
+            for (byte[] name : names) {
+                buffer.putShort((short) name.length).put(name);
+            }
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads the stars of a catalogue pre-compiled to the binary format written by {@link BinaryCatalogueConverter}.
+ * The file, in little endian byte order, is made of:
+ * a header (magic number, version, number of stars, number of names) of four ints,
+ * the fixed width columns of the stars: the right ascensions and declinations as interleaved doubles,
+ * the hipparcos ids and the name indices as ints, the magnitudes and the color indices as floats,
+ * then the table of the distinct names, each one being its length as an unsigned short followed by its UTF-8 bytes.
+ * The columns are read in bulk and copied to the columns of the catalogue, with the names table: nothing is parsed
+ * nor allocated per star.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public enum BinaryCatalogueLoader implements StarCatalogue.Loader {
+
+    INSTANCE;
+
+    //"RGLC" in ASCII.
+    static final int MAGIC = 0x52474C43;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES;
+    static final int STAR_BYTES = 2 * Double.BYTES + 2 * Integer.BYTES + 2 * Float.BYTES;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Loads from input stream a binary catalogue to the builder star catalogue.
+     *
+     * @param inputStream with the binary catalogue.
+     * @param builder     of the star catalogue.
+     * @throws IOException if the stream can not be read or is not a valid binary catalogue.
+     */
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        load(ByteBuffer.wrap(inputStream.readAllBytes()), builder);
+    }
+
+    /**
+     * Loads a binary catalogue file to the builder star catalogue. The file is mapped in memory
+     * instead of being read.
+     *
+     * @param path    path of the binary catalogue.
+     * @param builder of the star catalogue.
+     * @throws IOException if the file can not be read or is not a valid binary catalogue.
+     */
+    public void load(Path path, StarCatalogue.Builder builder) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+        }
+    }
+
+    /**
+     * Loads a binary catalogue resource to the builder star catalogue. A resource which is a file, e.g. when
+     * the application is run from its classes directory, is mapped in memory; any other one (e.g. an entry of
+     * a jar, possibly compressed) can not be mapped and is read from its stream.
+     *
+     * @param resource URL of the binary catalogue, as returned by {@link Class#getResource(String)}.
+     * @param builder  of the star catalogue.
+     * @throws IOException          if the resource can not be read or is not a valid binary catalogue.
+     * @throws NullPointerException if the resource is null.
+     */
+    public void load(URL resource, StarCatalogue.Builder builder) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                load(Path.of(resource.toURI()), builder);
+                return;
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                //Not a valid path, read from the stream below.
+            }
+        }
+        try (InputStream stream = resource.openStream()) {
+            load(stream, builder);
+        }
+    }
+
+    /**
+     * Loads the binary catalogue contained in the buffer.
+     *
+     * @param buffer  buffer containing the catalogue, from its position.
+     * @param builder of the star catalogue.
+     * @throws IOException if the buffer does not contain a valid binary catalogue.
+     */
+    private static void load(ByteBuffer buffer, StarCatalogue.Builder builder) throws IOException {
+        try {
+            buffer.order(BYTE_ORDER);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a binary star catalogue.");
+            }
+            int starCount = buffer.getInt();
+            int nameCount = buffer.getInt();
+            //Checked before allocating the columns: each name takes at least its length.
+            if (starCount < 0 || nameCount < 0
+                    || (long) STAR_BYTES * starCount + (long) Short.BYTES * nameCount > buffer.remaining()) {
+                throw new IOException("Corrupted binary star catalogue.");
+            }
+
+            double[] raDec = new double[2 * starCount];
+            buffer.asDoubleBuffer().get(raDec);
+            buffer.position(buffer.position() + Double.BYTES * raDec.length);
+            int[] hipparcosIds = new int[starCount];
+            buffer.asIntBuffer().get(hipparcosIds);
+            buffer.position(buffer.position() + Integer.BYTES * starCount);
+            int[] nameIndices = new int[starCount];
+            buffer.asIntBuffer().get(nameIndices);
+            buffer.position(buffer.position() + Integer.BYTES * starCount);
+            float[] magnitudes = new float[starCount];
+            buffer.asFloatBuffer().get(magnitudes);
+            buffer.position(buffer.position() + Float.BYTES * starCount);
+            float[] colorIndices = new float[starCount];
+            buffer.asFloatBuffer().get(colorIndices);
+            buffer.position(buffer.position() + Float.BYTES * starCount);
+
+            String[] names = new String[nameCount];
+            byte[] bytes = new byte[0];
+            for (int i = 0; i < nameCount; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, 2 * bytes.length)];
+                }
+                buffer.get(bytes, 0, length);
+                names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            builder.starColumns().addAll(raDec, hipparcosIds, nameIndices, names, magnitudes, colorIndices);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupted binary star catalogue.", e);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package ch.epfl.rigel.astronomy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Tokenizer of an ASCII CSV file held in a byte buffer, possibly mapped in memory, without quoted fields.
+ * The buffer is only read with absolute gets, so that several tokenizers can share it.
+ * Each record is only scanned for its separators: the fields are kept as ranges of the buffer,
+ * only parsed when asked for, so that the unused columns cost nothing. The numbers are parsed
+ * straight from the bytes: the decimal numbers of at most 19 significant digits without exponent are
+ * rounded exactly with integer arithmetic, the other ones being parsed by {@link Double#parseDouble(String)}.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class CsvTokenizer {
+
+    private static final byte SEPARATOR = ',';
+    //Significant digits of a decimal number held by a long, read as unsigned.
+    private static final int MAX_DIGITS = 19;
+    //Exact powers of ten as doubles, then as longs.
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final long[] LONG_POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+    //Largest integer below which all integers are exact doubles.
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    private final ByteBuffer bytes;
+    private final int end;
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private int position;
+    private int fieldCount = 0;
+    //Bytes of the last textual field read.
+    private byte[] field = new byte[32];
+
+    /**
+     * Constructs a tokenizer over the given bytes, keeping the ranges of the first given number of fields
+     * of each record.
+     *
+     * @param bytes      the content of the file, read at absolute indices.
+     * @param from       index of the first byte of the file (included).
+     * @param to         index of the last byte of the file (excluded).
+     * @param maxColumns number of fields of each record that can be read.
+     */
+    CsvTokenizer(ByteBuffer bytes, int from, int to, int maxColumns) {
+        this.bytes = bytes;
+        this.position = from;
+        this.end = to;
+        this.fieldStarts = new int[maxColumns];
+        this.fieldEnds = new int[maxColumns];
+    }
+
+    /**
+     * Moves to the next non empty record, ended by a line feed (optionally preceded by a carriage return)
+     * or the end of the file.
+     *
+     * @return false if there is no more record.
+     */
+    boolean nextRecord() {
+        while (position < end && (bytes.get(position) == '\n' || bytes.get(position) == '\r')) {
+            position++;
+        }
+        if (position >= end) {
+            fieldCount = 0;
+            return false;
+        }
+        int count = 0;
+        int start = position;
+        int i = position;
+        while (i < end && bytes.get(i) != '\n') {
+            if (bytes.get(i) == SEPARATOR) {
+                if (count < fieldStarts.length) {
+                    fieldStarts[count] = start;
+                    fieldEnds[count] = i;
+                }
+                count++;
+                start = i + 1;
+            }
+            i++;
+        }
+        int recordEnd = i > start && bytes.get(i - 1) == '\r' ? i - 1 : i;
+        if (count < fieldStarts.length) {
+            fieldStarts[count] = start;
+            fieldEnds[count] = recordEnd;
+        }
+        fieldCount = Math.min(count + 1, fieldStarts.length);
+        position = i + 1;
+        return true;
+    }
+
+    /**
+     * Returns true iff the field of the given column of the current record is empty or missing.
+     *
+     * @param column index of the column.
+     * @return true iff the field is empty.
+     */
+    boolean isEmpty(int column) {
+        return column >= fieldCount || fieldStarts[column] == fieldEnds[column];
+    }
+
+    /**
+     * Returns the field of the given column as a string, empty if missing.
+     *
+     * @param column index of the column.
+     * @return the field.
+     */
+    String stringValue(int column) {
+        if (isEmpty(column)) {
+            return "";
+        }
+        int length = fieldEnds[column] - fieldStarts[column];
+        if (length > field.length) {
+            field = new byte[Math.max(length, 2 * field.length)];
+        }
+        copyTo(column, field, 0);
+        return new String(field, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Appends the bytes of the field of the given column to the given array.
+     *
+     * @param column      index of the column.
+     * @param destination destination array.
+     * @param offset      index of the first byte written in the destination.
+     * @return the index following the last byte written in the destination.
+     * @throws IndexOutOfBoundsException if the destination is too small.
+     */
+    int copyTo(int column, byte[] destination, int offset) {
+        if (isEmpty(column)) {
+            return offset;
+        }
+        int length = fieldEnds[column] - fieldStarts[column];
+        Objects.checkFromIndexSize(offset, length, destination.length);
+        for (int i = 0; i < length; i++) {
+            destination[offset + i] = bytes.get(fieldStarts[column] + i);
+        }
+        return offset + length;
+    }
+
+    /**
+     * Returns the length in bytes of the field of the given column.
+     *
+     * @param column index of the column.
+     * @return the length of the field.
+     */
+    int length(int column) {
+        return isEmpty(column) ? 0 : fieldEnds[column] - fieldStarts[column];
+    }
+
+    /**
+     * Parses the field of the given column as an int, as {@link Integer#parseInt(String)} does.
+     *
+     * @param column       index of the column.
+     * @param defaultValue value of an empty field.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not an int.
+     */
+    int intValue(int column, int defaultValue) {
+        if (isEmpty(column)) {
+            return defaultValue;
+        }
+        int from = fieldStarts[column];
+        int to = fieldEnds[column];
+        int i = from;
+        boolean negative = bytes.get(i) == '-';
+        if (negative || bytes.get(i) == '+') {
+            i++;
+        }
+        if (i == to || to - i > 10) {
+            return Integer.parseInt(stringValue(column));
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            if (!isDigit(bytes.get(i))) {
+                return Integer.parseInt(stringValue(column));
+            }
+            value = 10 * value + (bytes.get(i) - '0');
+        }
+        if (negative) value = -value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(stringValue(column));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the field of the given column as a float, rounding its double value as in
+     * {@code (float) Double.parseDouble(s)}.
+     *
+     * @param column       index of the column.
+     * @param defaultValue value of an empty field.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    float floatValue(int column, float defaultValue) {
+        return isEmpty(column) ? defaultValue : (float) doubleValue(column);
+    }
+
+    /**
+     * Parses the field of the given column as a double, as {@link Double#parseDouble(String)} does.
+     * A number of at most 19 significant digits without exponent is parsed without allocating anything.
+     *
+     * @param column index of the column.
+     * @return the value of the field.
+     * @throws NumberFormatException if the field is empty or not a number.
+     */
+    double doubleValue(int column) {
+        if (isEmpty(column)) {
+            throw new NumberFormatException("empty String");
+        }
+        int from = fieldStarts[column];
+        int to = fieldEnds[column];
+        int i = from;
+        boolean negative = bytes.get(i) == '-';
+        if (negative || bytes.get(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        boolean anyDigit = false;
+        for (; i < to; i++) {
+            byte b = bytes.get(i);
+            if (isDigit(b)) {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++digits > MAX_DIGITS) {
+                        return Double.parseDouble(stringValue(column));
+                    }
+                    mantissa = 10 * mantissa + (b - '0');
+                }
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                //Exponent, or not a number.
+                return Double.parseDouble(stringValue(column));
+            }
+        }
+        if (!anyDigit) {
+            return Double.parseDouble(stringValue(column));
+        }
+        double value = decimalValue(mantissa, fractionDigits);
+        if (Double.isNaN(value)) {
+            return Double.parseDouble(stringValue(column));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Computes the double closest to mantissa / 10^fractionDigits, ties to even.
+     * Both numbers are exact doubles for the usual mantissas, one division rounding their exact quotient
+     * (Clinger's fast path). Otherwise, the quotient computed in floating point is off by an ulp at most:
+     * it is corrected by comparing the exact quotient to the halfway points around it, with integer arithmetic.
+     *
+     * @param mantissa       significant digits, read as an unsigned long.
+     * @param fractionDigits number of digits after the point.
+     * @return the double, or NaN if it can not be computed this way.
+     */
+    private static double decimalValue(long mantissa, int fractionDigits) {
+        if (mantissa == 0) {
+            return 0;
+        }
+        if (mantissa > 0 && mantissa <= MAX_EXACT_INTEGER && fractionDigits < DOUBLE_POWERS_OF_TEN.length) {
+            return mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+        }
+        if (fractionDigits >= LONG_POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        long divisor = LONG_POWERS_OF_TEN[fractionDigits];
+        double value = unsignedToDouble(mantissa) / DOUBLE_POWERS_OF_TEN[fractionDigits];
+        //The quotient is much smaller than 2^53, the halfway points having a negative exponent.
+        if (value >= MAX_EXACT_INTEGER / 2) {
+            return Double.NaN;
+        }
+        for (int step = 0; step < 3; step++) {
+            int aboveNext = compareToHalfway(mantissa, divisor, value);
+            if (aboveNext > 0) {
+                value = Math.nextUp(value);
+                continue;
+            }
+            int abovePrevious = compareToHalfway(mantissa, divisor, Math.nextDown(value));
+            if (abovePrevious < 0) {
+                value = Math.nextDown(value);
+                continue;
+            }
+            if (aboveNext == 0) {
+                return isEven(value) ? value : Math.nextUp(value);
+            }
+            if (abovePrevious == 0) {
+                return isEven(value) ? value : Math.nextDown(value);
+            }
+            return value;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Compares the quotient mantissa / divisor to the halfway point between the given double and the next one,
+     * (2m + 1) * 2^(e - 1) where the double is m * 2^e, i.e. mantissa * 2^(1 - e) to (2m + 1) * divisor
+     * as 128 bits integers. Both products are close, the double being close to the quotient.
+     *
+     * @param mantissa unsigned dividend.
+     * @param divisor  positive divisor, below 2^60.
+     * @param value    positive normal double below 2^52.
+     * @return the sign of the difference between the quotient and the halfway point.
+     */
+    private static int compareToHalfway(long mantissa, long divisor, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long significand = (bits & ((1L << 52) - 1)) | (1L << 52);
+        int shift = 1 - ((int) (bits >>> 52) - 1075);
+        long quotientHigh = shift >= 64 ? mantissa << (shift - 64) : mantissa >>> (64 - shift);
+        long quotientLow = shift >= 64 ? 0 : mantissa << shift;
+        long halfway = 2 * significand + 1;
+        long halfwayHigh = Math.multiplyHigh(halfway, divisor);
+        long halfwayLow = halfway * divisor;
+        int high = Long.compareUnsigned(quotientHigh, halfwayHigh);
+        return Integer.signum(high != 0 ? high : Long.compareUnsigned(quotientLow, halfwayLow));
+    }
+
+    private static double unsignedToDouble(long value) {
+        return value >= 0 ? value : 2 * (double) (value >>> 1);
+    }
+
+    private static boolean isEven(double value) {
+        return (Double.doubleToRawLongBits(value) & 1) == 0;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
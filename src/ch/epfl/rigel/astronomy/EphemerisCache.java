@@ -0,0 +1,373 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Model of the solar system interpolating the Moon and the planets with Chebyshev polynomials, intended for
+ * animations: the time is split in windows of fixed length, each one fitted once from the analytic models,
+ * so that the state at an instant only costs the evaluation of a few polynomials. The Sun, cheap to compute,
+ * is computed exactly.
+ * <p>
+ * Each window is checked against the analytic models when it is fitted: if the angle between an interpolated
+ * position and the exact one exceeds the maximal error, or if a magnitude is too far from the exact one, the
+ * window is not interpolated and its states are computed exactly. The windows are kept by index, the least
+ * recently used ones being evicted, and the next window in the direction of the animation is fitted ahead on a
+ * background executor.
+ * Can be used by several threads.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class EphemerisCache implements SolarSystemModel {
+
+    /**
+     * Default length of a window, in days.
+     */
+    public static final double DEFAULT_WINDOW_DAYS = 2;
+    /**
+     * Default degree of the polynomials.
+     */
+    public static final int DEFAULT_DEGREE = 12;
+    /**
+     * Default number of windows kept.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+    /**
+     * Default maximal angle between an interpolated position and the exact one, in radians.
+     */
+    public static final double DEFAULT_MAX_ERROR = Angle.ofArcsec(1);
+
+    //Interpolated values of each object: its unit equatorial vector, angular size, magnitude and phase (Moon only).
+    private static final int COMPONENTS = 6;
+    //Largest difference between an interpolated magnitude and the exact one: the magnitudes of the inner planets
+    //are not smooth around their inferior conjunctions, their windows are then computed exactly.
+    private static final double MAX_MAGNITUDE_ERROR = 0.01;
+    //Number of instants at which a window is checked, ends included.
+    private static final int CHECKS_PER_NODE = 2;
+
+    private final double windowDays;
+    private final int degree;
+    private final int capacity;
+    private final double maxError;
+    private final Executor prefetcher;
+    //Least recently used first. All fields below are guarded by the cache itself.
+    private final Map<Long, Window> windows;
+    private final Set<Long> pending = new HashSet<Long>();
+    private long lastIndex = 0;
+    private boolean used = false;
+    private int direction = 0;
+
+    /**
+     * Constructs a cache with the default windows and error, fitting ahead on the common fork/join pool.
+     */
+    public EphemerisCache() {
+        this(DEFAULT_WINDOW_DAYS, DEFAULT_DEGREE, DEFAULT_CAPACITY, DEFAULT_MAX_ERROR, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param windowDays length of a window, in days.
+     * @param degree     degree of the polynomials.
+     * @param capacity   maximal number of windows kept.
+     * @param maxError   maximal angle between an interpolated position and the exact one, in radians.
+     * @param prefetcher executor fitting the windows ahead of the animation.
+     * @throws IllegalArgumentException if the length, the error or the degree is not strictly positive,
+     *                                  or if less than two windows would be kept.
+     * @throws NullPointerException     if the executor is null.
+     */
+    public EphemerisCache(double windowDays, int degree, int capacity, double maxError, Executor prefetcher) {
+        Preconditions.checkArgument(windowDays > 0 && degree > 0 && capacity >= 2 && maxError > 0);
+        this.windowDays = windowDays;
+        this.degree = degree;
+        this.capacity = capacity;
+        this.maxError = maxError;
+        this.prefetcher = Objects.requireNonNull(prefetcher);
+        this.windows = new LinkedHashMap<Long, Window>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Window> eldest) {
+                return size() > EphemerisCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the state of the solar system at the given instant, interpolated if its window could be.
+     *
+     * @param when the instant.
+     * @return the state of the solar system at the given instant.
+     */
+    @Override
+    public SolarSystemState at(ZonedDateTime when) {
+        double days = Epoch.J2010.daysUntil(when);
+        EclipticToEquatorialConversion conversion = new EclipticToEquatorialConversion(when);
+        Window window = this.window((long) Math.floor(days / windowDays));
+        if (window.coefficients == null) {
+            return SolarSystemState.at(days, conversion);
+        }
+        return window.state(days, SunModel.SUN.at(days, conversion));
+    }
+
+    /**
+     * Returns the number of windows kept.
+     *
+     * @return the number of windows kept.
+     */
+    public synchronized int size() {
+        return this.windows.size();
+    }
+
+    /**
+     * Returns the window of the given index, fitting it if needed, then fits the next one ahead.
+     *
+     * @param index the index of the window.
+     * @return the window.
+     */
+    private Window window(long index) {
+        Window window;
+        synchronized (this) {
+            window = this.windows.get(index);
+            if (this.used && index != this.lastIndex) {
+                this.direction = Long.signum(index - this.lastIndex);
+            }
+            this.used = true;
+            this.lastIndex = index;
+        }
+        if (window == null) {
+            window = this.fit(index);
+            synchronized (this) {
+                this.windows.put(index, window);
+            }
+        }
+        this.prefetch(index);
+        return window;
+    }
+
+    /**
+     * Fits the window following the given one in the direction of the animation on the background executor,
+     * unless it is kept already.
+     *
+     * @param index the index of the current window.
+     */
+    private void prefetch(long index) {
+        long next;
+        synchronized (this) {
+            if (this.direction == 0) {
+                return;
+            }
+            next = index + this.direction;
+            if (this.windows.containsKey(next) || !this.pending.add(next)) {
+                return;
+            }
+        }
+        this.prefetcher.execute(() -> {
+            try {
+                Window window = this.fit(next);
+                synchronized (this) {
+                    this.windows.put(next, window);
+                }
+            } finally {
+                synchronized (this) {
+                    this.pending.remove(next);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fits the polynomials of the window of the given index on the Chebyshev nodes of the window,
+     * then checks them against the exact positions.
+     *
+     * @param index the index of the window.
+     * @return the window, not interpolated if its error is too large.
+     */
+    private Window fit(long index) {
+        double start = index * windowDays;
+        int nodes = degree + 1;
+        double[][] values = null;
+        List<Planet> planets = null;
+        for (int k = 0; k < nodes; k++) {
+            double x = Math.cos(Math.PI * (k + 0.5) / nodes);
+            SolarSystemState state = exactState(start + (x + 1) / 2 * windowDays);
+            if (values == null) {
+                planets = state.planets();
+                values = new double[(planets.size() + 1) * COMPONENTS][nodes];
+            }
+            components(state, values, k);
+        }
+
+        //c_j = 2/n sum_k f(x_k) T_j(x_k), the first coefficient being halved.
+        double[][] coefficients = new double[values.length][nodes];
+        for (int c = 0; c < values.length; c++) {
+            for (int j = 0; j < nodes; j++) {
+                double sum = 0;
+                for (int k = 0; k < nodes; k++) {
+                    sum += values[c][k] * Math.cos(Math.PI * j * (k + 0.5) / nodes);
+                }
+                coefficients[c][j] = (j == 0 ? 1.0 : 2.0) * sum / nodes;
+            }
+        }
+        String[] names = new String[planets.size()];
+        for (int p = 0; p < names.length; p++) {
+            names[p] = planets.get(p).name();
+        }
+        Window window = new Window(start, windowDays, coefficients, names);
+
+        int checks = CHECKS_PER_NODE * nodes;
+        for (int m = 0; m <= checks; m++) {
+            double days = start + windowDays * m / checks;
+            SolarSystemState exact = exactState(days);
+            SolarSystemState interpolated = window.state(days, null);
+            if (maxAngularError(exact, interpolated) > maxError
+                    || maxMagnitudeError(exact, interpolated) > MAX_MAGNITUDE_ERROR) {
+                return new Window(start, windowDays, null, names);
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Computes the exact state of the solar system at the given time.
+     *
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @return the state of the solar system.
+     */
+    private static SolarSystemState exactState(double daysSinceJ2010) {
+        return SolarSystemState.at(daysSinceJ2010, EclipticToEquatorialConversion.ofJulianCenturies(
+                Epoch.J2000.julianCenturiesUntil(Epoch.J2010, daysSinceJ2010)));
+    }
+
+    /**
+     * Stores the interpolated values of the Moon and the planets of the given state, in this order.
+     *
+     * @param state  the state.
+     * @param values array receiving the values, one row per component of each object.
+     * @param node   index of the column receiving the values.
+     */
+    private static void components(SolarSystemState state, double[][] values, int node) {
+        components(state.moon(), state.moon().phase(), values, 0, node);
+        for (int p = 0; p < state.planets().size(); p++) {
+            components(state.planets().get(p), 0, values, (p + 1) * COMPONENTS, node);
+        }
+    }
+
+    private static void components(CelestialObject object, double phase, double[][] values, int row, int node) {
+        double ra = object.equatorialPos().ra();
+        double dec = object.equatorialPos().dec();
+        values[row][node] = Math.cos(dec) * Math.cos(ra);
+        values[row + 1][node] = Math.cos(dec) * Math.sin(ra);
+        values[row + 2][node] = Math.sin(dec);
+        values[row + 3][node] = object.angularSize();
+        values[row + 4][node] = object.magnitude();
+        values[row + 5][node] = phase;
+    }
+
+    /**
+     * Computes the largest angle between the positions of the Moon and the planets of the given states.
+     *
+     * @param expected the exact state.
+     * @param actual   the interpolated state.
+     * @return the largest angle, in radians.
+     */
+    private static double maxAngularError(SolarSystemState expected, SolarSystemState actual) {
+        double error = EquatorialCoordinates.angularDistance(expected.moon().equatorialPos(), actual.moon().equatorialPos());
+        for (int p = 0; p < expected.planets().size(); p++) {
+            error = Math.max(error, EquatorialCoordinates.angularDistance(expected.planets().get(p).equatorialPos(),
+                    actual.planets().get(p).equatorialPos()));
+        }
+        return error;
+    }
+
+    /**
+     * Computes the largest difference between the magnitudes of the planets of the given states.
+     *
+     * @param expected the exact state.
+     * @param actual   the interpolated state.
+     * @return the largest difference of magnitude.
+     */
+    private static double maxMagnitudeError(SolarSystemState expected, SolarSystemState actual) {
+        double error = 0;
+        for (int p = 0; p < expected.planets().size(); p++) {
+            error = Math.max(error, Math.abs(expected.planets().get(p).magnitude() - actual.planets().get(p).magnitude()));
+        }
+        return error;
+    }
+
+    /**
+     * Chebyshev coefficients of the values of the Moon and the planets over a window, null if the window
+     * could not be interpolated within the maximal error.
+     */
+    private static final class Window {
+        private final double start;
+        private final double length;
+        private final double[][] coefficients;
+        private final String[] names;
+
+        private Window(double start, double length, double[][] coefficients, String[] names) {
+            this.start = start;
+            this.length = length;
+            this.coefficients = coefficients;
+            this.names = names;
+        }
+
+        /**
+         * Interpolates the state of the solar system at the given time of the window.
+         *
+         * @param days time difference for the given date, in the window.
+         * @param sun  the Sun at the given time, only given back by the state.
+         * @return the interpolated state.
+         */
+        private SolarSystemState state(double days, Sun sun) {
+            double x = 2 * (days - start) / length - 1;
+            Moon moon = new Moon(position(0, x), (float) Math.max(0, value(3, x)), MoonModel.MAGNITUDE,
+                    (float) Math.min(1, Math.max(0, value(5, x))));
+            Planet[] planets = new Planet[names.length];
+            for (int p = 0; p < planets.length; p++) {
+                int row = (p + 1) * COMPONENTS;
+                planets[p] = new Planet(names[p], position(row, x),
+                        (float) Math.max(0, value(row + 3, x)), (float) value(row + 4, x));
+            }
+            return new SolarSystemState(days, sun, moon, List.of(planets));
+        }
+
+        /**
+         * Interpolates the equatorial position of which the unit vector starts at the given row.
+         */
+        private EquatorialCoordinates position(int row, double x) {
+            double vx = value(row, x);
+            double vy = value(row + 1, x);
+            double vz = value(row + 2, x);
+            double norm = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            return EquatorialCoordinates.of(Angle.normalizePositive(Math.atan2(vy, vx)),
+                    Math.asin(Math.max(-1, Math.min(1, vz / norm))));
+        }
+
+        /**
+         * Evaluates the series of the given row at the given point of [-1, 1] with the Clenshaw recurrence.
+         */
+        private double value(int row, double x) {
+            double[] c = coefficients[row];
+            double b1 = 0;
+            double b2 = 0;
+            for (int j = c.length - 1; j >= 1; j--) {
+                double b = 2 * x * b1 - b2 + c[j];
+                b2 = b1;
+                b1 = b;
+            }
+            return x * b1 - b2 + c[0];
+        }
+    }
+}
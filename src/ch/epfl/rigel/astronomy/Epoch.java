@@ -18,12 +18,15 @@ public enum Epoch {
             LocalTime.of(12, 0), ZoneOffset.UTC));
 
     private final ZonedDateTime time;
+    //The instant of the epoch in milliseconds since 1970, not to compute the time between two epochs at each call.
+    private final long epochMilli;
     private static final double MILLIS_TO_DAYS = Duration.ofDays(1).toMillis();
     private static final double MILLIS_TO_CENTURIES = Duration.ofDays(36525).toMillis();
 
 
     Epoch(ZonedDateTime time) {
         this.time = time;
+        this.epochMilli = time.toInstant().toEpochMilli();
     }
 
     /**
@@ -44,4 +47,27 @@ public enum Epoch {
      */
     public double julianCenturiesUntil(ZonedDateTime when){
         return time.until(when, ChronoUnit.MILLIS)/MILLIS_TO_CENTURIES; }
+
+    /**
+     * Computes the time difference in Julian Centuries between the instance and the instant at the given number of days
+     * from the given epoch. Same as {@link #julianCenturiesUntil(ZonedDateTime)} for the instant, if it is a whole number
+     * of milliseconds and the number of days was computed by {@link #daysUntil(ZonedDateTime)}.
+     * @param epoch the epoch the number of days is counted from.
+     * @param daysSinceEpoch time difference from the epoch in days.
+     * @return time difference in Julian Centuries from the instance to the instant.
+     */
+    public double julianCenturiesUntil(Epoch epoch, double daysSinceEpoch){
+        long millis = Math.round(daysSinceEpoch * MILLIS_TO_DAYS) + (epoch.epochMilli - epochMilli);
+        return millis/MILLIS_TO_CENTURIES;
+    }
+
+    /**
+     * Computes the instant at the given number of days from the instance, rounded to the millisecond.
+     * The inverse of {@link #daysUntil(ZonedDateTime)}.
+     * @param days time difference from the instance in days. ( can be negative )
+     * @return the instant, in UTC.
+     */
+    public ZonedDateTime plusDays(double days){
+        return time.plus(Math.round(days * MILLIS_TO_DAYS), ChronoUnit.MILLIS);
+    }
 }
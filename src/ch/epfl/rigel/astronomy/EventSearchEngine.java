@@ -0,0 +1,475 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.RootFinder;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Searches the conjunctions of the planets, their oppositions and greatest elongations, and the close approaches
+ * of the Moon to the bright stars of a catalogue.
+ * <p>
+ * The time is swept with a coarse step: the positions of the Sun, the Moon and the planets are computed at all the
+ * instants by {@link BatchEphemeris}, in parallel, then the samples are scanned for the events, one pair of objects
+ * per task of the common fork/join pool. A conjunction, an elongation or an approach is an extremum of the angular
+ * distance between the objects, refined by finding the root of its rate of change; an opposition is refined as the
+ * root of the sine of the difference between the ecliptic longitudes of the planet and the Sun.
+ * <p>
+ * The events are streamed: the time is swept a year at a time, when the events of the previous year were consumed.
+ * An event belongs to the sweep containing its refined instant, the sweeps scanning the samples around their ends,
+ * so that the stream is sorted by instant.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class EventSearchEngine {
+
+    /**
+     * Default step of the sweep, in days, small enough for the motion of the Moon.
+     */
+    public static final double DEFAULT_STEP_DAYS = 0.25;
+    /**
+     * Default magnitude of the faintest stars approached by the Moon.
+     */
+    public static final double DEFAULT_MAX_STAR_MAGNITUDE = 1.5;
+    /**
+     * Default largest angular distance of a conjunction, in radians.
+     */
+    public static final double DEFAULT_MAX_CONJUNCTION_SEPARATION = Angle.ofDeg(5);
+    /**
+     * Default largest angular distance of a close approach of the Moon, in radians.
+     */
+    public static final double DEFAULT_MAX_LUNAR_SEPARATION = Angle.ofDeg(2);
+
+    //Days swept at once, the events being streamed sweep after sweep.
+    private static final double SWEEP_DAYS = 365.25;
+    //One minute, in days.
+    private static final double TOLERANCE = 1d / (24 * 60);
+    private static final int MAX_ITERATIONS = 64;
+    //Step of the rate of change of the angular distances, in days.
+    private static final double DERIVATIVE_STEP = 1e-4;
+    //Largest ecliptic latitude of the Moon: the inclination of its orbit, with its perturbations.
+    private static final double MOON_MAX_LATITUDE = Angle.ofDeg(5.4);
+    //Number of pairs of objects below which the scan is not split any more.
+    private static final int MIN_PARALLEL_SEARCHES = 4;
+
+    //Objects swept: the Sun, the Moon and the planets other than the Earth, in this order.
+    private static final List<CelestialObjectModel<?>> MODELS = models();
+    private static final int SUN = 0;
+    private static final int MOON = 1;
+
+    private final double stepDays;
+    private final double maxConjunctionSeparation;
+    private final double maxLunarSeparation;
+    private final String[] names;
+    private final List<Search> searches;
+
+    /**
+     * Constructs an engine with the default step and separations, the Moon approaching the stars of the catalogue
+     * at least as bright as the default magnitude.
+     *
+     * @param catalogue the star catalogue.
+     */
+    public EventSearchEngine(StarCatalogue catalogue) {
+        this(catalogue, DEFAULT_MAX_STAR_MAGNITUDE, DEFAULT_MAX_CONJUNCTION_SEPARATION, DEFAULT_MAX_LUNAR_SEPARATION,
+                DEFAULT_STEP_DAYS);
+    }
+
+    /**
+     * Constructs an engine.
+     *
+     * @param catalogue                the star catalogue.
+     * @param maxStarMagnitude         the magnitude of the faintest stars approached by the Moon.
+     * @param maxConjunctionSeparation the largest angular distance of a conjunction, in radians.
+     * @param maxLunarSeparation       the largest angular distance of a close approach of the Moon, in radians.
+     * @param stepDays                 the step of the sweep, in days.
+     * @throws IllegalArgumentException if a separation or the step is not strictly positive, or if the step is
+     *                                  longer than a day.
+     * @throws NullPointerException     if the catalogue is null.
+     */
+    public EventSearchEngine(StarCatalogue catalogue, double maxStarMagnitude, double maxConjunctionSeparation,
+                             double maxLunarSeparation, double stepDays) {
+        Preconditions.checkArgument(maxConjunctionSeparation > 0 && maxLunarSeparation > 0
+                && stepDays > 0 && stepDays <= 1);
+        this.stepDays = stepDays;
+        this.maxConjunctionSeparation = maxConjunctionSeparation;
+        this.maxLunarSeparation = maxLunarSeparation;
+
+        this.names = new String[MODELS.size()];
+        for (int body = 0; body < this.names.length; body++) {
+            this.names[body] = ((CelestialObject) MODELS.get(body).at(0,
+                    EclipticToEquatorialConversion.ofJulianCenturies(0))).name();
+        }
+
+        List<Search> searches = new ArrayList<Search>();
+        for (int body = MOON + 1; body < MODELS.size(); body++) {
+            for (int other = body + 1; other < MODELS.size(); other++) {
+                searches.add(new Search(Kind.CONJUNCTION, body, other, null));
+            }
+            boolean outer = PlanetModel.ALL.indexOf(MODELS.get(body)) > PlanetModel.ALL.indexOf(PlanetModel.EARTH);
+            searches.add(new Search(outer ? Kind.OPPOSITION : Kind.ELONGATION, body, SUN, null));
+        }
+        //Only the stars close enough to the ecliptic can be approached by the Moon.
+        double obliquity = EclipticToEquatorialConversion.obliquity(0);
+        StarStore store = catalogue.starStore();
+        for (int i = 0; i < store.size(); i++) {
+            double ra = store.ra(i);
+            double dec = store.dec(i);
+            double latitude = Math.asin(Math.sin(dec) * Math.cos(obliquity)
+                    - Math.cos(dec) * Math.sin(obliquity) * Math.sin(ra));
+            if (store.magnitude(i) <= maxStarMagnitude && Math.abs(latitude) <= MOON_MAX_LATITUDE + maxLunarSeparation) {
+                searches.add(new Search(Kind.LUNAR_APPROACH, MOON, -1, catalogue.stars().get(i)));
+            }
+        }
+        this.searches = List.copyOf(searches);
+    }
+
+    /**
+     * Searches the events between the given instants.
+     *
+     * @param from the first instant.
+     * @param to   the last instant.
+     * @return a sequential stream of the events, by instant, the time being swept as the stream is consumed.
+     * @throws IllegalArgumentException if the last instant is before the first one.
+     * @throws NullPointerException     if one of the instants is null.
+     */
+    public Stream<AstronomicalEvent> search(ZonedDateTime from, ZonedDateTime to) {
+        double start = Epoch.J2010.daysUntil(from);
+        double end = Epoch.J2010.daysUntil(to);
+        Preconditions.checkArgument(start <= end);
+        //Instants of the sweep start + i * step, i in [0, last].
+        int last = Math.max(1, (int) Math.ceil((end - start) / this.stepDays));
+        int samplesPerSweep = Math.max(1, (int) (SWEEP_DAYS / this.stepDays));
+        int sweeps = (last + samplesPerSweep) / samplesPerSweep;
+        return IntStream.range(0, sweeps)
+                .mapToObj(s -> this.sweep(start, end, last, s * samplesPerSweep, Math.min((s + 1) * samplesPerSweep, last + 1)))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Sweeps the instants of the given range, finding the events of which the refined instant is in the range.
+     *
+     * @param start the first instant of the search.
+     * @param end   the last instant of the search.
+     * @param last  the index of the last instant of the search.
+     * @param from  the index of the first instant of the range (included).
+     * @param to    the index of the last instant of the range (excluded).
+     * @return the events, sorted by instant.
+     */
+    private List<AstronomicalEvent> sweep(double start, double end, int last, int from, int to) {
+        //An event is refined between the neighbours of its coarse instant, which may be out of the range: the
+        //coarse instants next to the range are scanned too, with their own neighbours.
+        int fromScan = Math.max(0, from - 1);
+        int toScan = Math.min(last + 1, to + 1);
+        Samples samples = new Samples(start, this.stepDays, Math.max(0, fromScan - 1), Math.min(last, toScan));
+
+        List<List<AstronomicalEvent>> found = new ArrayList<List<AstronomicalEvent>>(
+                Collections.<List<AstronomicalEvent>>nCopies(this.searches.size(), null));
+        ForkJoinPool.commonPool().invoke(new ScanTask(this, samples, fromScan, toScan, found, 0, found.size()));
+
+        //Computed as the instants of the samples, so that the ranges of consecutive sweeps meet exactly.
+        double rangeStart = start + from * this.stepDays;
+        double rangeEnd = start + to * this.stepDays;
+        List<AstronomicalEvent> events = new ArrayList<AstronomicalEvent>();
+        for (List<AstronomicalEvent> searchEvents : found) {
+            for (AstronomicalEvent event : searchEvents) {
+                double days = Epoch.J2010.daysUntil(event.when());
+                if (rangeStart <= days && days < rangeEnd && days <= end) {
+                    events.add(event);
+                }
+            }
+        }
+        events.sort(Comparator.comparing(AstronomicalEvent::when));
+        return events;
+    }
+
+    /**
+     * Lists the models of the objects swept.
+     *
+     * @return the models of the Sun, the Moon and the planets other than the Earth.
+     */
+    private static List<CelestialObjectModel<?>> models() {
+        List<CelestialObjectModel<?>> models = new ArrayList<CelestialObjectModel<?>>();
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+        for (PlanetModel planet : PlanetModel.ALL) {
+            if (planet != PlanetModel.EARTH) {
+                models.add(planet);
+            }
+        }
+        return Collections.unmodifiableList(models);
+    }
+
+    /**
+     * The kinds of searches.
+     */
+    private enum Kind {
+        CONJUNCTION,
+        OPPOSITION,
+        ELONGATION,
+        LUNAR_APPROACH
+    }
+
+    /**
+     * A pair of objects of which the events are searched: two objects swept, or the Moon and a star.
+     */
+    private static final class Search {
+        private final Kind kind;
+        private final int first;
+        private final int second;
+        private final Star star;
+
+        private Search(Kind kind, int first, int second, Star star) {
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+            this.star = star;
+        }
+    }
+
+    /**
+     * Positions of the objects swept at the instants of a range, and their ecliptic longitudes.
+     */
+    private static final class Samples {
+        private final double[] days;
+        private final double[][] ra;
+        private final double[][] dec;
+        private final double[][] lon;
+        //Index of the first instant of the samples in the search.
+        private final int offset;
+
+        /**
+         * Computes the positions at the instants start + i * step, i in [from, to].
+         */
+        private Samples(double start, double step, int from, int to) {
+            int count = to - from + 1;
+            this.offset = from;
+            this.days = new double[count];
+            for (int i = 0; i < count; i++) {
+                this.days[i] = start + (from + i) * step;
+            }
+            double[] cosObliquities = new double[count];
+            double[] sinObliquities = new double[count];
+            for (int i = 0; i < count; i++) {
+                double obliquity = EclipticToEquatorialConversion.obliquity(
+                        Epoch.J2000.julianCenturiesUntil(Epoch.J2010, this.days[i]));
+                cosObliquities[i] = Math.cos(obliquity);
+                sinObliquities[i] = Math.sin(obliquity);
+            }
+
+            this.ra = new double[MODELS.size()][count];
+            this.dec = new double[MODELS.size()][count];
+            this.lon = new double[MODELS.size()][count];
+            double[] magnitudes = new double[count];
+            double[] angularSizes = new double[count];
+            for (int body = 0; body < MODELS.size(); body++) {
+                BatchEphemeris.compute(MODELS.get(body), this.days, this.ra[body], this.dec[body], magnitudes,
+                        angularSizes, true);
+                for (int i = 0; i < count; i++) {
+                    this.lon[body][i] = EclipticToEquatorialConversion.lon(this.ra[body][i], this.dec[body][i],
+                            cosObliquities[i], sinObliquities[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scan of the samples of a thread, with the buffers of its computations.
+     */
+    private final class Scanner {
+        private final double[] state = new double[BatchEphemeris.STATE_SIZE];
+        private final double[] sunState = new double[SunModel.STATE_SIZE];
+        private final double[] values = new double[BatchEphemeris.VALUES];
+        private double[] separations = new double[0];
+        //Positions of the objects of the search at the instant evaluated last.
+        private double ra1;
+        private double dec1;
+        private double ra2;
+        private double dec2;
+
+        /**
+         * Finds the events of the given search of which the coarse instant has an index in [from, to[.
+         */
+        private List<AstronomicalEvent> scan(Search search, Samples samples, int from, int to) {
+            List<AstronomicalEvent> events = new ArrayList<AstronomicalEvent>();
+            int count = samples.days.length;
+            if (this.separations.length < count) {
+                this.separations = new double[count];
+            }
+            for (int k = 0; k < count; k++) {
+                double ra2 = search.star == null ? samples.ra[search.second][k] : search.star.equatorialPos().ra();
+                double dec2 = search.star == null ? samples.dec[search.second][k] : search.star.equatorialPos().dec();
+                this.separations[k] = EquatorialCoordinates.angularDistance(
+                        samples.ra[search.first][k], samples.dec[search.first][k], ra2, dec2);
+            }
+
+            for (int i = from; i < to; i++) {
+                int k = i - samples.offset;
+                if (search.kind == Kind.OPPOSITION) {
+                    if (k + 1 < count) {
+                        this.findOpposition(search, samples, k, events);
+                    }
+                } else if (k >= 1 && k + 1 < count) {
+                    this.findExtremum(search, samples, k, events);
+                }
+            }
+            return events;
+        }
+
+        /**
+         * Finds the extremum of the angular distance of the given search around the sample of index k, if any.
+         */
+        private void findExtremum(Search search, Samples samples, int k, List<AstronomicalEvent> events) {
+            double[] d = this.separations;
+            boolean minimum = search.kind != Kind.ELONGATION;
+            if (minimum ? !(d[k - 1] > d[k] && d[k] <= d[k + 1]) : !(d[k - 1] < d[k] && d[k] >= d[k + 1])) {
+                return;
+            }
+            double maxSeparation = search.kind == Kind.LUNAR_APPROACH ? maxLunarSeparation : maxConjunctionSeparation;
+            //The distance does not change by more than between the samples around the extremum.
+            if (minimum && d[k] - Math.max(d[k - 1] - d[k], d[k + 1] - d[k]) > maxSeparation) {
+                return;
+            }
+
+            DoubleUnaryOperator rate = t -> (this.separation(search, t + DERIVATIVE_STEP)
+                    - this.separation(search, t - DERIVATIVE_STEP)) / (2 * DERIVATIVE_STEP);
+            double a = samples.days[k - 1];
+            double b = samples.days[k + 1];
+            double rateA = rate.applyAsDouble(a);
+            double rateB = rate.applyAsDouble(b);
+            double t = (rateA < 0) != (rateB < 0)
+                    ? RootFinder.illinois(rate, a, rateA, b, rateB, TOLERANCE, MAX_ITERATIONS)
+                    : samples.days[k];
+            double separation = this.separation(search, t);
+            if (minimum && separation > maxSeparation) {
+                return;
+            }
+
+            AstronomicalEvent.Type type;
+            if (search.kind == Kind.ELONGATION) {
+                //East of the Sun when its right ascension is greater.
+                type = Math.sin(this.ra1 - this.ra2) > 0
+                        ? AstronomicalEvent.Type.GREATEST_EASTERN_ELONGATION
+                        : AstronomicalEvent.Type.GREATEST_WESTERN_ELONGATION;
+            } else {
+                type = search.kind == Kind.CONJUNCTION
+                        ? AstronomicalEvent.Type.CONJUNCTION
+                        : AstronomicalEvent.Type.LUNAR_APPROACH;
+            }
+            events.add(this.event(type, search, t, separation));
+        }
+
+        /**
+         * Finds the opposition of the planet of the given search between the samples of index k and k + 1, if any.
+         */
+        private void findOpposition(Search search, Samples samples, int k, List<AstronomicalEvent> events) {
+            double differenceA = samples.lon[search.first][k] - samples.lon[SUN][k];
+            double differenceB = samples.lon[search.first][k + 1] - samples.lon[SUN][k + 1];
+            double sinA = Math.sin(differenceA);
+            double sinB = Math.sin(differenceB);
+            if ((sinA < 0) == (sinB < 0) || Math.cos(differenceA) >= 0 || Math.cos(differenceB) >= 0) {
+                return;
+            }
+            double t = RootFinder.illinois(time -> this.oppositionSine(search, time), samples.days[k], sinA,
+                    samples.days[k + 1], sinB, TOLERANCE, MAX_ITERATIONS);
+            events.add(this.event(AstronomicalEvent.Type.OPPOSITION, search, t, this.separation(search, t)));
+        }
+
+        private AstronomicalEvent event(AstronomicalEvent.Type type, Search search, double t, double separation) {
+            String second = search.star == null ? names[search.second] : search.star.name();
+            return new AstronomicalEvent(type, Epoch.J2010.plusDays(t), names[search.first], second, separation);
+        }
+
+        /**
+         * Computes the angular distance between the objects of the given search at the given instant.
+         */
+        private double separation(Search search, double t) {
+            this.position(search.first, t);
+            this.ra1 = this.values[0];
+            this.dec1 = this.values[1];
+            if (search.star == null) {
+                this.position(search.second, t);
+                this.ra2 = this.values[0];
+                this.dec2 = this.values[1];
+            } else {
+                this.ra2 = search.star.equatorialPos().ra();
+                this.dec2 = search.star.equatorialPos().dec();
+            }
+            return EquatorialCoordinates.angularDistance(this.ra1, this.dec1, this.ra2, this.dec2);
+        }
+
+        /**
+         * Computes the sine of the difference between the ecliptic longitudes of the planet of the given search and
+         * the Sun at the given instant, null at the opposition.
+         */
+        private double oppositionSine(Search search, double t) {
+            double obliquity = EclipticToEquatorialConversion.obliquity(Epoch.J2000.julianCenturiesUntil(Epoch.J2010, t));
+            double cosObliquity = Math.cos(obliquity);
+            double sinObliquity = Math.sin(obliquity);
+            this.position(search.first, t);
+            double planetLon = EclipticToEquatorialConversion.lon(this.values[0], this.values[1], cosObliquity, sinObliquity);
+            this.position(SUN, t);
+            double sunLon = EclipticToEquatorialConversion.lon(this.values[0], this.values[1], cosObliquity, sinObliquity);
+            return Math.sin(planetLon - sunLon);
+        }
+
+        /**
+         * Computes the position of the given object at the given instant into the values.
+         */
+        private void position(int body, double t) {
+            BatchEphemeris.computeAt(MODELS.get(body), t, this.state, this.sunState, this.values);
+        }
+    }
+
+    /**
+     * Task splitting its range of searches in halves until it is small enough to be scanned sequentially.
+     */
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final EventSearchEngine engine;
+        private final Samples samples;
+        private final int fromSample;
+        private final int toSample;
+        private final List<List<AstronomicalEvent>> found;
+        private final int from;
+        private final int to;
+
+        private ScanTask(EventSearchEngine engine, Samples samples, int fromSample, int toSample,
+                         List<List<AstronomicalEvent>> found, int from, int to) {
+            this.engine = engine;
+            this.samples = samples;
+            this.fromSample = fromSample;
+            this.toSample = toSample;
+            this.found = found;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PARALLEL_SEARCHES) {
+                Scanner scanner = engine.new Scanner();
+                for (int i = from; i < to; i++) {
+                    found.set(i, scanner.scan(engine.searches.get(i), samples, fromSample, toSample));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(engine, samples, fromSample, toSample, found, from, middle),
+                        new ScanTask(engine, samples, fromSample, toSample, found, middle, to));
+            }
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package ch.epfl.rigel.astronomy;
 
-import ch.epfl.rigel.coordinates.EquatorialCoordinates;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * @author Mark Mouawad (296508)
@@ -17,8 +25,13 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
     INSTANCE;
 
 
+    //Size of the chunks parsed by a single task, about a thousand rows of the HYG Database.
+    private static final int CHUNK_BYTES = 1 << 18;
+    private static final int NEWLINE_SEARCH_BYTES = 4096;
+
     /**
      * Loads from input stream the HYG Database to the builder star catalogue.
+     * The stream is read entirely, then parsed in parallel (see {@link #load(Path, StarCatalogue.Builder)}).
      *
      * @param inputStream with file containing hyg database.
      * @param builder     of the star catalogue.
@@ -26,103 +39,300 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
      */
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        byte[] bytes;
+        try (InputStream stream = inputStream) {
+            bytes = stream.readAllBytes();
+        }
+        load(ByteBuffer.wrap(bytes), builder);
+    }
 
+    /**
+     * Loads a HYG Database file to the builder star catalogue. The file is mapped in memory once, split in
+     * chunks of whole lines parsed in parallel on the common ForkJoinPool straight from the mapping, then the
+     * stars are added in the order of the file, so that their indices do not depend on the scheduling.
+     * A file too large to be mapped at once (2GB) is read chunk by chunk instead.
+     *
+     * @param path    path of the HYG Database.
+     * @param builder of the star catalogue.
+     * @throws IOException if the file can not be read.
+     */
+    public void load(Path path, StarCatalogue.Builder builder) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                load(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), builder);
+                return;
+            }
+            ByteBuffer window = ByteBuffer.allocate(NEWLINE_SEARCH_BYTES);
+            long[] bounds = chunkBounds(size, position -> nextLineStart(channel, window, position));
+            loadChunks(bounds, (from, to) -> parseStars(read(channel, from, to), 0, (int) (to - from)), builder);
+        }
+    }
 
-        try (InputStreamReader inStrReader = new InputStreamReader(inputStream, StandardCharsets.US_ASCII);
-             BufferedReader buffReader = new BufferedReader(inStrReader)) {
-            //Skip the first line
-            buffReader.readLine();
-
-            //Star parameters;
-            int hipparcosId;
-            String name;
-            EquatorialCoordinates eqCoord;
-            float magnitude;
-            float colorInd;
+    /**
+     * Loads the HYG Database contained in the given buffer, from its absolute index 0 to its limit.
+     *
+     * @param buffer  buffer containing the database.
+     * @param builder of the star catalogue.
+     * @throws IOException if a chunk can not be read.
+     */
+    private static void load(ByteBuffer buffer, StarCatalogue.Builder builder) throws IOException {
+        long[] bounds = chunkBounds(buffer.limit(), position -> nextLineStart(buffer, (int) position));
+        loadChunks(bounds, (from, to) -> parseStars(buffer, (int) from, (int) to), builder);
+    }
 
+    /**
+     * Reads the given range of the file.
+     *
+     * @param channel channel of the file.
+     * @param from    position of the first byte (included).
+     * @param to      position of the last byte (excluded).
+     * @return a buffer containing the bytes of the range, from its index 0.
+     * @throws IOException if the range can not be read.
+     */
+    private static ByteBuffer read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file.");
+            }
+        }
+        return buffer;
+    }
 
-            String line = buffReader.readLine();
-            String[] lineTable;
-            while (line != null) {
-                lineTable = line.split(",");
+    /**
+     * Parses the HYG Database, passing the values needed to build each star to the given consumer.
+     * Used by the converter to the binary catalogue format.
+     *
+     * @param inputStream with file containing hyg database.
+     * @param consumer    consumer of the rows.
+     * @throws IOException
+     */
+    static void forEachRow(InputStream inputStream, RowConsumer consumer) throws IOException {
+        byte[] bytes;
+        try (InputStream stream = inputStream) {
+            bytes = stream.readAllBytes();
+        }
+        CsvTokenizer csv = new CsvTokenizer(ByteBuffer.wrap(bytes), 0, bytes.length, COLUMNS.values().length);
+        //Skip the first line
+        csv.nextRecord();
+        forEachRow(csv, consumer);
+    }
 
-                hipparcosId = parseInteger(lineTable[COLUMNS.HIP.ordinal()], 0);
-                name = parseStarName(lineTable[COLUMNS.PROPER.ordinal()], lineTable[COLUMNS.BAYER.ordinal()], lineTable[COLUMNS.CON.ordinal()]);
-                magnitude = parseFloat(lineTable[COLUMNS.MAG.ordinal()], 0);
-                colorInd = parseFloat(lineTable[COLUMNS.CI.ordinal()], 0);
-                eqCoord = EquatorialCoordinates.of(parseDouble(lineTable[COLUMNS.RARAD.ordinal()]), parseDouble(lineTable[COLUMNS.DECRAD.ordinal()]));
+    /**
+     * Parses the rows following the current one of the tokenizer.
+     * The database is tokenized as bytes: the unused columns are skipped and the numbers are parsed
+     * without building strings, only the names of the stars being allocated, but for the rare numbers
+     * with an exponent or more than 19 significant digits.
+     *
+     * @param csv      tokenizer of the database.
+     * @param consumer consumer of the rows.
+     */
+    private static void forEachRow(CsvTokenizer csv, RowConsumer consumer) {
+        byte[] nameBytes = new byte[64];
+        while (csv.nextRecord()) {
+            int nameLength = csv.length(COLUMNS.BAYER.ordinal()) + csv.length(COLUMNS.CON.ordinal()) + 2;
+            if (nameLength > nameBytes.length) {
+                nameBytes = new byte[2 * nameLength];
+            }
 
-                Star star = new Star(hipparcosId, name, eqCoord, magnitude, colorInd);
+            consumer.accept(csv.intValue(COLUMNS.HIP.ordinal(), 0),
+                    parseStarName(csv, nameBytes),
+                    csv.doubleValue(COLUMNS.RARAD.ordinal()),
+                    csv.doubleValue(COLUMNS.DECRAD.ordinal()),
+                    csv.floatValue(COLUMNS.MAG.ordinal(), 0),
+                    csv.floatValue(COLUMNS.CI.ordinal(), 0));
+        }
+    }
 
-                builder.addStar(star);
-                line = buffReader.readLine();
-            }
+    /**
+     * Parses the stars of the given range of whole lines into primitive columns, no star being created.
+     *
+     * @param bytes the bytes of the database.
+     * @param from  index of the first byte of the range (included).
+     * @param to    index of the last byte of the range (excluded).
+     * @return the columns of the stars, in the order of the lines.
+     */
+    private static StarStore.Builder parseStars(ByteBuffer bytes, int from, int to) {
+        StarStore.Builder stars = new StarStore.Builder();
+        forEachRow(new CsvTokenizer(bytes, from, to, COLUMNS.values().length), stars::add);
+        return stars;
+    }
 
+    /**
+     * Splits the database, from its second line, in chunks of about CHUNK_BYTES bytes ending at a line end.
+     *
+     * @param size          size of the database in bytes.
+     * @param nextLineStart function giving the start of the line following the given position.
+     * @return the bounds of the chunks, the chunk i being [bounds[i], bounds[i + 1][.
+     */
+    private static long[] chunkBounds(long size, LineFinder nextLineStart) throws IOException {
+        long[] bounds = new long[(int) (size / CHUNK_BYTES) + 2];
+        int count = 0;
+        //Skip the first line
+        bounds[count++] = nextLineStart.find(0);
+        while (bounds[count - 1] < size) {
+            bounds[count] = nextLineStart.find(bounds[count - 1] + CHUNK_BYTES - 1);
+            count++;
         }
+        return Arrays.copyOf(bounds, count);
     }
 
     /**
-     * Gets star name if proper name exists. Otherwise use bayer ( "?" default) and WHITESPACE
-     * and Con.
+     * Parses the chunks of the given bounds in parallel, then appends their columns in order to the builder.
      *
-     * @param properName database csv String corresponding to the proper name.
-     * @param bayer      database csv String corresponding to the bayer.
-     * @param con        database csv String corresponding to the con column.
-     * @return the star name.
+     * @param bounds  bounds of the chunks.
+     * @param parser  parser of a chunk.
+     * @param builder of the star catalogue.
+     * @throws IOException if a chunk can not be read.
      */
-    private static String parseStarName(String properName, String bayer, String con) {
+    private static void loadChunks(long[] bounds, ChunkParser parser, StarCatalogue.Builder builder) throws IOException {
+        List<StarStore.Builder> chunks = new ArrayList<StarStore.Builder>(Collections.nCopies(bounds.length - 1, null));
+        ChunkTask task = new ChunkTask(bounds, parser, chunks, 0, chunks.size());
+        try {
+            if (chunks.size() <= 1) {
+                task.compute();
+            } else if (ForkJoinTask.getPool() != null) {
+                task.invoke();
+            } else {
+                ForkJoinPool.commonPool().invoke(task);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        StarStore.Builder columns = builder.starColumns();
+        for (StarStore.Builder stars : chunks) {
+            columns.addAll(stars);
+        }
+    }
 
-        //Check if proper name is non empty.
-        if (!properName.isEmpty()) {
-            return properName;
-        } else if (!bayer.isEmpty()) {
-            return (bayer + " " + con);
+    /**
+     * Returns the start of the line following the given position of the buffer, or its limit if there is none.
+     */
+    private static int nextLineStart(ByteBuffer bytes, int position) {
+        for (int i = position; i < bytes.limit(); i++) {
+            if (bytes.get(i) == '\n') {
+                return i + 1;
+            }
         }
-        return ("?" + " " + con);
+        return bytes.limit();
+    }
 
+    /**
+     * Returns the start of the line following the given position of the file, or its size if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer window, long position) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        return size;
     }
 
+    /**
+     * Function finding the start of the line following a position of the database.
+     */
+    @FunctionalInterface
+    private interface LineFinder {
+        long find(long position) throws IOException;
+    }
 
     /**
-     * Parses a string to integer. If string is empty, return default parameter.
-     *
-     * @param s   string to be parsed.
-     * @param def default value.
-     * @return parsed string to integer or default value.
+     * Parser of the stars of a chunk of whole lines of the database.
      */
-    private static int parseInteger(String s, int def) {
+    @FunctionalInterface
+    private interface ChunkParser {
+        StarStore.Builder parse(long from, long to) throws IOException;
+    }
 
-        if (!s.isEmpty()) {
-            return Integer.parseInt(s);
+    /**
+     * Task splitting its range of chunks in halves until a single one is left, which it parses.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] bounds;
+        private final ChunkParser parser;
+        private final List<StarStore.Builder> results;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(long[] bounds, ChunkParser parser, List<StarStore.Builder> results, int from, int to) {
+            this.bounds = bounds;
+            this.parser = parser;
+            this.results = results;
+            this.from = from;
+            this.to = to;
         }
-        return def;
 
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    results.set(from, parser.parse(bounds[from], bounds[to]));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(bounds, parser, results, from, middle),
+                        new ChunkTask(bounds, parser, results, middle, to));
+            }
+        }
     }
 
     /**
-     * Parses a string to double.
-     *
-     * @param s
-     * @return
+     * Consumer of the parsed rows of the database.
      */
-    private static double parseDouble(String s) {
-        return Double.parseDouble(s);
+    @FunctionalInterface
+    interface RowConsumer {
+        /**
+         * Accepts the values of a row.
+         *
+         * @param hipparcosId hipparcos id, 0 if unknown.
+         * @param name        name of the star.
+         * @param ra          right ascension in radians.
+         * @param dec         declination in radians.
+         * @param magnitude   magnitude, 0 if unknown.
+         * @param colorIndex  color index, 0 if unknown.
+         */
+        void accept(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex);
     }
 
-
     /**
-     * Parse's a string to float. If string is empty, return default parameter.
+     * Gets star name if proper name exists. Otherwise use bayer ( "?" default) and WHITESPACE
+     * and Con.
      *
-     * @param s   string to be parsed.
-     * @param def default value.
-     * @return parsed string to float or default value.
+     * @param csv       tokenizer positioned on the row of the star.
+     * @param nameBytes buffer large enough for the bayer, the con and two more bytes.
+     * @return the star name.
      */
-    private static float parseFloat(String s, float def) {
+    private static String parseStarName(CsvTokenizer csv, byte[] nameBytes) {
 
-        if (!s.isEmpty()) {
-            return (float) Double.parseDouble(s);
+        //Check if proper name is non empty.
+        if (!csv.isEmpty(COLUMNS.PROPER.ordinal())) {
+            return csv.stringValue(COLUMNS.PROPER.ordinal());
+        }
+        int length;
+        if (!csv.isEmpty(COLUMNS.BAYER.ordinal())) {
+            length = csv.copyTo(COLUMNS.BAYER.ordinal(), nameBytes, 0);
+        } else {
+            nameBytes[0] = '?';
+            length = 1;
         }
-        return def;
+        nameBytes[length++] = ' ';
+        length = csv.copyTo(COLUMNS.CON.ordinal(), nameBytes, length);
+        return new String(nameBytes, 0, length, StandardCharsets.US_ASCII);
 
     }
 
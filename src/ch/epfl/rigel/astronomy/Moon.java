@@ -32,6 +32,15 @@ public final class Moon extends CelestialObject {
         this.phase = (float) Preconditions.checkInInterval(PHASE_INTERVAL, phase);
     }
 
+    /**
+     * Returns the phase of the moon.
+     *
+     * @return the phase of the moon, between [0,1].
+     */
+    public double phase() {
+        return this.phase;
+    }
+
     /**
      *
      * @see CelestialObject#info().
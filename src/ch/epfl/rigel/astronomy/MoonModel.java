@@ -19,6 +19,10 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
     private final static double MEAN_LON_PERI = Angle.ofDeg(130.143076);
     private final static double LON_ASC = Angle.ofDeg(291.682547);
     private final static double THETA_0 = Angle.ofDeg(0.5181);
+    //Magnitude of the moon, not modeled.
+    final static float MAGNITUDE = 0;
+    //Number of values computed by eclipticState.
+    final static int STATE_SIZE = 4;
 
     /**
      * Computes the moon position Equatorial Coordinates position at a given input time, its angular size and
@@ -29,12 +33,38 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
      */
     @Override
     public Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
-
         //creates a sun model in order to use its constants.
-        Sun sun = SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorialConversion);
-        double meanAnomalySun = sun.meanAnomaly();;
+        return this.at(daysSinceJ2010, eclipticToEquatorialConversion, SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorialConversion));
+    }
+
+    /**
+     * Computes the moon at a given time, the Sun at that time being given, so that it is computed once
+     * for the Sun and the Moon, see {@link SolarSystemState}.
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @param eclipticToEquatorialConversion conversion to be used with.
+     * @param sun the Sun at the given time.
+     * @return a Moon instance at a given time.
+     */
+    Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion, Sun sun) {
+        double[] state = new double[STATE_SIZE];
+        this.eclipticState(daysSinceJ2010, sun.meanAnomaly(), sun.eclipticPos().lon(), state);
+
+        EclipticCoordinates eclipticPos = EclipticCoordinates.of(state[0], state[1]);
+        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclipticPos);
+
+        return new Moon(equatorialPos, (float) state[2], MAGNITUDE, (float) state[3]);
+    }
+
+    /**
+     * Computes the ecliptic longitude and latitude, the angular size and the phase of the moon at a given date,
+     * in this order, without allocating anything. Shared by {@link #at} and {@link BatchEphemeris}.
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @param meanAnomalySun mean anomaly of the Sun at the given date, as given by {@link Sun#meanAnomaly()}.
+     * @param lonSun ecliptic longitude of the Sun at the given date.
+     * @param state array of at least {@link #STATE_SIZE} elements receiving the state.
+     */
+    void eclipticState(double daysSinceJ2010, double meanAnomalySun, double lonSun, double[] state) {
         double sinSun = Math.sin(meanAnomalySun);
-        double lonSun = sun.eclipticPos().lon();
 
         //computes Moon constants
         double meanLonOrb = Angle.ofDeg(13.1763966) * daysSinceJ2010 + MEAN_LON;
@@ -66,9 +96,9 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
                 (1 + ECCENTRICITY_MOON * Math.cos(correctedAnomaly + correctionCenter));
         double angularSize = THETA_0 /distance;
 
-        EclipticCoordinates eclipticPos = EclipticCoordinates.of(Angle.normalizePositive(lonEcliptic), latEcliptic);
-        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclipticPos);
-
-        return new Moon(equatorialPos,(float) angularSize, 0, (float) phase);
+        state[0] = Angle.normalizePositive(lonEcliptic);
+        state[1] = latEcliptic;
+        state[2] = angularSize;
+        state[3] = phase;
     }
 }
@@ -2,8 +2,8 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.structure.KdTree;
 
-import java.lang.reflect.Array;
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -17,8 +17,7 @@ public final class ObservedSky {
     private enum SkyObjects {
         MOON,
         SUN,
-        PLANETS,
-        STARS
+        PLANETS
     }
     private final Sun sun;
     private final List<Planet> planets;
@@ -27,7 +26,22 @@ public final class ObservedSky {
     private final StereographicProjection projection;
     private final StarCatalogue catalogue;
     private final ZonedDateTime when;
+    private final EquatorialToHorizontalConversion conversion;
+    private final StarProjectionEngine engine;
+    //Angular radius around the center of projection out of which the stars are not projected.
+    private final double visibleRadius;
+    //Magnitude over which the stars are too faint to be projected.
+    private final double limitingMagnitude;
     private final Map<SkyObjects, double[]> celObjPositions;
+    //Horizontal vectors of the sun, the moon and the planets, in this order.
+    private final double[] bodyVectors;
+    //Shared with the skies derived by withProjection, as it does not depend on the projection.
+    private final HorizontalCache starVectors;
+    //Computed on first use, by the frame transforming them to the canvas or by the picking index, then kept:
+    //a change of the plane to canvas transform only does not project the stars again.
+    private double[] starPositions;
+    //Built by the first picking query, or ahead of it by buildObjectIndex.
+    private KdTree objectIndex;
 
 
     /**
@@ -37,36 +51,192 @@ public final class ObservedSky {
      * @param position the position of the observation.
      * @param projection the StereoGraphic projection meant to be used to draw the sky view.
      * @param catalogue the stars catalogue used.
-     * @throws
+     * @throws NullPointerException if one of the arguments is null.
      */
     public ObservedSky(ZonedDateTime time, GeographicCoordinates position, StereographicProjection projection, StarCatalogue catalogue) {
+        this(time, position, projection, catalogue, StarProjectionEngine.DEFAULT);
+    }
+
+    /**
+     * Constructs the observed skyline, projecting the stars with the given engine.
+     * @param time a Zoned Date time when it is observed.
+     * @param position the position of the observation.
+     * @param projection the StereoGraphic projection meant to be used to draw the sky view.
+     * @param catalogue the stars catalogue used.
+     * @param engine the engine used to project the stars.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public ObservedSky(ZonedDateTime time, GeographicCoordinates position, StereographicProjection projection,
+                       StarCatalogue catalogue, StarProjectionEngine engine) {
+        this(time, position, projection, catalogue, engine, Math.PI);
+    }
+
+    /**
+     * Constructs the observed skyline, projecting only the stars within the given angular radius around
+     * the center of projection. The other stars, except the ones of the asterisms which are always projected,
+     * are not converted nor projected at all, their positions being NaN.
+     * @param time a Zoned Date time when it is observed.
+     * @param position the position of the observation.
+     * @param projection the StereoGraphic projection meant to be used to draw the sky view.
+     * @param catalogue the stars catalogue used.
+     * @param engine the engine used to project the stars.
+     * @param visibleRadius the angular radius, in radians, of the visible part of the sky. Pi to project all stars.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IllegalArgumentException if the radius is negative.
+     */
+    public ObservedSky(ZonedDateTime time, GeographicCoordinates position, StereographicProjection projection,
+                       StarCatalogue catalogue, StarProjectionEngine engine, double visibleRadius) {
+        this(time, position, projection, catalogue, engine, visibleRadius, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructs the observed skyline, projecting only the stars within the given angular radius around
+     * the center of projection whose magnitude is at most the given limiting magnitude. The other stars,
+     * except the ones of the asterisms which are always projected, are not converted nor projected at all,
+     * their positions being NaN.
+     * @param time a Zoned Date time when it is observed.
+     * @param position the position of the observation.
+     * @param projection the StereoGraphic projection meant to be used to draw the sky view.
+     * @param catalogue the stars catalogue used.
+     * @param engine the engine used to project the stars.
+     * @param visibleRadius the angular radius, in radians, of the visible part of the sky. Pi to project all stars.
+     * @param limitingMagnitude the magnitude of the faintest stars to project. Infinity to project all stars.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IllegalArgumentException if the radius is negative or the limiting magnitude is NaN.
+     */
+    public ObservedSky(ZonedDateTime time, GeographicCoordinates position, StereographicProjection projection,
+                       StarCatalogue catalogue, StarProjectionEngine engine, double visibleRadius, double limitingMagnitude) {
+        this(time, position, projection, catalogue, engine, visibleRadius, limitingMagnitude, SolarSystemModel.EXACT);
+    }
+
+    /**
+     * Constructs the observed skyline as {@link #ObservedSky(ZonedDateTime, GeographicCoordinates,
+     * StereographicProjection, StarCatalogue, StarProjectionEngine, double, double)} does, the Sun, the Moon and
+     * the planets being given by the given model, e.g. by an {@link EphemerisCache} during an animation.
+     * @param time a Zoned Date time when it is observed.
+     * @param position the position of the observation.
+     * @param projection the StereoGraphic projection meant to be used to draw the sky view.
+     * @param catalogue the stars catalogue used.
+     * @param engine the engine used to project the stars.
+     * @param visibleRadius the angular radius, in radians, of the visible part of the sky. Pi to project all stars.
+     * @param limitingMagnitude the magnitude of the faintest stars to project. Infinity to project all stars.
+     * @param solarSystemModel the model of the Sun, the Moon and the planets.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IllegalArgumentException if the radius is negative or the limiting magnitude is NaN.
+     */
+    public ObservedSky(ZonedDateTime time, GeographicCoordinates position, StereographicProjection projection,
+                       StarCatalogue catalogue, StarProjectionEngine engine, double visibleRadius, double limitingMagnitude,
+                       SolarSystemModel solarSystemModel) {
+        Preconditions.checkArgument(visibleRadius >= 0 && !Double.isNaN(limitingMagnitude));
+        Objects.requireNonNull(engine);
         Objects.requireNonNull(time);
         Objects.requireNonNull(position);
         Objects.requireNonNull(projection);
         Objects.requireNonNull(catalogue);
+        Objects.requireNonNull(solarSystemModel);
         this.projection = projection;
         this.position = position;
         this.when = time;
-        double daysUntil = Epoch.J2010.daysUntil(time);
+        this.engine = engine;
+        this.visibleRadius = visibleRadius;
+        this.limitingMagnitude = limitingMagnitude;
+        //The Sun, the Moon and the planets in one pass, sharing the Sun and the orbit of the Earth.
+        SolarSystemState solarSystem = solarSystemModel.at(time);
+        sun = solarSystem.sun();
+        moon = solarSystem.moon();
+        planets = solarSystem.planets();
 
-        EclipticToEquatorialConversion conversion = new EclipticToEquatorialConversion(time);
+        this.catalogue = catalogue;
+        //A single conversion for the whole sky, the sidereal time is computed once.
+        this.conversion = new EquatorialToHorizontalConversion(time, position);
+        this.bodyVectors = new double[3 * (planets.size() + 2)];
+        this.starVectors = new HorizontalCache();
+        this.celObjPositions = splitBodyPositions(computeBodyPositions());
+    }
 
-        sun = SunModel.SUN.at(daysUntil, conversion);
-        moon = MoonModel.MOON.at(daysUntil, conversion);
+    /**
+     * Constructs the same sky as the given one seen with another projection. Only the stereographic
+     * projection is computed again, from the horizontal vectors of the given sky.
+     * @param sky the sky to copy.
+     * @param projection the new projection.
+     * @param visibleRadius the new visible radius.
+     * @param limitingMagnitude the new limiting magnitude.
+     */
+    private ObservedSky(ObservedSky sky, StereographicProjection projection, double visibleRadius, double limitingMagnitude) {
+        this.projection = projection;
+        this.visibleRadius = visibleRadius;
+        this.limitingMagnitude = limitingMagnitude;
+        this.position = sky.position;
+        this.when = sky.when;
+        this.engine = sky.engine;
+        this.sun = sky.sun;
+        this.moon = sky.moon;
+        this.planets = sky.planets;
+        this.catalogue = sky.catalogue;
+        this.conversion = sky.conversion;
+        this.bodyVectors = sky.bodyVectors;
+        this.starVectors = sky.starVectors;
+
+        double[] bodyPositions = new double[2 * (planets.size() + 2)];
+        new EquatorialToCanvasProjection(this.conversion, this.projection)
+                .applyAllHorizontal(this.bodyVectors, bodyPositions, 0, planets.size() + 2);
+        this.celObjPositions = splitBodyPositions(bodyPositions);
+    }
 
-        planets = new ArrayList<Planet>();
-        for (PlanetModel p : PlanetModel.ALL) {
-            if(!p.equals(PlanetModel.EARTH)){
-                planets.add(p.at(daysUntil, conversion));
-            }
+    /**
+     * Returns the same sky seen with the given projection. The positions of the celestial objects in the
+     * sky do not depend on the projection, so that only the stereographic projection is computed again,
+     * which is much cheaper than constructing a new sky. Used when only the center of the view changes.
+     * @param projection the new projection.
+     * @return the same sky seen with the given projection.
+     * @throws NullPointerException if the projection is null.
+     */
+    public ObservedSky withProjection(StereographicProjection projection) {
+        return this.withProjection(projection, this.visibleRadius, this.limitingMagnitude);
+    }
+
+    /**
+     * Returns the same sky seen with the given projection, projecting the stars within the given radius
+     * around its center. The horizontal positions of the stars are shared with this sky, so that only the
+     * stars that were not visible yet have to be converted. Returns this sky itself if the projection is the
+     * same and neither the visible part of the sky nor the limiting magnitude grow.
+     * @param projection the new projection.
+     * @param visibleRadius the angular radius, in radians, of the visible part of the sky.
+     * @param limitingMagnitude the magnitude of the faintest stars to project.
+     * @return the same sky seen with the given projection.
+     * @throws NullPointerException if the projection is null.
+     * @throws IllegalArgumentException if the radius is negative or the limiting magnitude is NaN.
+     */
+    public ObservedSky withProjection(StereographicProjection projection, double visibleRadius, double limitingMagnitude) {
+        Objects.requireNonNull(projection);
+        Preconditions.checkArgument(visibleRadius >= 0 && !Double.isNaN(limitingMagnitude));
+        if (projection == this.projection && visibleRadius <= this.visibleRadius
+                && limitingMagnitude <= this.limitingMagnitude) {
+            return this;
         }
+        return new ObservedSky(this, projection, visibleRadius, limitingMagnitude);
+    }
 
-        this.catalogue = catalogue;
-        this.celObjPositions = new HashMap<SkyObjects, double[]>();
-        this.celObjPositions.put(SkyObjects.MOON, computeMoonPosition());
-        this.celObjPositions.put(SkyObjects.SUN, computeSunPosition());
-        this.celObjPositions.put(SkyObjects.PLANETS, computePlanetPositions());
-        this.celObjPositions.put(SkyObjects.STARS, computeStarPositions());
+    /**
+     * Returns the magnitude of the faintest stars projected, the fainter ones having NaN positions
+     * unless they belong to an asterism.
+     * @return the limiting magnitude of the sky.
+     */
+    public double limitingMagnitude() {
+        return this.limitingMagnitude;
+    }
+
+    /**
+     * Checks if the sky is observed at the given moment from the given place, in which case
+     * withProjection can be used instead of constructing a new sky.
+     * @param time a Zoned Date time.
+     * @param position a position of observation.
+     * @return true if and only if the sky is observed at the given moment from the given place.
+     */
+    public boolean isObservedAt(ZonedDateTime time, GeographicCoordinates position) {
+        return this.when.equals(time)
+                && this.position.lon() == position.lon()
+                && this.position.lat() == position.lat();
     }
 
 
@@ -90,6 +260,13 @@ public final class ObservedSky {
      */
     public List<Star> stars() { return catalogue.stars(); }
 
+    /**
+     * Returns the columnar store of the sky's stars, in the same order as the stars list.
+     *
+     * @return Returns the columnar store of the sky's stars.
+     */
+    public StarStore starStore() { return catalogue.starStore(); }
+
     /**
      * Returns the sky's moon instance.
      * @return Returns the sky's moon instance
@@ -135,8 +312,12 @@ public final class ObservedSky {
      * This is used to make the manipulation of the coordinates easier.
      * @return Returns an array with the decomposed planets' positions
      */
-    public double[] starPositions(){
-        return this.celObjPositions.get(SkyObjects.STARS);
+    public synchronized double[] starPositions(){
+        if (this.starPositions == null) {
+            this.starPositions = new double[2 * starStore().size()];
+            this.projectStars(new EquatorialToCanvasProjection(this.conversion, this.projection), this.starPositions);
+        }
+        return this.starPositions;
     }
 
 
@@ -157,6 +338,41 @@ public final class ObservedSky {
      */
     public List<Integer> asterismIndices(Asterism asterism) { return catalogue.asterismIndices(asterism); }
 
+    /**
+     * Returns the number of asterisms.
+     * @return the number of asterisms.
+     */
+    public int asterismCount() {
+        return catalogue.asterismCount();
+    }
+
+    /**
+     * Returns the asterism of the given position, see {@link StarCatalogue#asterism(int)}.
+     * @param position position of the asterism.
+     * @return the asterism.
+     */
+    public Asterism asterism(int position) {
+        return catalogue.asterism(position);
+    }
+
+    /**
+     * Returns the offsets of the asterisms in their flattened star indices, see {@link StarCatalogue#asterismOffsets()}.
+     * The array is not copied and must not be modified.
+     * @return the offsets of the asterisms.
+     */
+    public int[] asterismOffsets() {
+        return catalogue.asterismOffsets();
+    }
+
+    /**
+     * Returns the flattened star indices of the asterisms, see {@link StarCatalogue#asterismStarIndices()}.
+     * The array is not copied and must not be modified.
+     * @return the indices of the stars of the asterisms.
+     */
+    public int[] asterismStarIndices() {
+        return catalogue.asterismStarIndices();
+    }
+
 
     /**
      * Returns the closest celestial object within the given input distance from the input coordinates.
@@ -166,152 +382,198 @@ public final class ObservedSky {
      * @return the closest celestial object within the input distance.
      */
     public Optional<CelestialObject> objectClosestTo(CartesianCoordinates coordinates, double distance) {
-
-        CelestialObject closestObject = null;
-        double objDistance;
-        double lowestDistance = Double.POSITIVE_INFINITY;
-        double lowestDistanceX = Double.POSITIVE_INFINITY;
-        double lowestDistanceY = Double.POSITIVE_INFINITY;
-
-        for(SkyObjects obj: SkyObjects.values()){
-            for(int i = 0; i < celObjPositions.get(obj).length; i+=2) {
-                if(Math.abs(coordinates.x() - celObjPositions.get(obj)[i]) <= lowestDistanceX
-                        && Math.abs(coordinates.y() - celObjPositions.get(obj)[i+1]) <= lowestDistanceY) {
-                    lowestDistanceX = Math.abs(coordinates.x() - celObjPositions.get(obj)[i]);
-                    lowestDistanceY = Math.abs(coordinates.y() - celObjPositions.get(obj)[i + 1]);
-                    objDistance = distanceSqrd(coordinates, CartesianCoordinates.of(celObjPositions.get(obj)[i], celObjPositions.get(obj)[i+1] ));
-                    lowestDistance = Math.min(objDistance, lowestDistance);
-                    closestObject = objDistance <= lowestDistance ?  celestialObjectOf(obj, i/2) : closestObject;
-                }
-            }
-        }
-        return (closestObject != null && Math.sqrt(lowestDistance) <= distance) ? Optional.of(closestObject)
-                : Optional.empty();
-
+        int index = this.objectIndex().nearestWithin(coordinates.x(), coordinates.y(), distance);
+        return index == -1 ? Optional.empty() : Optional.of(this.celestialObjectAt(index));
     }
 
 
     /**
-     * Computes the distance squared between two celestial objects in a double array.
-     * @param obj1
-     * @param obj2
-     * @return
+     * Builds the spatial index searched by {@link #objectClosestTo}, if not built yet, so that the first query
+     * does not pay for it.
      */
-    private double distanceSqrd(CartesianCoordinates obj1, CartesianCoordinates obj2){
-        return ((obj1.x() - obj2.x()) * (obj1.x() - obj2.x() ) + (obj1.y() - obj2.y()) * (obj1.y() - obj2.y()));
+    public void buildObjectIndex() {
+        this.objectIndex();
     }
 
-
     /**
-     * Intended to be used only during init to compute the sun position in a double array.
-     * @return
+     * Returns the spatial index over the positions of the sun, the moon, the planets and the stars,
+     * in this order, built on first use.
+     * @return the spatial index over the positions of all the objects of the sky.
      */
-    private double[]  computeSunPosition() {
-        return new double[]{this.project(this.sun).x(), this.project(this.sun).y()};
+    private synchronized KdTree objectIndex() {
+        if (this.objectIndex == null) {
+            double[] stars = this.starPositions();
+            double[] planets = this.planetPositions();
+            double[] positions = new double[4 + planets.length + stars.length];
+            System.arraycopy(this.celObjPositions.get(SkyObjects.SUN), 0, positions, 0, 2);
+            System.arraycopy(this.celObjPositions.get(SkyObjects.MOON), 0, positions, 2, 2);
+            System.arraycopy(planets, 0, positions, 4, planets.length);
+            System.arraycopy(stars, 0, positions, 4 + planets.length, stars.length);
+            this.objectIndex = new KdTree(positions);
+        }
+        return this.objectIndex;
     }
 
     /**
-     * Intended to be used only during init to compute the moon position in a double array.
-     * @return
+     * Returns the object of the given index in the spatial index.
+     * @param index index of the object: the sun, the moon, the planets then the stars.
+     * @return the object of the given index.
      */
-    private double[] computeMoonPosition() {
-        return new double[]{this.project(this.moon).x(), this.project(this.moon).y()};
+    private CelestialObject celestialObjectAt(int index) {
+        if (index == 0) return sun;
+        if (index == 1) return moon;
+        if (index < 2 + planets.size()) return planets.get(index - 2);
+        return stars().get(index - 2 - planets.size());
     }
 
 
     /**
-     * Intended to be used only during init to compute the planet positions
+     * Intended to be used only during init to compute the positions of the sun, the moon and the planets,
+     * in this order, projected in a single batch.
      * @return
      */
-    private double[] computePlanetPositions() {
-
-        double[] positions = new double[planets.size()*2];
-        int j = 0;
-        for(int i = 0; i<planets.size(); i++){
-            CartesianCoordinates projCoord = this.project(planets.get(i));
-            positions[j] = projCoord.x();
-            positions[j+1] = projCoord.y();
-            j+=2;
+    private double[] computeBodyPositions() {
+        List<CelestialObject> bodies = new ArrayList<CelestialObject>(planets.size() + 2);
+        bodies.add(sun);
+        bodies.add(moon);
+        bodies.addAll(planets);
+
+        double[] raDec = new double[2 * bodies.size()];
+        for (int i = 0; i < bodies.size(); i++) {
+            raDec[2 * i] = bodies.get(i).equatorialPos().ra();
+            raDec[2 * i + 1] = bodies.get(i).equatorialPos().dec();
         }
 
-
-        return  positions;
+        double[] positions = new double[raDec.length];
+        new EquatorialToCanvasProjection(this.conversion, this.projection)
+                .applyAll(raDec, positions, this.bodyVectors, 0, bodies.size());
+        return positions;
     }
 
     /**
-     * Intended to be used only during init to compute the star positions
-     * @return
+     * Splits the positions of the sun, the moon and the planets, in this order, by kind of object.
+     * @param bodyPositions the positions to split.
+     * @return the positions by kind of object.
      */
-    private double[] computeStarPositions() {
-        double[] positions = new double[ 2 * stars().size()];
-        Runnable runnable1 = () -> {
-            int j = 0;
-            for(int i = 0; i < stars().size() / 2; i++){
-                CartesianCoordinates starCoord = this.project(stars().get(i));
-                positions[j] = starCoord.x();
-                positions[j+1] = starCoord.y();
-                j+=2;
-            }
-        };
-
-        Runnable runnable2 = () -> {
-            int j = 0;
-            for(int i = stars().size() / 2; i < stars().size(); i++){
-                CartesianCoordinates starCoord = this.project(stars().get(i));
-                positions[5066 + j] = starCoord.x();
-                positions[5066 + j+1] = starCoord.y();
-                j+=2;
-            }
-        };
-
-        Thread thread1 = new Thread(runnable1);
-        Thread thread2 = new Thread(runnable2);
-        thread1.start();
-        thread2.start();
-
-        try {
-            thread1.join();
-            thread2.join();
-        }
-        catch (InterruptedException e){
-            e.printStackTrace();
-        }
-
-
-
-
+    private static Map<SkyObjects, double[]> splitBodyPositions(double[] bodyPositions) {
+        Map<SkyObjects, double[]> positions = new HashMap<SkyObjects, double[]>();
+        positions.put(SkyObjects.SUN, Arrays.copyOfRange(bodyPositions, 0, 2));
+        positions.put(SkyObjects.MOON, Arrays.copyOfRange(bodyPositions, 2, 4));
+        positions.put(SkyObjects.PLANETS, Arrays.copyOfRange(bodyPositions, 4, bodyPositions.length));
         return positions;
     }
 
     /**
-     * Helper method for projecting from Celestial Objects with Equatorial Coordinates.
-     * @param celestialObject the celestial object position to project with.
-     * @return steographic projection cartesian coordinates.
+     * Projects all the stars of the catalogue with the given projection, split in chunks by the engine.
+     * @param canvasProjection the fused projection to use.
+     * @param out array receiving the projected positions.
      */
-    private CartesianCoordinates project(CelestialObject celestialObject){
-        HorizontalCoordinates horCoordinates = new EquatorialToHorizontalConversion(this.when, this.position).apply(celestialObject.equatorialPos());
-        return projection.apply(horCoordinates);
+    private void projectStars(EquatorialToCanvasProjection canvasProjection, double[] out) {
+        StarStore store = starStore();
+        int[] visible = this.visibleStars();
+        double[] vectors = this.starVectors.vectorsOf(store, canvasProjection, visible, this.engine);
+        if (visible == null) {
+            this.engine.forEachChunk(store.size(), (from, to) -> canvasProjection.applyAllHorizontal(vectors, out, from, to));
+        } else {
+            Arrays.fill(out, 0, 2 * store.size(), Double.NaN);
+            this.engine.forEachChunk(visible.length,
+                    (from, to) -> canvasProjection.applyAllHorizontal(vectors, out, visible, from, to));
+        }
     }
 
     /**
-     *
-     * @param obj to get
-     * @param index of the element in the list
-     * @return
+     * Returns the indices of the stars to project: the ones within the visible radius around the center
+     * of projection bright enough to be seen, and the ones of the asterisms, so that their lines can be drawn
+     * even when they leave the view.
+     * @return the indices of the stars to project, in increasing order, or null if all stars must be projected.
      */
-    private CelestialObject celestialObjectOf(SkyObjects obj, int index) {
-        switch (obj) {
-            case PLANETS:
-                return planets.get(index);
-            case STARS:
-                return stars().get(index);
-            case SUN:
-                return sun;
-            case MOON:
-                return moon;
+    private int[] visibleStars() {
+        StarStore store = starStore();
+        int brightCount = store.countBrighterThan(this.limitingMagnitude);
+        if (this.visibleRadius >= Math.PI && brightCount == store.size()) {
+            return null;
         }
-        return null;
-    }
+        int[] inCone;
+        if (this.visibleRadius >= Math.PI) {
+            //The stars bright enough are a prefix of the magnitude order.
+            inCone = Arrays.copyOf(store.magnitudeOrderArray(), brightCount);
+            Arrays.sort(inCone);
+        } else {
+            EquatorialCoordinates center = this.conversion.inverseApply(this.projection.center());
+            inCone = this.catalogue.starsWithin(center, this.visibleRadius);
+            if (brightCount < store.size()) {
+                int size = 0;
+                for (int index : inCone) {
+                    if (store.magnitude(index) <= this.limitingMagnitude) inCone[size++] = index;
+                }
+                inCone = Arrays.copyOf(inCone, size);
+            }
+        }
+        int[] asterismStars = this.catalogue.asterismStars();
 
+        //Merge of both sorted arrays, without duplicates.
+        int[] visible = new int[inCone.length + asterismStars.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < inCone.length || j < asterismStars.length) {
+            int next;
+            if (j == asterismStars.length || (i < inCone.length && inCone[i] < asterismStars[j])) {
+                next = inCone[i++];
+            } else if (i == inCone.length || asterismStars[j] < inCone[i]) {
+                next = asterismStars[j++];
+            } else {
+                next = inCone[i++];
+                j++;
+            }
+            visible[size++] = next;
+        }
+        return Arrays.copyOf(visible, size);
+    }
 
-}
\ No newline at end of file
+    /**
+     * Horizontal vectors of the stars, computed on first use and shared by all the skies
+     * observed at the same moment from the same place.
+     */
+    private static final class HorizontalCache {
+        private double[] vectors;
+        private boolean[] computed;
+        private int computedCount;
+
+        /**
+         * Returns the horizontal vectors of the stars, after computing the ones of the given stars not computed yet.
+         * The vectors of the other stars are meaningless.
+         * @param store the stars.
+         * @param canvasProjection the projection computing the vectors.
+         * @param indices indices of the stars whose vectors are needed, null for all stars.
+         * @param engine the engine splitting the computation.
+         * @return the horizontal vectors of the stars.
+         */
+        private synchronized double[] vectorsOf(StarStore store, EquatorialToCanvasProjection canvasProjection,
+                                                int[] indices, StarProjectionEngine engine) {
+            int size = store.size();
+            if (this.vectors == null) {
+                this.vectors = new double[3 * size];
+                this.computed = new boolean[size];
+            }
+            if (this.computedCount == size) {
+                return this.vectors;
+            }
+            int count = indices == null ? size : indices.length;
+            int[] missing = new int[count];
+            int missingCount = 0;
+            for (int k = 0; k < count; k++) {
+                int i = indices == null ? k : indices[k];
+                if (!this.computed[i]) {
+                    this.computed[i] = true;
+                    missing[missingCount++] = i;
+                }
+            }
+            double[] vectors = this.vectors;
+            engine.forEachChunk(missingCount,
+                    (from, to) -> canvasProjection.horizontalVectors(store.raDecArray(), vectors, missing, from, to));
+            this.computedCount += missingCount;
+            return vectors;
+        }
+    }
+}
@@ -33,6 +33,8 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
             30.1985, 1.7673, 131.879, 62.20, -6.87);
 
     public static final List<PlanetModel> ALL = List.of(values());
+    //Number of values computed by eclipticState.
+    static final int STATE_SIZE = 4;
     private final String name;
     private final double period;
     private final double lonJ2010;
@@ -83,7 +85,41 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      */
     @Override
     public Planet at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
+        //Earth's Coordinates
+        double earthTrueAnomaly = EARTH.computeTrueAnomaly(daysSinceJ2010);
+        return this.at(daysSinceJ2010, eclipticToEquatorialConversion,
+                EARTH.computeOrbitRadius(earthTrueAnomaly), EARTH.computeLongitude(earthTrueAnomaly));
+    }
+
+    /**
+     * Computes the planet at a given time, the position of the Earth on its orbit at that time being given,
+     * so that it is computed once for all the planets, see {@link SolarSystemState}.
+     *
+     * @param daysSinceJ2010                 time difference for the given date. ( can be negative )
+     * @param eclipticToEquatorialConversion conversion to be used with.
+     * @param R                              radius of the orbit of the Earth at that time.
+     * @param L                              heliocentric longitude of the Earth at that time.
+     * @return Planet instance with computed position, angular size and magnitude for the input.
+     */
+    Planet at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion, double R, double L) {
+        double[] state = new double[STATE_SIZE];
+        this.eclipticState(daysSinceJ2010, R, L, state);
+
+        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(EclipticCoordinates.of(state[0], state[1]));
+
+        return new Planet(this.name, equatorialPos, (float) state[2], (float) state[3]);
+    }
 
+    /**
+     * Computes the geocentric ecliptic longitude and latitude, the angular size and the magnitude of the planet at
+     * a given date, in this order, without allocating anything. Shared by {@link #at} and {@link BatchEphemeris}.
+     *
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @param R              radius of the orbit of the Earth at that time.
+     * @param L              heliocentric longitude of the Earth at that time.
+     * @param state          array of at least {@link #STATE_SIZE} elements receiving the state.
+     */
+    void eclipticState(double daysSinceJ2010, double R, double L, double[] state) {
         double trueAnomaly = computeTrueAnomaly(daysSinceJ2010);
         double radius = computeOrbitRadius(trueAnomaly);
         double lon = computeLongitude(trueAnomaly);
@@ -93,25 +129,17 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         //No need to normalize because of the atan2 ans the trigonometric functions
         lon = Math.atan2(Math.sin(lon - lon_nod) * Math.cos(obliquity), Math.cos(lon - lon_nod)) + lon_nod;
 
-        //Earth's Coordinates
-        double earthTrueAnomaly = EARTH.computeTrueAnomaly(daysSinceJ2010);
-        double R = EARTH.computeOrbitRadius(earthTrueAnomaly);
-        double L = EARTH.computeLongitude(earthTrueAnomaly);
-
-        EclipticCoordinates eclCoord;
         //axe condition for inner planets
-        eclCoord = axe < 1d ? innerPlanetsEclGeocentricCoord(radius2, lon, phi, R, L)
-                : outerPlanetsEclGeocentricCoord(radius2, lon, phi, R, L);
+        if (axe < 1d) {
+            innerPlanetsEclGeocentricCoord(radius2, lon, phi, R, L, state);
+        } else {
+            outerPlanetsEclGeocentricCoord(radius2, lon, phi, R, L, state);
+        }
 
         double distanceToEarth = computeDistanceToEarth(radius, lon2, R, L, phi);
 
-        float angularSize = (float) (this.angularSize1UA / distanceToEarth);
-        float magnitude = (float) computeMagnitude(radius, lon2, eclCoord.lon(), distanceToEarth, phi);
-
-        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclCoord);
-
-        return new Planet(this.name, equatorialPos, angularSize, magnitude);
-
+        state[2] = this.angularSize1UA / distanceToEarth;
+        state[3] = computeMagnitude(radius, lon2, state[0], distanceToEarth, phi);
     }
 
     /**
@@ -154,7 +182,7 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      * @param daysSinceJ2010
      * @return True anomaly in the interval [0,TAU].
      */
-    private double computeTrueAnomaly(double daysSinceJ2010) {
+    double computeTrueAnomaly(double daysSinceJ2010) {
         double meanAnomaly = Angle.normalizePositive((SunModel.SPEED) * (daysSinceJ2010 / period)) + lonJ2010 - lonPerigee;
         double trueAnomaly = (meanAnomaly) + 2d * eccentricity * Math.sin(meanAnomaly);
         return Angle.normalizePositive(trueAnomaly);
@@ -167,7 +195,7 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      * @param trueAnomaly
      * @return the computed orbit radius.
      */
-    private double computeOrbitRadius(double trueAnomaly) {
+    double computeOrbitRadius(double trueAnomaly) {
         return (axe * (1d - eccentricity * eccentricity)) / (1d + eccentricity * Math.cos(trueAnomaly));
     }
 
@@ -177,7 +205,7 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      *
      * @return the computed longitude.
      */
-    private double computeLongitude(double trueAnomaly) {
+    double computeLongitude(double trueAnomaly) {
         return (trueAnomaly + lonPerigee);
     }
 
@@ -202,12 +230,13 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      * @param phi
      * @param R
      * @param L
-     * @return
+     * @param state array receiving the longitude and the latitude.
      */
-    private EclipticCoordinates innerPlanetsEclGeocentricCoord(double planetRadius, double lon, double phi, double R, double L) {
+    private void innerPlanetsEclGeocentricCoord(double planetRadius, double lon, double phi, double R, double L, double[] state) {
         double lambda = Math.PI + L + Math.atan2(planetRadius * Math.sin(L - lon), R - planetRadius * Math.cos(L - lon));
         double beta = Math.atan((planetRadius * Math.tan(phi) * Math.sin(lambda - lon)) / (R * Math.sin(lon - L)));
-        return EclipticCoordinates.of(Angle.normalizePositive(lambda), beta);
+        state[0] = Angle.normalizePositive(lambda);
+        state[1] = beta;
     }
 
     /**
@@ -219,12 +248,13 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      * @param phi
      * @param R
      * @param L
-     * @return
+     * @param state array receiving the longitude and the latitude.
      */
-    private EclipticCoordinates outerPlanetsEclGeocentricCoord(double planetRadius, double lon, double phi, double R, double L) {
+    private void outerPlanetsEclGeocentricCoord(double planetRadius, double lon, double phi, double R, double L, double[] state) {
         double lambda = lon + Math.atan2(R * Math.sin(lon - L), planetRadius - R * Math.cos(lon - L));
         double beta = Math.atan((planetRadius * Math.tan(phi) * Math.sin(lambda - lon)) / (R * Math.sin(lon - L)));
-        return EclipticCoordinates.of(Angle.normalizePositive(lambda), beta);
+        state[0] = Angle.normalizePositive(lambda);
+        state[1] = beta;
     }
 
 
@@ -0,0 +1,181 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.math.Angle;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The rising, the transit and the setting of a celestial object during a day, as computed by
+ * {@link RiseTransitSetEngine}. For the Sun, the beginnings and ends of the twilights too.
+ * The events are the first ones of the day, an event not happening during the day being empty.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class RiseTransitSet {
+
+    private final String name;
+    private final LocalDate date;
+    private final ZonedDateTime rise;
+    private final ZonedDateTime transit;
+    private final ZonedDateTime set;
+    private final double transitAltitude;
+    private final boolean aboveAtStart;
+    private final Map<Twilight, ZonedDateTime> dawns;
+    private final Map<Twilight, ZonedDateTime> dusks;
+
+    /**
+     * Constructs the events of an object during a day.
+     *
+     * @param name            the name of the object.
+     * @param date            the day.
+     * @param rise            the rising, null if none.
+     * @param transit         the transit, null if none.
+     * @param set             the setting, null if none.
+     * @param transitAltitude the altitude at the transit, in radians, NaN if no transit.
+     * @param aboveAtStart    true if the object is above the horizon at the beginning of the day.
+     * @param dawns           the beginnings of the twilights, owned by the instance.
+     * @param dusks           the ends of the twilights, owned by the instance.
+     */
+    RiseTransitSet(String name, LocalDate date, ZonedDateTime rise, ZonedDateTime transit, ZonedDateTime set,
+                   double transitAltitude, boolean aboveAtStart,
+                   EnumMap<Twilight, ZonedDateTime> dawns, EnumMap<Twilight, ZonedDateTime> dusks) {
+        this.name = Objects.requireNonNull(name);
+        this.date = Objects.requireNonNull(date);
+        this.rise = rise;
+        this.transit = transit;
+        this.set = set;
+        this.transitAltitude = transitAltitude;
+        this.aboveAtStart = aboveAtStart;
+        this.dawns = dawns;
+        this.dusks = dusks;
+    }
+
+    /**
+     * Returns the name of the object.
+     *
+     * @return the name of the object.
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Returns the day of the events.
+     *
+     * @return the day of the events, in the zone of the engine.
+     */
+    public LocalDate date() {
+        return this.date;
+    }
+
+    /**
+     * Returns the instant the object rises above the horizon.
+     *
+     * @return the rising, empty if the object does not rise during the day.
+     */
+    public Optional<ZonedDateTime> rise() {
+        return Optional.ofNullable(this.rise);
+    }
+
+    /**
+     * Returns the instant the object crosses the meridian, at its highest.
+     *
+     * @return the transit, empty if the object does not transit during the day.
+     */
+    public Optional<ZonedDateTime> transit() {
+        return Optional.ofNullable(this.transit);
+    }
+
+    /**
+     * Returns the instant the object sets below the horizon.
+     *
+     * @return the setting, empty if the object does not set during the day.
+     */
+    public Optional<ZonedDateTime> set() {
+        return Optional.ofNullable(this.set);
+    }
+
+    /**
+     * Returns the altitude of the object at its transit.
+     *
+     * @return the altitude in radians, NaN if the object does not transit during the day.
+     */
+    public double transitAltitude() {
+        return this.transitAltitude;
+    }
+
+    /**
+     * Returns true if the object stays above the horizon the whole day, e.g. a circumpolar star.
+     *
+     * @return true if the object neither rises nor sets during the day and is above the horizon.
+     */
+    public boolean isAlwaysAbove() {
+        return this.rise == null && this.set == null && this.aboveAtStart;
+    }
+
+    /**
+     * Returns true if the object stays below the horizon the whole day.
+     *
+     * @return true if the object neither rises nor sets during the day and is below the horizon.
+     */
+    public boolean isAlwaysBelow() {
+        return this.rise == null && this.set == null && !this.aboveAtStart;
+    }
+
+    /**
+     * Returns the instant the given twilight begins, i.e. the Sun rises above its altitude.
+     *
+     * @param twilight the twilight.
+     * @return the beginning of the twilight, empty if it does not begin during the day or if the object
+     * is not the Sun.
+     */
+    public Optional<ZonedDateTime> dawn(Twilight twilight) {
+        return Optional.ofNullable(this.dawns.get(twilight));
+    }
+
+    /**
+     * Returns the instant the given twilight ends, i.e. the Sun sets below its altitude.
+     *
+     * @param twilight the twilight.
+     * @return the end of the twilight, empty if it does not end during the day or if the object
+     * is not the Sun.
+     */
+    public Optional<ZonedDateTime> dusk(Twilight twilight) {
+        return Optional.ofNullable(this.dusks.get(twilight));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: rise=%s transit=%s set=%s", this.name, this.date, this.rise, this.transit, this.set);
+    }
+
+    /**
+     * The twilights, defined by the altitude of the center of the Sun.
+     */
+    public enum Twilight {
+        CIVIL(-6),
+        NAUTICAL(-12),
+        ASTRONOMICAL(-18);
+
+        private final double altitude;
+
+        Twilight(double altitudeDeg) {
+            this.altitude = Angle.ofDeg(altitudeDeg);
+        }
+
+        /**
+         * Returns the altitude of the center of the Sun delimiting the twilight.
+         *
+         * @return the altitude in radians.
+         */
+        public double altitude() {
+            return this.altitude;
+        }
+    }
+}
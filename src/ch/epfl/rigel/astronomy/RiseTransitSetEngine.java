@@ -0,0 +1,416 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.RiseTransitSet.Twilight;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.RootFinder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes when the celestial objects rise, transit and set at a given location, and the twilights.
+ * <p>
+ * Each day of the zone of the engine is sampled every hour: the altitude of the object relative to its horizon and
+ * its hour angle are computed as {@link ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion} does, from the
+ * positions of {@link BatchEphemeris} and the sidereal time at the beginning of the day, without allocating
+ * anything. The samples bracket the events, which are then refined to the second by regula falsi (Illinois
+ * variant). The altitude of the horizon takes the refraction into account, and the size of the Sun and the Moon
+ * together with the parallax of the Moon, their models being geocentric.
+ * Events closer than an hour to one another may be missed, e.g. an object grazing the horizon.
+ * <p>
+ * The days of many objects are computed in parallel on the common fork/join pool.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class RiseTransitSetEngine {
+
+    //Refraction at the horizon, the objects being seen 34' higher than they are.
+    private static final double REFRACTION = Angle.ofArcsec(34 * 60);
+    //Equatorial radius of the Earth over the radius of the Moon, giving the parallax from the size of the Moon.
+    private static final double EARTH_TO_MOON_RADIUS = 6378.14 / 1737.4;
+    private static final int STEPS_PER_DAY = 24;
+    //One second, in days.
+    private static final double TOLERANCE = 1d / 86400;
+    private static final int MAX_ITERATIONS = 64;
+    //Number of object days below which a batch is not split any more.
+    private static final int MIN_PARALLEL_DAYS = 32;
+
+    //Functions searched for their roots: the sine of the altitude relative to the sine of the altitude of a twilight
+    //(their ordinals), relative to the sine of the horizon of the object, and the sine of the hour angle.
+    //The sine of the altitude has the same roots as the altitude, without computing its arcsine.
+    private static final Twilight[] TWILIGHTS = Twilight.values();
+    private static final double[] SIN_TWILIGHTS = sinTwilights();
+    private static final double SIN_REFRACTION_HORIZON = Math.sin(-REFRACTION);
+    private static final int HORIZON = TWILIGHTS.length;
+    private static final int TRANSIT = HORIZON + 1;
+
+    private final GeographicCoordinates where;
+    private final ZoneId zone;
+    private final double sinLatitude;
+    private final double cosLatitude;
+
+    /**
+     * Constructs an engine for the given observer.
+     *
+     * @param where the observer location.
+     * @param zone  the zone of the days of the events.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public RiseTransitSetEngine(GeographicCoordinates where, ZoneId zone) {
+        this.where = Objects.requireNonNull(where);
+        this.zone = Objects.requireNonNull(zone);
+        this.sinLatitude = Math.sin(where.lat());
+        this.cosLatitude = Math.cos(where.lat());
+    }
+
+    /**
+     * Computes the events of the given object during the given day.
+     *
+     * @param target the object.
+     * @param date   the day, in the zone of the engine.
+     * @return the events of the object during the day.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public RiseTransitSet compute(Target target, LocalDate date) {
+        Objects.requireNonNull(target);
+        return new Search().compute(target, date, this.startOf(date), this.startOf(date.plusDays(1)));
+    }
+
+    /**
+     * Computes the events of the given objects during the given days, the days of the objects being computed in
+     * parallel on the common fork/join pool.
+     *
+     * @param targets   the objects.
+     * @param firstDate the first day, in the zone of the engine.
+     * @param days      the number of days.
+     * @return an unmodifiable list of the events, by object in the order of the list, then by day.
+     * @throws IllegalArgumentException if the number of days is negative.
+     * @throws NullPointerException     if one of the arguments or of the objects is null.
+     */
+    public List<RiseTransitSet> compute(List<Target> targets, LocalDate firstDate, int days) {
+        Preconditions.checkArgument(days >= 0);
+        Objects.requireNonNull(firstDate);
+        Target[] targetArray = targets.toArray(new Target[0]);
+        for (Target target : targetArray) {
+            Objects.requireNonNull(target);
+        }
+
+        //The bounds of the days are shared by all the objects, the rules of the zone being slow to apply.
+        double[] bounds = new double[days + 1];
+        for (int d = 0; d <= days; d++) {
+            bounds[d] = this.startOf(firstDate.plusDays(d));
+        }
+        RiseTransitSet[] results = new RiseTransitSet[targetArray.length * days];
+        ForkJoinPool.commonPool().invoke(new BatchTask(this, targetArray, firstDate, bounds, results, 0, results.length));
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Computes the beginning of the given day in the zone of the engine.
+     *
+     * @param date the day.
+     * @return the beginning of the day, in days since J2010.
+     */
+    private double startOf(LocalDate date) {
+        return Epoch.J2010.daysUntil(date.atStartOfDay(this.zone));
+    }
+
+    /**
+     * Computes the sines of the altitudes of the twilights.
+     *
+     * @return the sines, indexed by the ordinals of the twilights.
+     */
+    private static double[] sinTwilights() {
+        double[] sines = new double[TWILIGHTS.length];
+        for (Twilight twilight : TWILIGHTS) {
+            sines[twilight.ordinal()] = Math.sin(twilight.altitude());
+        }
+        return sines;
+    }
+
+    /**
+     * Object of which the events are computed: the Sun, the Moon, a planet or a star.
+     */
+    public static final class Target {
+        private final String name;
+        private final CelestialObjectModel<?> model;
+        //Position of a star, fixed.
+        private final double ra;
+        private final double sinDec;
+        private final double cosDec;
+
+        private Target(String name, CelestialObjectModel<?> model, double ra, double dec) {
+            this.name = name;
+            this.model = model;
+            this.ra = ra;
+            this.sinDec = Math.sin(dec);
+            this.cosDec = Math.cos(dec);
+        }
+
+        /**
+         * Returns the target of the given model.
+         *
+         * @param model the model of the Sun, of the Moon or of a planet other than the Earth.
+         * @return the target.
+         * @throws IllegalArgumentException if the model is not supported.
+         */
+        public static Target of(CelestialObjectModel<? extends CelestialObject> model) {
+            Preconditions.checkArgument(model == SunModel.SUN || model == MoonModel.MOON
+                    || (model instanceof PlanetModel && model != PlanetModel.EARTH));
+            String name = model.at(0, EclipticToEquatorialConversion.ofJulianCenturies(0)).name();
+            return new Target(name, model, Double.NaN, Double.NaN);
+        }
+
+        /**
+         * Returns the target of the given star, fixed.
+         *
+         * @param star the star.
+         * @return the target.
+         */
+        public static Target of(Star star) {
+            return new Target(star.name(), null, star.equatorialPos().ra(), star.equatorialPos().dec());
+        }
+
+        /**
+         * Lists the Sun, the Moon, the planets other than the Earth and the stars of the catalogue at least
+         * as bright as the given magnitude, in this order.
+         *
+         * @param catalogue    the star catalogue.
+         * @param maxMagnitude the magnitude of the faintest stars listed.
+         * @return an unmodifiable list of the targets.
+         */
+        public static List<Target> brightObjects(StarCatalogue catalogue, double maxMagnitude) {
+            List<Target> targets = new ArrayList<Target>();
+            targets.add(of(SunModel.SUN));
+            targets.add(of(MoonModel.MOON));
+            for (PlanetModel planet : PlanetModel.ALL) {
+                if (planet != PlanetModel.EARTH) {
+                    targets.add(of(planet));
+                }
+            }
+            StarStore store = catalogue.starStore();
+            for (int i = 0; i < store.size(); i++) {
+                if (store.magnitude(i) <= maxMagnitude) {
+                    targets.add(of(catalogue.stars().get(i)));
+                }
+            }
+            return Collections.unmodifiableList(targets);
+        }
+
+        /**
+         * Returns the name of the object.
+         *
+         * @return the name of the object.
+         */
+        public String name() {
+            return this.name;
+        }
+    }
+
+    /**
+     * Search of the events of a thread, with the buffers of its computations.
+     */
+    private final class Search {
+        private final double[] state = new double[BatchEphemeris.STATE_SIZE];
+        private final double[] sunState = new double[SunModel.STATE_SIZE];
+        private final double[] values = new double[BatchEphemeris.VALUES];
+        //Samples of the day: the values of the functions searched, indexed by function then sample.
+        private double[][] samples = new double[TRANSIT + 1][STEPS_PER_DAY + 2];
+        private double[] cosHourAngles = new double[STEPS_PER_DAY + 2];
+        private Target target;
+        //Position and horizon of the target at the instant evaluated last.
+        private double ra;
+        private double sinDec;
+        private double cosDec;
+        private double sinHorizon;
+        //Local sidereal time at the beginning of the day, the sidereal time increasing at a constant rate during it.
+        private double dayStart;
+        private double dayStartSiderealTime;
+
+        /**
+         * Computes the events of the given object during the day of the given bounds.
+         */
+        private RiseTransitSet compute(Target target, LocalDate date, double start, double end) {
+            this.target = target;
+            this.dayStart = start;
+            this.dayStartSiderealTime = SiderealTime.greenwich(start) + where.lon();
+            int steps = Math.max(1, (int) Math.round((end - start) * STEPS_PER_DAY));
+            if (steps + 1 > this.cosHourAngles.length) {
+                this.samples = new double[TRANSIT + 1][steps + 1];
+                this.cosHourAngles = new double[steps + 1];
+            }
+            for (int i = 0; i <= steps; i++) {
+                this.sample(start + (end - start) * i / steps, i);
+            }
+
+            double rise = this.firstRoot(HORIZON, true, start, end, steps);
+            double set = this.firstRoot(HORIZON, false, start, end, steps);
+            double transit = this.firstRoot(TRANSIT, true, start, end, steps);
+            double transitAltitude = Double.isNaN(transit)
+                    ? Double.NaN
+                    : Math.asin(Math.max(-1, Math.min(1, this.sinAltitude(this.hourAngle(transit)))));
+
+            EnumMap<Twilight, ZonedDateTime> dawns = new EnumMap<Twilight, ZonedDateTime>(Twilight.class);
+            EnumMap<Twilight, ZonedDateTime> dusks = new EnumMap<Twilight, ZonedDateTime>(Twilight.class);
+            if (target.model == SunModel.SUN) {
+                for (Twilight twilight : TWILIGHTS) {
+                    putIfFound(dawns, twilight, this.firstRoot(twilight.ordinal(), true, start, end, steps));
+                    putIfFound(dusks, twilight, this.firstRoot(twilight.ordinal(), false, start, end, steps));
+                }
+            }
+            return new RiseTransitSet(target.name, date, instant(rise), instant(transit), instant(set),
+                    transitAltitude, this.samples[HORIZON][0] >= 0, dawns, dusks);
+        }
+
+        /**
+         * Stores the values of the functions at the given instant as the sample of the given index.
+         */
+        private void sample(double days, int index) {
+            double hourAngle = this.hourAngle(days);
+            double sinAltitude = this.sinAltitude(hourAngle);
+            for (int t = 0; t < TWILIGHTS.length; t++) {
+                this.samples[t][index] = sinAltitude - SIN_TWILIGHTS[t];
+            }
+            this.samples[HORIZON][index] = sinAltitude - this.sinHorizon;
+            this.samples[TRANSIT][index] = Math.sin(hourAngle);
+            this.cosHourAngles[index] = Math.cos(hourAngle);
+        }
+
+        /**
+         * Finds the first root of the given function during the day at which it increases, or decreases.
+         * The transits are the roots of the sine of the hour angle at which it increases, its cosine being positive.
+         *
+         * @return the root in days since J2010, NaN if the function has none.
+         */
+        private double firstRoot(int function, boolean increasing, double start, double end, int steps) {
+            double[] f = this.samples[function];
+            for (int i = 0; i < steps; i++) {
+                boolean crosses = increasing ? (f[i] < 0 && f[i + 1] >= 0) : (f[i] >= 0 && f[i + 1] < 0);
+                if (crosses && (function != TRANSIT || (this.cosHourAngles[i] > 0 && this.cosHourAngles[i + 1] > 0))) {
+                    double a = start + (end - start) * i / steps;
+                    double b = start + (end - start) * (i + 1) / steps;
+                    return RootFinder.illinois(t -> this.value(function, t), a, f[i], b, f[i + 1],
+                            TOLERANCE, MAX_ITERATIONS);
+                }
+            }
+            return Double.NaN;
+        }
+
+        /**
+         * Computes the value of the given function at the given instant.
+         */
+        private double value(int function, double days) {
+            double hourAngle = this.hourAngle(days);
+            if (function == TRANSIT) {
+                return Math.sin(hourAngle);
+            }
+            return this.sinAltitude(hourAngle) - (function == HORIZON ? this.sinHorizon : SIN_TWILIGHTS[function]);
+        }
+
+        /**
+         * Computes the sine of the altitude of the target at the given hour angle, at the position evaluated last.
+         */
+        private double sinAltitude(double hourAngle) {
+            return this.sinDec * sinLatitude + this.cosDec * cosLatitude * Math.cos(hourAngle);
+        }
+
+        /**
+         * Computes the position and the horizon of the target at the given instant, then its hour angle.
+         */
+        private double hourAngle(double days) {
+            CelestialObjectModel<?> model = this.target.model;
+            if (model == null) {
+                this.ra = this.target.ra;
+                this.sinDec = this.target.sinDec;
+                this.cosDec = this.target.cosDec;
+                this.sinHorizon = SIN_REFRACTION_HORIZON;
+            } else {
+                BatchEphemeris.computeAt(model, days, this.state, this.sunState, this.values);
+                this.ra = this.values[0];
+                this.sinDec = Math.sin(this.values[1]);
+                this.cosDec = Math.cos(this.values[1]);
+                double radius = this.values[3] / 2;
+                if (model == SunModel.SUN) {
+                    this.sinHorizon = Math.sin(-REFRACTION - radius);
+                } else if (model == MoonModel.MOON) {
+                    double parallax = Math.asin(Math.min(1, EARTH_TO_MOON_RADIUS * Math.sin(radius)));
+                    this.sinHorizon = Math.sin(parallax - REFRACTION - radius);
+                } else {
+                    this.sinHorizon = SIN_REFRACTION_HORIZON;
+                }
+            }
+            return this.dayStartSiderealTime + SiderealTime.RATE * (days - this.dayStart) - this.ra;
+        }
+
+        /**
+         * Returns the instant at the given number of days since J2010 in the zone of the engine, null if NaN.
+         */
+        private ZonedDateTime instant(double days) {
+            return Double.isNaN(days) ? null : Epoch.J2010.plusDays(days).withZoneSameInstant(zone);
+        }
+
+        private void putIfFound(EnumMap<Twilight, ZonedDateTime> events, Twilight twilight, double days) {
+            ZonedDateTime instant = this.instant(days);
+            if (instant != null) {
+                events.put(twilight, instant);
+            }
+        }
+    }
+
+    /**
+     * Task splitting its range of object days in halves until it is small enough to be computed sequentially,
+     * the object days being indexed by object then day.
+     */
+    private static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RiseTransitSetEngine engine;
+        private final Target[] targets;
+        private final LocalDate firstDate;
+        //Beginnings of the days and of the day following the last one, in days since J2010.
+        private final double[] bounds;
+        private final RiseTransitSet[] results;
+        private final int from;
+        private final int to;
+
+        private BatchTask(RiseTransitSetEngine engine, Target[] targets, LocalDate firstDate, double[] bounds,
+                          RiseTransitSet[] results, int from, int to) {
+            this.engine = engine;
+            this.targets = targets;
+            this.firstDate = firstDate;
+            this.bounds = bounds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_PARALLEL_DAYS) {
+                Search search = engine.new Search();
+                int days = bounds.length - 1;
+                for (int i = from; i < to; i++) {
+                    int day = i % days;
+                    results[i] = search.compute(targets[i / days], firstDate.plusDays(day), bounds[day], bounds[day + 1]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(engine, targets, firstDate, bounds, results, from, middle),
+                        new BatchTask(engine, targets, firstDate, bounds, results, middle, to));
+            }
+        }
+    }
+}
@@ -22,6 +22,10 @@ public final class SiderealTime {
     private final static double TIME_JUL_DIFF_1 = 2400.051336;
     private final static double NB_SEC_MINUTE = 60;
     private final static double CT_S1 = 1.002737909;
+    /**
+     * Rate of the sidereal time, in radians per day.
+     */
+    static final double RATE = Angle.ofHr(24 * CT_S1);
     private final static Polynomial polynomial = Polynomial.of(0.000025862, TIME_JUL_DIFF_1, 6.697374558);
 
 
@@ -59,6 +63,22 @@ public final class SiderealTime {
     }
 
 
+    /**
+     * Returns the greenwich sidereal time at the given number of days from J2010, the same as
+     * {@link #greenwich(ZonedDateTime)} for the instant up to rounding. Intended for the searches evaluating
+     * the sidereal time at many instants, without building their dates.
+     *
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @return the greenwich sidereal time normalized to [0,TAU[
+     */
+    public static double greenwich(double daysSinceJ2010) {
+        //J2010 being at 0h UTC, the 0h of the day is its whole number of days.
+        double day = Math.floor(daysSinceJ2010);
+        double timeJulianDifference = J2000.julianCenturiesUntil(Epoch.J2010, day);
+        double hoursInWhen = (daysSinceJ2010 - day) * 24;
+        return Angle.normalizePositive(Angle.ofHr(CT_S1 * hoursInWhen + polynomial.at(timeJulianDifference)));
+    }
+
     /**
      * Returns the local sidereal time for the Zoned Date Time Input in a given latitude.
      *
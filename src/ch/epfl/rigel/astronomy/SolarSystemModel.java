@@ -0,0 +1,26 @@
+package ch.epfl.rigel.astronomy;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Model of the Sun, the Moon and the planets, giving their state at any instant.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+@FunctionalInterface
+public interface SolarSystemModel {
+
+    /**
+     * Model computing the objects with their analytic models at each instant.
+     */
+    SolarSystemModel EXACT = SolarSystemState::at;
+
+    /**
+     * Computes the state of the solar system at the given instant.
+     *
+     * @param when the instant.
+     * @return the state of the solar system at the given instant.
+     */
+    SolarSystemState at(ZonedDateTime when);
+}
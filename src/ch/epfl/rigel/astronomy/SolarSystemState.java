@@ -0,0 +1,141 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The Sun, the Moon and the planets at a given instant, computed in one pass: the obliquity of the ecliptic,
+ * the Sun and the position of the Earth on its orbit are computed once, then shared by the Moon and all
+ * the planets instead of being computed again by each of their models.
+ * The objects are the same as the ones computed by their models one by one.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class SolarSystemState {
+
+    //Planets of the state, all the planets but the Earth.
+    private static final List<PlanetModel> PLANET_MODELS = planetModels();
+
+    private final double daysSinceJ2010;
+    private final Sun sun;
+    private final Moon moon;
+    private final List<Planet> planets;
+
+    /**
+     * Constructs the state of the given objects, e.g. interpolated ones, see {@link EphemerisCache}.
+     *
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @param sun            the Sun at the given date.
+     * @param moon           the Moon at the given date.
+     * @param planets        the planets at the given date, unmodifiable, all but the Earth.
+     */
+    SolarSystemState(double daysSinceJ2010, Sun sun, Moon moon, List<Planet> planets) {
+        this.daysSinceJ2010 = daysSinceJ2010;
+        this.sun = sun;
+        this.moon = moon;
+        this.planets = planets;
+    }
+
+    /**
+     * Computes the state of the solar system at the given instant.
+     *
+     * @param when the instant.
+     * @return the state of the solar system at the given instant.
+     * @throws NullPointerException if the instant is null.
+     */
+    public static SolarSystemState at(ZonedDateTime when) {
+        Objects.requireNonNull(when);
+        return at(Epoch.J2010.daysUntil(when), new EclipticToEquatorialConversion(when));
+    }
+
+    /**
+     * Computes the state of the solar system at the given instant.
+     *
+     * @param daysSinceJ2010                 time difference for the given date. ( can be negative )
+     * @param eclipticToEquatorialConversion conversion at the given date.
+     * @return the state of the solar system at the given instant.
+     * @throws NullPointerException if the conversion is null.
+     */
+    public static SolarSystemState at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
+        Objects.requireNonNull(eclipticToEquatorialConversion);
+        Sun sun = SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorialConversion);
+        Moon moon = MoonModel.MOON.at(daysSinceJ2010, eclipticToEquatorialConversion, sun);
+
+        double earthTrueAnomaly = PlanetModel.EARTH.computeTrueAnomaly(daysSinceJ2010);
+        double earthRadius = PlanetModel.EARTH.computeOrbitRadius(earthTrueAnomaly);
+        double earthLongitude = PlanetModel.EARTH.computeLongitude(earthTrueAnomaly);
+        Planet[] planets = new Planet[PLANET_MODELS.size()];
+        for (int i = 0; i < planets.length; i++) {
+            planets[i] = PLANET_MODELS.get(i).at(daysSinceJ2010, eclipticToEquatorialConversion, earthRadius, earthLongitude);
+        }
+        return new SolarSystemState(daysSinceJ2010, sun, moon, List.of(planets));
+    }
+
+    /**
+     * Computes the states of the solar system at the given instants, e.g. for the points of a timeline.
+     *
+     * @param instants the instants.
+     * @return the states of the solar system, in the order of the instants.
+     * @throws NullPointerException if one of the instants is null.
+     */
+    public static List<SolarSystemState> at(List<ZonedDateTime> instants) {
+        List<SolarSystemState> states = new ArrayList<SolarSystemState>(instants.size());
+        for (ZonedDateTime when : instants) {
+            states.add(at(when));
+        }
+        return Collections.unmodifiableList(states);
+    }
+
+    /**
+     * Returns the time of the state.
+     *
+     * @return the number of days from J2010 to the instant of the state.
+     */
+    public double daysSinceJ2010() {
+        return this.daysSinceJ2010;
+    }
+
+    /**
+     * Returns the Sun.
+     *
+     * @return the Sun at the instant of the state.
+     */
+    public Sun sun() {
+        return this.sun;
+    }
+
+    /**
+     * Returns the Moon.
+     *
+     * @return the Moon at the instant of the state.
+     */
+    public Moon moon() {
+        return this.moon;
+    }
+
+    /**
+     * Returns the planets, all but the Earth, in the order of {@link PlanetModel#ALL}.
+     *
+     * @return an unmodifiable list of the planets at the instant of the state.
+     */
+    public List<Planet> planets() {
+        return this.planets;
+    }
+
+    /**
+     * Lists the models of the planets of the state.
+     *
+     * @return the models of all the planets but the Earth.
+     */
+    private static List<PlanetModel> planetModels() {
+        List<PlanetModel> models = new ArrayList<PlanetModel>(PlanetModel.ALL);
+        models.remove(PlanetModel.EARTH);
+        return List.copyOf(models);
+    }
+}
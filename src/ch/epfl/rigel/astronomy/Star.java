@@ -14,9 +14,9 @@ import ch.epfl.rigel.math.ClosedInterval;
 public final class Star extends CelestialObject {
 
     private final int hipparcosId;
-    private final ClosedInterval COLOR_INDEX_INTERVAL = ClosedInterval.of(-0.5, 5.5);
+    private final static ClosedInterval COLOR_INDEX_INTERVAL = ClosedInterval.of(-0.5, 5.5);
+    private final static double CONSTANT_TEMPERATURE = 0.92;
     private final int colorTemperature;
-    private final double CONSTANT_TEMPERATURE = 0.92;
 
     /**
      * Constructs a Star object at a given date/position.
@@ -33,8 +33,40 @@ public final class Star extends CelestialObject {
         Preconditions.checkArgument(hipparcosId >= 0);
 
         this.hipparcosId = hipparcosId;
+        this.colorTemperature = temperatureForColorIndex(colorIndex);
+    }
+
+    /**
+     * Constructs a Star object from its color temperature, already computed.
+     * Used by the StarStore to create the stars from its columns.
+     *
+     * @param hipparcosId      hipparcos id of the star
+     * @param name             of the celestial object
+     * @param equatorialPos    equatorial position of the object
+     * @param magnitude        magnitude of the object
+     * @param colorTemperature color temperature of the star, in kelvins
+     * @throws NullPointerException     if the name or the equatorial position are null
+     * @throws IllegalArgumentException if the hipparcosId is inferior to 0.
+     */
+    Star(int hipparcosId, String name, EquatorialCoordinates equatorialPos, float magnitude, int colorTemperature) {
+        super(name, equatorialPos, 0, magnitude);
+        Preconditions.checkArgument(hipparcosId >= 0);
+
+        this.hipparcosId = hipparcosId;
+        this.colorTemperature = colorTemperature;
+    }
+
+    /**
+     * Computes the color temperature of a black body model for the given color index.
+     * Shared with the StarStore so that both representations agree.
+     *
+     * @param colorIndex color index of the star.
+     * @return the color temperature in kelvins.
+     * @throws IllegalArgumentException if the color index is not in the interval [-0.5, 5.5].
+     */
+    static int temperatureForColorIndex(float colorIndex) {
         float color = (float) Preconditions.checkInInterval(COLOR_INDEX_INTERVAL, colorIndex);
-        colorTemperature = (int) (4600d * ((1d / (CONSTANT_TEMPERATURE * color + 1.7))
+        return (int) (4600d * ((1d / (CONSTANT_TEMPERATURE * color + 1.7))
                 + (1d / (CONSTANT_TEMPERATURE * color + 0.62))));
     }
 
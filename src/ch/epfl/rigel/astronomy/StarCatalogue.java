@@ -2,22 +2,34 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.structure.IntHashMap;
+import ch.epfl.rigel.structure.SphereIndex;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Array;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
 
 /**
  * A catalogue of stars and asterisms. Stores an ordered list of all the stars,
  * and different asterisms containing some or all of this stars.
+ * The stars are only stored in the columns of a {@link StarStore}, the list of the stars being a view of it.
  *
  * @author Mark Mouawad (296508)
  * @author Leah Uzzan (302829)
  */
 public final class StarCatalogue {
+    private final StarStore starStore;
     private final List<Star> starList;
-    private final Map<Asterism, List<Integer>> catalogue;
+    private final SphereIndex sphereIndex;
+    private final int[] asterismStars;
+    //The asterisms, in the order they were given, and the indices of their stars in one flattened array:
+    //the stars of the i-th asterism are those of [asterismOffsets[i], asterismOffsets[i + 1][.
+    private final Asterism[] asterismArray;
+    private final int[] asterismOffsets;
+    private final int[] asterismStarIndices;
+    private final Map<Asterism, Integer> asterismPositions;
 
     /**
      * Constructs a catalogue of stars and corresponding its corresponding asterisms.
@@ -29,62 +41,223 @@ public final class StarCatalogue {
      * @throws IllegalArgumentException if a star in one of the asterisms is not contained in the stars list.
      */
     public StarCatalogue(List<Star> stars, List<Asterism> asterisms) {
-        HashMap<Star, Integer> starIndexMap = new HashMap<Star, Integer>();
-        Map<Asterism, List<Integer>> catalogue = new HashMap<Asterism, List<Integer>>();
+        this(StarStore.of(Objects.requireNonNull(stars)), asterisms);
+    }
 
-        for(Star s: stars){
-            starIndexMap.put(s, starIndexMap.size());
-        }
+    /**
+     * Constructs a catalogue of the stars of the given store and of the given asterisms.
+     *
+     * @param starStore store of the stars.
+     * @param asterisms asterisms list.
+     * @throws IllegalArgumentException if a star in one of the asterisms is not contained in the store.
+     */
+    private StarCatalogue(StarStore starStore, List<Asterism> asterisms) {
+        this.starStore = starStore;
+        this.starList = new StarList(starStore::star, starStore::size);
 
-        int starIndex;
-        List<Integer> indexList = new ArrayList<Integer>();
+        //Stars are looked up by hipparcos id, the identity of the star found being checked
+        //as ids are not unique (e.g. 0 when unknown).
+        IntHashMap hipparcosIndices = new IntHashMap(starStore.size());
+        for (int i = 0; i < starStore.size(); i++) {
+            hipparcosIndices.putIfAbsent(starStore.hipparcosId(i), i);
+        }
 
-        for(Asterism ast: asterisms){
-            indexList.clear();
-            for(Star s: ast.stars()){
-                starIndex = (starIndexMap.getOrDefault(s, -1));
+        Map<Asterism, Integer> positions = new LinkedHashMap<Asterism, Integer>();
+        int[] offsets = new int[asterisms.size() + 1];
+        int[] indices = new int[16];
+        int size = 0;
+        for (Asterism ast : asterisms) {
+            if (positions.putIfAbsent(ast, positions.size()) != null) {
+                continue;
+            }
+            for (Star s : ast.stars()) {
+                int starIndex = hipparcosIndices.get(s.hipparcosId(), -1);
+                if (starIndex >= 0 && starStore.star(starIndex) != s) {
+                    starIndex = indexOf(s);
+                }
                 Preconditions.checkArgument(starIndex >= 0);
-                indexList.add(starIndex);
+                if (size == indices.length) {
+                    indices = Arrays.copyOf(indices, 2 * size);
+                }
+                indices[size++] = starIndex;
             }
-            catalogue.put(ast, List.copyOf(indexList));
+            offsets[positions.size()] = size;
         }
 
+        this.asterismPositions = Collections.unmodifiableMap(positions);
+        this.asterismArray = positions.keySet().toArray(new Asterism[0]);
+        this.asterismOffsets = Arrays.copyOf(offsets, asterismArray.length + 1);
+        this.asterismStarIndices = Arrays.copyOf(indices, size);
+        this.sphereIndex = new SphereIndex(this.starStore.raDecArray());
+        this.asterismStars = Arrays.stream(this.asterismStarIndices)
+                .sorted()
+                .distinct()
+                .toArray();
 
-        this.catalogue = Collections.unmodifiableMap(catalogue);
-        this.starList = List.copyOf(Objects.requireNonNull(stars));
+    }
 
+    /**
+     * Returns the index of the given star, looked up among the stars sharing its hipparcos id.
+     * @param star the star.
+     * @return the index of the star, -1 if it is not in the catalogue.
+     */
+    private int indexOf(Star star) {
+        for (int i = 0; i < this.starStore.size(); i++) {
+            if (this.starStore.hipparcosId(i) == star.hipparcosId() && this.starStore.star(i) == star) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
-     * Returns the star list.
+     * Returns the star list, an unmodifiable view of the store: the stars are created
+     * on first access, then the same star is returned for an index.
      * @return the star list.
      */
     public List<Star> stars() {
         return this.starList;
     }
 
+    /**
+     * Returns the columnar store of the stars. The star of index i in the store
+     * is the star of index i in the star list.
+     * @return the columnar store of the stars.
+     */
+    public StarStore starStore() {
+        return this.starStore;
+    }
+
+    /**
+     * Returns the indices of the stars whose angular distance to the given center is at most the given radius.
+     * Answered by a spatial index over the sphere built with the catalogue.
+     * @param center the center of the cone.
+     * @param radius the angular radius of the cone, in radians.
+     * @return the indices of the stars in the cone, in increasing order.
+     * @throws IllegalArgumentException if the radius is negative.
+     */
+    public int[] starsWithin(EquatorialCoordinates center, double radius) {
+        return this.sphereIndex.indicesWithin(center.ra(), center.dec(), radius);
+    }
+
+    /**
+     * Returns the indices of the stars belonging to at least one asterism, in increasing order.
+     * The array is not copied and must not be modified.
+     * @return the indices of the stars belonging to an asterism.
+     */
+    int[] asterismStars() {
+        return this.asterismStars;
+    }
+
     /**
      * Returns a set of all asterisms.
      * @return a set of all asterims.
      */
     public Set<Asterism> asterisms() {
-        return this.catalogue.keySet();
+        return this.asterismPositions.keySet();
     }
 
     /**
      * Returns a list with the index of the stars for the input astermism.
+     * The list is a view of the flattened indices of the asterisms.
      *
      * @param asterism
      * @return list with the index of the stars in the stars list.
      * @throws IllegalArgumentException if the asterism is not stored in the StarCatalogue
      */
     public List<Integer> asterismIndices(Asterism asterism) {
-        List<Integer> indexList = this.catalogue.get(asterism);
-        //We need to make sure no null is stored in the catalogue.
-        Preconditions.checkArgument(indexList != null);
+        Integer position = this.asterismPositions.get(asterism);
+        Preconditions.checkArgument(position != null);
+
+        return new IndexList(this.asterismStarIndices, this.asterismOffsets[position], this.asterismOffsets[position + 1]);
+
+    }
+
+    /**
+     * Returns the number of asterisms.
+     * @return the number of asterisms.
+     */
+    public int asterismCount() {
+        return this.asterismArray.length;
+    }
+
+    /**
+     * Returns the asterism of the given position, the asterisms being in the order they were given.
+     * @param position position of the asterism.
+     * @return the asterism.
+     * @throws IndexOutOfBoundsException if the position is not in [0, asterismCount()[.
+     */
+    public Asterism asterism(int position) {
+        return this.asterismArray[position];
+    }
 
-        return indexList;
+    /**
+     * Returns the offsets of the asterisms in the flattened indices of their stars: the indices of the stars
+     * of the asterism of position i are those of [offsets[i], offsets[i + 1][ in {@link #asterismStarIndices()}.
+     * The array, of length asterismCount() + 1, is not copied and must not be modified.
+     * @return the offsets of the asterisms.
+     */
+    public int[] asterismOffsets() {
+        return this.asterismOffsets;
+    }
 
+    /**
+     * Returns the indices of the stars of all asterisms, in one flattened array (see {@link #asterismOffsets()}).
+     * The array is not copied and must not be modified.
+     * @return the indices of the stars of the asterisms.
+     */
+    public int[] asterismStarIndices() {
+        return this.asterismStarIndices;
+    }
+
+    /**
+     * Unmodifiable list of the stars of a store or of its builder, created on access.
+     */
+    private static final class StarList extends AbstractList<Star> implements RandomAccess {
+        private final IntFunction<Star> stars;
+        private final IntSupplier size;
+
+        private StarList(IntFunction<Star> stars, IntSupplier size) {
+            this.stars = stars;
+            this.size = size;
+        }
+
+        @Override
+        public Star get(int index) {
+            Objects.checkIndex(index, size.getAsInt());
+            return stars.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+    }
+
+    /**
+     * Unmodifiable list of a range of an array of indices.
+     */
+    private static final class IndexList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] indices;
+        private final int from;
+        private final int to;
+
+        private IndexList(int[] indices, int from, int to) {
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            Objects.checkIndex(index, to - from);
+            return indices[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
     }
 
     /**
@@ -94,7 +267,7 @@ public final class StarCatalogue {
      * @author Leah Uzzan (302829)
      */
     public static final class Builder {
-        private List<Star> stars = new ArrayList<Star>();
+        private final StarStore.Builder stars = new StarStore.Builder();
         private List<Asterism> asterisms = new ArrayList<Asterism>();
 
         /**
@@ -108,6 +281,15 @@ public final class StarCatalogue {
             return this;
         }
 
+        /**
+         * Returns the columns of the stars added so far, filled directly by the loaders.
+         *
+         * @return the columns of the stars.
+         */
+        StarStore.Builder starColumns() {
+            return this.stars;
+        }
+
 
         /**
          * Add an asterism to the catalogue.
@@ -122,12 +304,12 @@ public final class StarCatalogue {
         }
 
         /**
-         * Returns an unmodifiable view of the stars catalogue.
+         * Returns an unmodifiable view of the stars catalogue, the stars being created on access.
          *
          * @return
          */
         public List<Star> stars() {
-            return Collections.unmodifiableList(this.stars);
+            return new StarList(this.stars::star, this.stars::size);
         }
 
 
@@ -161,7 +343,7 @@ public final class StarCatalogue {
          * @return Star Catalogue
          */
         public StarCatalogue build() {
-            return new StarCatalogue(this.stars, this.asterisms);
+            return new StarCatalogue(this.stars.build(), this.asterisms);
         }
 
     }
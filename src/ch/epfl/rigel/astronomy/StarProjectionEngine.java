@@ -0,0 +1,127 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Engine running the per star work of an ObservedSky (i.e. the projection of the stars)
+ * on a shared ForkJoinPool. The stars are split in chunks small enough to stay in cache,
+ * idle workers stealing the remaining chunks. Catalogues smaller than the sequential
+ * threshold are handled by the calling thread only.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class StarProjectionEngine {
+
+    /**
+     * Default number of stars under which the work is not split.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 4096;
+
+    /**
+     * Number of stars handled by a single task. Roughly 32KB of input and output doubles.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Engine running on the common ForkJoinPool with the default sequential threshold.
+     */
+    public static final StarProjectionEngine DEFAULT =
+            new StarProjectionEngine(ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_THRESHOLD);
+
+    /**
+     * Engine running everything on the calling thread.
+     */
+    public static final StarProjectionEngine SEQUENTIAL =
+            new StarProjectionEngine(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    /**
+     * Constructs an engine running on the given pool.
+     *
+     * @param pool                the pool to run the tasks on.
+     * @param sequentialThreshold number of stars under which the work is not split.
+     * @throws NullPointerException     if the pool is null.
+     * @throws IllegalArgumentException if the threshold is not strictly positive.
+     */
+    public StarProjectionEngine(ForkJoinPool pool, int sequentialThreshold) {
+        Preconditions.checkArgument(sequentialThreshold > 0);
+        this.pool = Objects.requireNonNull(pool);
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Returns the number of stars under which the work is not split.
+     *
+     * @return the sequential threshold.
+     */
+    public int sequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    /**
+     * Applies the given action on every index of [0, size[, split in contiguous chunks.
+     * Returns once all chunks have been handled.
+     *
+     * @param size   number of indices.
+     * @param action action to apply on each chunk.
+     */
+    void forEachChunk(int size, RangeAction action) {
+        if (size < sequentialThreshold || pool.getParallelism() <= 1) {
+            action.apply(0, size);
+        } else if (ForkJoinTask.getPool() == pool) {
+            // Already running inside the pool: join directly to avoid a blocked worker.
+            new ChunkTask(action, 0, size).invoke();
+        } else {
+            pool.invoke(new ChunkTask(action, 0, size));
+        }
+    }
+
+    /**
+     * Action applied to a contiguous range of star indices.
+     */
+    @FunctionalInterface
+    interface RangeAction {
+        /**
+         * Applies the action to the indices of [from, to[.
+         *
+         * @param from first index (included).
+         * @param to   last index (excluded).
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Task splitting its range in halves until it reaches the chunk size.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(RangeAction action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                action.apply(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(action, from, middle), new ChunkTask(action, middle, to));
+            }
+        }
+    }
+}
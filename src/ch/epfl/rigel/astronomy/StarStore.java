@@ -0,0 +1,488 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Columnar (structure of arrays) storage of the stars of a catalogue.
+ * Every attribute of the stars is kept in its own primitive array, the star
+ * of index i being described by the i-th element of each column. The right ascension and
+ * declination share a column, in pairs, as they are always read together. Names are interned
+ * in a separate table as many of them are shared (e.g. "? Ori").
+ * The stars keep the order of the catalogue, their order by increasing magnitude being stored
+ * as a permutation so that the brightest stars are a prefix of it.
+ * Intended to be iterated directly by the hot loops projecting and drawing the sky.
+ * <p>
+ * The store is the only storage of the stars of a catalogue: the {@link Star} objects are created from the columns
+ * on first access, then kept so that the same star is always returned for an index, except for the stars given as
+ * objects to the builder, which are kept from the start.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class StarStore {
+
+    private final double[] raDec;
+    private final float[] magnitude;
+    private final int[] colorTemperature;
+    private final int[] hipparcosId;
+    private final int[] nameIndex;
+    private final String[] names;
+    //Indices of the stars by increasing magnitude, and the corresponding magnitudes.
+    private final int[] magnitudeOrder;
+    private final float[] sortedMagnitudes;
+    //Stars created from the columns so far, null for the others.
+    private final AtomicReferenceArray<Star> stars;
+
+    /**
+     * Constructs a store from the given columns. The columns are not copied,
+     * only the builder is meant to call it.
+     */
+    private StarStore(double[] raDec, float[] magnitude, int[] colorTemperature,
+                      int[] hipparcosId, int[] nameIndex, String[] names, Star[] stars) {
+        this.stars = stars == null ? new AtomicReferenceArray<Star>(magnitude.length) : new AtomicReferenceArray<Star>(stars);
+        this.raDec = raDec;
+        this.magnitude = magnitude;
+        this.colorTemperature = colorTemperature;
+        this.hipparcosId = hipparcosId;
+        this.nameIndex = nameIndex;
+        this.names = names;
+
+        //Sorts (magnitude, index) keys, the float bits being made comparable as integers.
+        long[] keys = new long[magnitude.length];
+        for (int i = 0; i < magnitude.length; i++) {
+            int bits = Float.floatToIntBits(magnitude[i]);
+            keys[i] = ((long) (bits < 0 ? bits ^ Integer.MAX_VALUE : bits) << 32) | i;
+        }
+        Arrays.sort(keys);
+        this.magnitudeOrder = new int[magnitude.length];
+        this.sortedMagnitudes = new float[magnitude.length];
+        for (int k = 0; k < keys.length; k++) {
+            this.magnitudeOrder[k] = (int) keys[k];
+            this.sortedMagnitudes[k] = magnitude[magnitudeOrder[k]];
+        }
+    }
+
+    /**
+     * Builds a store containing the given stars, in the same order, the stars being kept to be returned by
+     * {@link #star(int)}.
+     *
+     * @param stars the stars to store.
+     * @return a store containing the given stars.
+     * @throws NullPointerException if the list or one of the stars is null.
+     */
+    static StarStore of(List<Star> stars) {
+        Builder builder = new Builder(stars.size());
+        for (Star s : stars) {
+            builder.add(s);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of stars in the store.
+     *
+     * @return the number of stars in the store.
+     */
+    public int size() {
+        return magnitude.length;
+    }
+
+    /**
+     * Returns the right ascension in radians of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the right ascension in radians.
+     */
+    public double ra(int index) {
+        return raDec[2 * index];
+    }
+
+    /**
+     * Returns the declination in radians of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the declination in radians.
+     */
+    public double dec(int index) {
+        return raDec[2 * index + 1];
+    }
+
+    /**
+     * Returns the equatorial positions of the stars, in pairs (right ascension, declination).
+     * The array is not copied and must not be modified.
+     *
+     * @return the equatorial positions of the stars.
+     */
+    double[] raDecArray() {
+        return raDec;
+    }
+
+    /**
+     * Returns the magnitude of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the magnitude of the star.
+     */
+    public float magnitude(int index) {
+        return magnitude[index];
+    }
+
+    /**
+     * Returns the index of the star of the given rank by increasing magnitude, i.e. the index
+     * of the brightest star for the rank 0.
+     *
+     * @param rank rank of the star by increasing magnitude.
+     * @return the index of the star.
+     */
+    public int byMagnitude(int rank) {
+        return magnitudeOrder[rank];
+    }
+
+    /**
+     * Returns the number of stars whose magnitude is at most the given limiting magnitude,
+     * i.e. the length of the prefix of the magnitude order containing these stars.
+     *
+     * @param limitingMagnitude the limiting magnitude.
+     * @return the number of stars at least as bright as the limiting magnitude.
+     */
+    public int countBrighterThan(double limitingMagnitude) {
+        int low = 0;
+        int high = sortedMagnitudes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedMagnitudes[middle] <= limitingMagnitude) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the indices of the stars by increasing magnitude.
+     * The array is not copied and must not be modified.
+     *
+     * @return the indices of the stars by increasing magnitude.
+     */
+    int[] magnitudeOrderArray() {
+        return magnitudeOrder;
+    }
+
+    /**
+     * Returns the color temperature in kelvins of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the color temperature of the star.
+     */
+    public int colorTemperature(int index) {
+        return colorTemperature[index];
+    }
+
+    /**
+     * Returns the hipparcos id of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the hipparcos id of the star.
+     */
+    public int hipparcosId(int index) {
+        return hipparcosId[index];
+    }
+
+    /**
+     * Returns the name of the star of the given index.
+     *
+     * @param index index of the star.
+     * @return the name of the star.
+     */
+    public String name(int index) {
+        return names[nameIndex[index]];
+    }
+
+    /**
+     * Returns the star of the given index, created from the columns on first access.
+     * Safe to call from several threads, the same star being always returned.
+     *
+     * @param index index of the star.
+     * @return the star.
+     */
+    Star star(int index) {
+        Star star = stars.get(index);
+        if (star == null) {
+            Star created = new Star(hipparcosId[index], name(index), EquatorialCoordinates.of(ra(index), dec(index)),
+                    magnitude[index], colorTemperature[index]);
+            star = stars.compareAndExchange(index, null, created);
+            if (star == null) {
+                star = created;
+            }
+        }
+        return star;
+    }
+
+    /**
+     * Builder accumulating the stars column by column in growable arrays.
+     * Intended to be used by the catalogue and its loaders only, the loaders filling the columns
+     * without creating the stars.
+     */
+    static final class Builder {
+        private static final int DEFAULT_CAPACITY = 1024;
+
+        private double[] raDec;
+        private float[] magnitude;
+        private int[] colorTemperature;
+        private int[] hipparcosId;
+        private int[] nameIndex;
+        private final Map<String, Integer> nameTable = new HashMap<String, Integer>();
+        private final List<String> nameList = new ArrayList<String>();
+        //Stars given as objects or already created, allocated on first need.
+        private Star[] stars;
+        private int size = 0;
+
+        /**
+         * Constructs an empty builder with a default capacity.
+         */
+        Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /**
+         * Constructs an empty builder able to hold the given number of stars without growing.
+         *
+         * @param capacity initial capacity.
+         */
+        Builder(int capacity) {
+            Preconditions.checkArgument(capacity >= 0);
+            this.raDec = new double[2 * capacity];
+            this.magnitude = new float[capacity];
+            this.colorTemperature = new int[capacity];
+            this.hipparcosId = new int[capacity];
+            this.nameIndex = new int[capacity];
+        }
+
+        /**
+         * Adds a star to the store.
+         *
+         * @param star star to be added.
+         * @return the builder instance.
+         */
+        Builder add(Star star) {
+            ensureCapacity(size + 1);
+            if (stars == null) {
+                stars = new Star[magnitude.length];
+            }
+            stars[size] = star;
+            return add(star.hipparcosId(), intern(star.name()), star.equatorialPos().ra(),
+                    star.equatorialPos().dec(), (float) star.magnitude(), star.colorTemperature());
+        }
+
+        /**
+         * Adds a star to the store from its values, without creating it.
+         *
+         * @param hipparcosId hipparcos id, 0 if unknown.
+         * @param name        name of the star.
+         * @param ra          right ascension in radians.
+         * @param dec         declination in radians.
+         * @param magnitude   magnitude of the star.
+         * @param colorIndex  color index of the star.
+         * @return the builder instance.
+         * @throws IllegalArgumentException if the values are not those of a valid star.
+         * @throws NullPointerException     if the name is null.
+         */
+        Builder add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            Preconditions.checkArgument(hipparcosId >= 0
+                    && EquatorialCoordinates.isValidRa(ra) && EquatorialCoordinates.isValidDec(dec));
+            int temperature = Star.temperatureForColorIndex(colorIndex);
+            ensureCapacity(size + 1);
+            return add(hipparcosId, intern(name), ra, dec, magnitude, temperature);
+        }
+
+        /**
+         * Adds the stars of the given columns, in order, without creating them. The names are given as a table
+         * of distinct names, interned once each, and the index of its name in the table for each star.
+         * Nothing is added if one of the stars is not valid.
+         *
+         * @param raDec        right ascensions and declinations of the stars, in pairs, in radians.
+         * @param hipparcosIds hipparcos ids of the stars, 0 if unknown.
+         * @param nameIndices  indices of the names of the stars in the names table.
+         * @param names        names table.
+         * @param magnitudes   magnitudes of the stars.
+         * @param colorIndices color indices of the stars.
+         * @return the builder instance.
+         * @throws IllegalArgumentException  if the columns have not the same number of stars or if the values
+         *                                   are not those of valid stars.
+         * @throws IndexOutOfBoundsException if a name index is not in the names table.
+         * @throws NullPointerException      if a column or a name is null.
+         */
+        Builder addAll(double[] raDec, int[] hipparcosIds, int[] nameIndices, String[] names, float[] magnitudes,
+                       float[] colorIndices) {
+            int count = hipparcosIds.length;
+            Preconditions.checkArgument(raDec.length == 2 * count && nameIndices.length == count
+                    && magnitudes.length == count && colorIndices.length == count);
+            ensureCapacity(size + count);
+            //Indices in this names table of the names of the given table.
+            int[] interned = new int[names.length];
+            for (int n = 0; n < names.length; n++) {
+                interned[n] = intern(names[n]);
+            }
+            //Written after the stars added so far, which only include them once all are valid.
+            for (int i = 0; i < count; i++) {
+                double ra = raDec[2 * i];
+                double dec = raDec[2 * i + 1];
+                Preconditions.checkArgument(hipparcosIds[i] >= 0
+                        && EquatorialCoordinates.isValidRa(ra) && EquatorialCoordinates.isValidDec(dec));
+                this.colorTemperature[size + i] = Star.temperatureForColorIndex(colorIndices[i]);
+                this.nameIndex[size + i] = interned[Objects.checkIndex(nameIndices[i], names.length)];
+            }
+            System.arraycopy(raDec, 0, this.raDec, 2 * size, 2 * count);
+            System.arraycopy(magnitudes, 0, this.magnitude, size, count);
+            System.arraycopy(hipparcosIds, 0, this.hipparcosId, size, count);
+            size += count;
+            return this;
+        }
+
+        /**
+         * Adds the stars of the given builder, in order, after the stars of this one.
+         *
+         * @param other the builder of the stars to add.
+         * @return the builder instance.
+         */
+        Builder addAll(Builder other) {
+            ensureCapacity(size + other.size);
+            //Indices in this names table of the names of the other builder.
+            int[] names = new int[other.nameList.size()];
+            for (int n = 0; n < names.length; n++) {
+                names[n] = intern(other.nameList.get(n));
+            }
+            for (int i = 0; i < other.size; i++) {
+                nameIndex[size + i] = names[other.nameIndex[i]];
+            }
+            System.arraycopy(other.raDec, 0, raDec, 2 * size, 2 * other.size);
+            System.arraycopy(other.magnitude, 0, magnitude, size, other.size);
+            System.arraycopy(other.colorTemperature, 0, colorTemperature, size, other.size);
+            System.arraycopy(other.hipparcosId, 0, hipparcosId, size, other.size);
+            if (other.stars != null) {
+                if (stars == null) {
+                    stars = new Star[magnitude.length];
+                }
+                System.arraycopy(other.stars, 0, stars, size, other.size);
+            }
+            size += other.size;
+            return this;
+        }
+
+        /**
+         * Writes the values of a star at the end of the columns, which must be large enough.
+         */
+        private Builder add(int hipparcosId, int nameIndex, double ra, double dec, float magnitude,
+                            int colorTemperature) {
+            this.raDec[2 * size] = ra;
+            this.raDec[2 * size + 1] = dec;
+            this.magnitude[size] = magnitude;
+            this.colorTemperature[size] = colorTemperature;
+            this.hipparcosId[size] = hipparcosId;
+            this.nameIndex[size] = nameIndex;
+            size++;
+            return this;
+        }
+
+        /**
+         * Returns the star of the given index, created from the columns on first access.
+         *
+         * @param index index of the star.
+         * @return the star.
+         * @throws IndexOutOfBoundsException if the index is not in [0, size()[.
+         */
+        Star star(int index) {
+            Objects.checkIndex(index, size);
+            if (stars == null) {
+                stars = new Star[magnitude.length];
+            }
+            if (stars[index] == null) {
+                stars[index] = new Star(hipparcosId[index], nameList.get(nameIndex[index]),
+                        EquatorialCoordinates.of(raDec[2 * index], raDec[2 * index + 1]), magnitude[index],
+                        colorTemperature[index]);
+            }
+            return stars[index];
+        }
+
+        /**
+         * Returns the number of stars added so far.
+         *
+         * @return the number of stars added so far.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the hipparcos id of the star of the given index.
+         *
+         * @param index index of the star.
+         * @return the hipparcos id of the star.
+         * @throws IndexOutOfBoundsException if the index is not in [0, size()[.
+         */
+        int hipparcosId(int index) {
+            return hipparcosId[Objects.checkIndex(index, size)];
+        }
+
+        /**
+         * Builds the store. The builder should not be used afterwards.
+         *
+         * @return the store.
+         */
+        StarStore build() {
+            return new StarStore(
+                    Arrays.copyOf(raDec, 2 * size),
+                    Arrays.copyOf(magnitude, size),
+                    Arrays.copyOf(colorTemperature, size),
+                    Arrays.copyOf(hipparcosId, size),
+                    Arrays.copyOf(nameIndex, size),
+                    nameList.toArray(new String[0]),
+                    stars == null ? null : Arrays.copyOf(stars, size)
+            );
+        }
+
+
+        /**
+         * Returns the index of the name in the names table, adding it if needed.
+         *
+         * @param name name to intern.
+         * @return index of the name in the names table.
+         */
+        private int intern(String name) {
+            Objects.requireNonNull(name);
+            Integer index = nameTable.putIfAbsent(name, nameTable.size());
+            if (index == null) {
+                nameList.add(name);
+                return nameList.size() - 1;
+            }
+            return index;
+        }
+
+        /**
+         * Grows the columns so that they can hold at least the given number of stars.
+         *
+         * @param capacity minimal capacity.
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity <= magnitude.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, 2 * magnitude.length);
+            raDec = Arrays.copyOf(raDec, 2 * newCapacity);
+            magnitude = Arrays.copyOf(magnitude, newCapacity);
+            colorTemperature = Arrays.copyOf(colorTemperature, newCapacity);
+            hipparcosId = Arrays.copyOf(hipparcosId, newCapacity);
+            nameIndex = Arrays.copyOf(nameIndex, newCapacity);
+            if (stars != null) {
+                stars = Arrays.copyOf(stars, newCapacity);
+            }
+        }
+    }
+}
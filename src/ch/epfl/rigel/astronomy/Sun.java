@@ -13,6 +13,8 @@ import java.util.Objects;
  */
 public final class Sun extends CelestialObject {
 
+    //Magnitude of the Sun, the same at any time.
+    static final float MAGNITUDE = -26.7f;
     private final EclipticCoordinates eclipticPos;
     private final float meanAnomaly;
 
@@ -27,7 +29,7 @@ public final class Sun extends CelestialObject {
      * @throws IllegalArgumentException if the angular size is inferior to 0.
      */
     public Sun(EclipticCoordinates eclipticPos, EquatorialCoordinates equatorialPos, float angularSize, float meanAnomaly) {
-        super("Soleil", equatorialPos, angularSize, -26.7f);
+        super("Soleil", equatorialPos, angularSize, MAGNITUDE);
         this.eclipticPos = Objects.requireNonNull(eclipticPos);
         this.meanAnomaly = meanAnomaly;
     }
@@ -18,6 +18,8 @@ public enum SunModel implements CelestialObjectModel<Sun>{
     private final double LON_PERIGEE = Angle.ofDeg(283.112438);
     private final double ECCENTRICITY = 0.016705;
     public static final double SPEED = Angle.TAU/365.242191;
+    //Number of values computed by eclipticState.
+    static final int STATE_SIZE = 4;
     private final double THETA_0 = Angle.ofDeg(0.533128);
 
     @Override
@@ -28,6 +30,22 @@ public enum SunModel implements CelestialObjectModel<Sun>{
      * @return a Sun instance with corresponding position and other attributes for the given inputs.
      */
     public Sun at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
+        double[] state = new double[STATE_SIZE];
+        this.eclipticState(daysSinceJ2010, state);
+
+        EclipticCoordinates eclipticPos = EclipticCoordinates.of(state[0], state[1]);
+        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclipticPos);
+
+        return new Sun(eclipticPos, equatorialPos, (float) state[2], (float) state[3]);
+    }
+
+    /**
+     * Computes the ecliptic longitude and latitude, the angular size and the mean anomaly of the Sun at a given date,
+     * in this order, without allocating anything. Shared by {@link #at} and {@link BatchEphemeris}.
+     * @param daysSinceJ2010 time difference for the given date. ( can be negative )
+     * @param state array of at least {@link #STATE_SIZE} elements receiving the state.
+     */
+    void eclipticState(double daysSinceJ2010, double[] state) {
         double meanAnomaly = (SPEED) * daysSinceJ2010 + LON_J2010 - LON_PERIGEE;
         meanAnomaly = Angle.normalizePositive(meanAnomaly);
         double trueAnomaly = meanAnomaly + 2 * ECCENTRICITY * Math.sin(meanAnomaly);
@@ -36,9 +54,9 @@ public enum SunModel implements CelestialObjectModel<Sun>{
         double lonEcliptic = Angle.normalizePositive(trueAnomaly + LON_PERIGEE);
         double angularSize = THETA_0 * ((1 + ECCENTRICITY * Math.cos(trueAnomaly)) / (1 - ECCENTRICITY * ECCENTRICITY));
 
-        EclipticCoordinates eclipticPos = EclipticCoordinates.of(lonEcliptic, 0);
-        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclipticPos);
-
-        return new Sun(eclipticPos, equatorialPos, (float) angularSize, (float) meanAnomaly);
+        state[0] = lonEcliptic;
+        state[1] = 0;
+        state[2] = angularSize;
+        state[3] = meanAnomaly;
     }
 }
@@ -17,7 +17,7 @@ import static ch.epfl.rigel.astronomy.Epoch.J2000;
  */
 public final class EclipticToEquatorialConversion implements Function<EclipticCoordinates, EquatorialCoordinates> {
 
-    private final Polynomial EPSI = Polynomial.of(
+    private final static Polynomial EPSI = Polynomial.of(
             Angle.ofArcsec(0.00181),
             -Angle.ofArcsec(0.0006),
             -Angle.ofArcsec(46.815),
@@ -32,12 +32,86 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
      * @param when time zone time used to be converted.
      */
     public EclipticToEquatorialConversion(ZonedDateTime when) {
-        double time = J2000.julianCenturiesUntil(when);
-        double epsi_at = EPSI.at(time);
+        this(J2000.julianCenturiesUntil(when));
+    }
+
+    private EclipticToEquatorialConversion(double julianCenturiesSinceJ2000) {
+        double epsi_at = obliquity(julianCenturiesSinceJ2000);
         cosEpsi = Math.cos(epsi_at);
         sinEpsi = Math.sin(epsi_at);
     }
 
+    /**
+     * Returns the conversion at the given time, given as a number of Julian centuries since J2000 instead of a date.
+     *
+     * @param julianCenturiesSinceJ2000 time difference from J2000 in Julian centuries.
+     * @return the conversion at the given time.
+     */
+    public static EclipticToEquatorialConversion ofJulianCenturies(double julianCenturiesSinceJ2000) {
+        return new EclipticToEquatorialConversion(julianCenturiesSinceJ2000);
+    }
+
+    /**
+     * Computes the obliquity of the ecliptic, the angle between the ecliptic and the equator.
+     *
+     * @param julianCenturiesSinceJ2000 time difference from J2000 in Julian centuries.
+     * @return the obliquity of the ecliptic in radians.
+     */
+    public static double obliquity(double julianCenturiesSinceJ2000) {
+        return EPSI.at(julianCenturiesSinceJ2000);
+    }
+
+    /**
+     * Computes the right ascension of the given ecliptic coordinates, without allocating any coordinates.
+     * Same as the right ascension of {@link #apply(EclipticCoordinates)} with the given obliquity.
+     *
+     * @param lon           ecliptic longitude in radians.
+     * @param lat           ecliptic latitude in radians.
+     * @param cosObliquity  cosine of the obliquity of the ecliptic.
+     * @param sinObliquity  sine of the obliquity of the ecliptic.
+     * @return the right ascension in radians, in [0, 2 Pi[.
+     */
+    public static double ra(double lon, double lat, double cosObliquity, double sinObliquity) {
+        double alpha = Math.atan2(
+                Math.sin(lon) * cosObliquity - Math.tan(lat) * sinObliquity,
+                Math.cos(lon)
+        );
+        return Angle.normalizePositive(alpha);
+    }
+
+    /**
+     * Computes the declination of the given ecliptic coordinates, without allocating any coordinates.
+     * Same as the declination of {@link #apply(EclipticCoordinates)} with the given obliquity.
+     *
+     * @param lon           ecliptic longitude in radians.
+     * @param lat           ecliptic latitude in radians.
+     * @param cosObliquity  cosine of the obliquity of the ecliptic.
+     * @param sinObliquity  sine of the obliquity of the ecliptic.
+     * @return the declination in radians.
+     */
+    public static double dec(double lon, double lat, double cosObliquity, double sinObliquity) {
+        double delta = Math.asin(Math.sin(lat) * cosObliquity + Math.cos(lat) * sinObliquity * Math.sin(lon));
+        return DEC_INTERVAL.reduce(delta);
+    }
+
+    /**
+     * Computes the ecliptic longitude of the given equatorial coordinates, the inverse of {@link #ra} and
+     * {@link #dec} for the longitude. Used to compare the longitudes of the objects, e.g. for oppositions.
+     *
+     * @param ra            right ascension in radians.
+     * @param dec           declination in radians.
+     * @param cosObliquity  cosine of the obliquity of the ecliptic.
+     * @param sinObliquity  sine of the obliquity of the ecliptic.
+     * @return the ecliptic longitude in radians, in [0, 2 Pi[.
+     */
+    public static double lon(double ra, double dec, double cosObliquity, double sinObliquity) {
+        double lambda = Math.atan2(
+                Math.sin(ra) * cosObliquity + Math.tan(dec) * sinObliquity,
+                Math.cos(ra)
+        );
+        return Angle.normalizePositive(lambda);
+    }
+
     /**
      * Returns the input in equatorial coordinates
      *
@@ -48,15 +122,7 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
     public EquatorialCoordinates apply(EclipticCoordinates eclipticCoordinates) {
         double lambda = eclipticCoordinates.lon();
         double beta = eclipticCoordinates.lat();
-        double sinLambda = Math.sin(lambda);
-        double alpha = Math.atan2(
-                sinLambda * cosEpsi - Math.tan(beta) * sinEpsi,
-                Math.cos(lambda)
-        );
-
-        double delta = Math.asin(Math.sin(beta) * cosEpsi + Math.cos(beta) * sinEpsi * sinLambda);
-
-        return EquatorialCoordinates.of(Angle.normalizePositive(alpha), DEC_INTERVAL.reduce(delta));
+        return EquatorialCoordinates.of(ra(lambda, beta, cosEpsi, sinEpsi), dec(lambda, beta, cosEpsi, sinEpsi));
     }
 
     /**
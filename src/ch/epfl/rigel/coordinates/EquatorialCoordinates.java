@@ -38,6 +38,28 @@ public final class EquatorialCoordinates extends SphericalCoordinates {
         );
     }
 
+    /**
+     * Check if given right ascension
+     * is valid according to the equatorial coordinates system.
+     *
+     * @param ra right ascension input in radians.
+     * @return true if valid
+     */
+    public static boolean isValidRa(double ra) {
+        return RA_INTERVAL.contains(ra);
+    }
+
+    /**
+     * Check if given declination
+     * is valid according to the equatorial coordinates system.
+     *
+     * @param dec declination input in radians.
+     * @return true if valid
+     */
+    public static boolean isValidDec(double dec) {
+        return DEC_INTERVAL.contains(dec);
+    }
+
     /**
      * Returns the right ascension (ra) in radian degrees.
      *
@@ -83,6 +105,35 @@ public final class EquatorialCoordinates extends SphericalCoordinates {
         return super.latDeg();
     }
 
+    /**
+     * Calculates the angular distance in Rad between two Equatorial Coordinates objects.
+     * See {@link #angularDistance(double, double, double, double)}.
+     *
+     * @param a the first position.
+     * @param b the second position.
+     * @return the angular distance in radians, in [0, PI].
+     */
+    public static double angularDistance(EquatorialCoordinates a, EquatorialCoordinates b) {
+        return angularDistance(a.ra(), a.dec(), b.ra(), b.dec());
+    }
+
+    /**
+     * Calculates the angular distance in Rad between the given positions with the haversine formula,
+     * accurate for small distances too, e.g. conjunctions. No coordinates are allocated.
+     *
+     * @param ra1  right ascension of the first position, in radians.
+     * @param dec1 declination of the first position, in radians.
+     * @param ra2  right ascension of the second position, in radians.
+     * @param dec2 declination of the second position, in radians.
+     * @return the angular distance in radians, in [0, PI].
+     */
+    public static double angularDistance(double ra1, double dec1, double ra2, double dec2) {
+        double sinDec = Math.sin((dec2 - dec1) / 2);
+        double sinRa = Math.sin((ra2 - ra1) / 2);
+        double h = sinDec * sinDec + Math.cos(dec1) * Math.cos(dec2) * sinRa * sinRa;
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
     /**
      * @see Object#toString()
      */
@@ -0,0 +1,257 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.Preconditions;
+
+/**
+ * Fused projection from equatorial coordinates straight to canvas coordinates.
+ * Combines in a single pass the equatorial to horizontal conversion, the stereographic projection
+ * and an affine plane to canvas transform, working on arrays of primitive values only.
+ * The horizontal position is kept as a unit vector instead of an (azimuth, altitude) pair,
+ * which avoids the inverse trigonometric functions and all intermediate objects.
+ * These horizontal vectors, stored in triples (north, east, up), can be kept by the caller:
+ * they only depend on the time and the observer location, so they can be projected again
+ * for another center of projection without redoing the conversion.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class EquatorialToCanvasProjection {
+
+    private final double localTime;
+    private final double sinPhi;
+    private final double cosPhi;
+    private final double sinCenterAz;
+    private final double cosCenterAz;
+    private final double sinCenterAlt;
+    private final double cosCenterAlt;
+    private final double mxx;
+    private final double mxy;
+    private final double tx;
+    private final double myx;
+    private final double myy;
+    private final double ty;
+
+    /**
+     * Constructs the fused projection, the canvas being the projection plane itself.
+     *
+     * @param conversion conversion from equatorial to horizontal coordinates.
+     * @param projection stereographic projection of the horizontal coordinates.
+     */
+    public EquatorialToCanvasProjection(EquatorialToHorizontalConversion conversion, StereographicProjection projection) {
+        this(conversion, projection, 1, 0, 0, 0, 1, 0);
+    }
+
+    /**
+     * Constructs the fused projection for the given plane to canvas affine transform, defined as
+     * x' = mxx * x + mxy * y + tx and y' = myx * x + myy * y + ty.
+     *
+     * @param conversion conversion from equatorial to horizontal coordinates.
+     * @param projection stereographic projection of the horizontal coordinates.
+     * @param mxx        X coordinate scaling element of the transform.
+     * @param mxy        XY coordinate element of the transform.
+     * @param tx         X coordinate translation element of the transform.
+     * @param myx        YX coordinate element of the transform.
+     * @param myy        Y coordinate scaling element of the transform.
+     * @param ty         Y coordinate translation element of the transform.
+     */
+    public EquatorialToCanvasProjection(EquatorialToHorizontalConversion conversion, StereographicProjection projection,
+                                        double mxx, double mxy, double tx, double myx, double myy, double ty) {
+        this.localTime = conversion.localSiderealTime();
+        this.sinPhi = conversion.sinLatitude();
+        this.cosPhi = conversion.cosLatitude();
+        this.sinCenterAz = Math.sin(projection.centerAz());
+        this.cosCenterAz = Math.cos(projection.centerAz());
+        this.sinCenterAlt = projection.sinCenterAlt();
+        this.cosCenterAlt = projection.cosCenterAlt();
+        this.mxx = mxx;
+        this.mxy = mxy;
+        this.tx = tx;
+        this.myx = myx;
+        this.myy = myy;
+        this.ty = ty;
+    }
+
+    /**
+     * Projects all the given equatorial positions, in pairs (right ascension, declination),
+     * to canvas positions, in pairs (x, y).
+     *
+     * @param raDec equatorial positions to project.
+     * @param outXY array receiving the canvas positions, at the same indices as the input.
+     * @throws IllegalArgumentException if the input length is odd or the output is smaller than the input.
+     */
+    public void applyAll(double[] raDec, double[] outXY) {
+        Preconditions.checkArgument(raDec.length % 2 == 0);
+        this.applyAll(raDec, outXY, 0, raDec.length / 2);
+    }
+
+    /**
+     * Projects the equatorial positions of index [from, to[ to canvas positions.
+     * The position of index i is stored at raDec[2i] and raDec[2i + 1].
+     *
+     * @param raDec equatorial positions to project.
+     * @param outXY array receiving the canvas positions, at the same indices as the input.
+     * @param from  index of the first position to project (included).
+     * @param to    index of the last position to project (excluded).
+     * @throws IllegalArgumentException if the range is not contained in both arrays.
+     */
+    public void applyAll(double[] raDec, double[] outXY, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to
+                && 2 * to <= raDec.length && 2 * to <= outXY.length);
+        for (int i = from; i < to; i++) {
+            this.project(raDec[2 * i], raDec[2 * i + 1], outXY, 2 * i, null, 0);
+        }
+    }
+
+    /**
+     * Projects the equatorial positions of index [from, to[ to canvas positions, also storing their
+     * horizontal unit vectors, in triples (north, east, up), to be projected again later on.
+     *
+     * @param raDec         equatorial positions to project.
+     * @param outXY         array receiving the canvas positions, at the same indices as the input.
+     * @param outHorizontal array receiving the horizontal vectors, the vector of index i being stored at [3i, 3i + 3[.
+     * @param from          index of the first position to project (included).
+     * @param to            index of the last position to project (excluded).
+     * @throws IllegalArgumentException if the range is not contained in the arrays.
+     */
+    public void applyAll(double[] raDec, double[] outXY, double[] outHorizontal, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to
+                && 2 * to <= raDec.length && 2 * to <= outXY.length && 3 * to <= outHorizontal.length);
+        for (int i = from; i < to; i++) {
+            this.project(raDec[2 * i], raDec[2 * i + 1], outXY, 2 * i, outHorizontal, 3 * i);
+        }
+    }
+
+    /**
+     * Projects the horizontal unit vectors of index [from, to[, in triples (north, east, up) as computed by
+     * {@link #applyAll(double[], double[], double[], int, int)}, to canvas positions. Only the stereographic
+     * projection and the affine transform are applied, the conversion of this instance being ignored.
+     *
+     * @param horizontal horizontal vectors to project.
+     * @param outXY      array receiving the canvas positions.
+     * @param from       index of the first vector to project (included).
+     * @param to         index of the last vector to project (excluded).
+     * @throws IllegalArgumentException if the range is not contained in both arrays.
+     */
+    public void applyAllHorizontal(double[] horizontal, double[] outXY, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to
+                && 3 * to <= horizontal.length && 2 * to <= outXY.length);
+        for (int i = from; i < to; i++) {
+            this.projectHorizontal(horizontal[3 * i], horizontal[3 * i + 1], horizontal[3 * i + 2], outXY, 2 * i);
+        }
+    }
+
+    /**
+     * Computes the horizontal unit vectors, in triples (north, east, up), of the equatorial positions whose
+     * indices are stored in indices[from, to[, without projecting them.
+     *
+     * @param raDec         equatorial positions to convert.
+     * @param outHorizontal array receiving the horizontal vectors, the vector of index i being stored at [3i, 3i + 3[.
+     * @param indices       indices of the positions to convert.
+     * @param from          index of the first index to use (included).
+     * @param to            index of the last index to use (excluded).
+     */
+    public void horizontalVectors(double[] raDec, double[] outHorizontal, int[] indices, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to && to <= indices.length);
+        for (int k = from; k < to; k++) {
+            int i = indices[k];
+            double hourAngle = localTime - raDec[2 * i];
+            double sinDelta = Math.sin(raDec[2 * i + 1]);
+            double cosDelta = Math.cos(raDec[2 * i + 1]);
+            double cosDeltaCosH = cosDelta * Math.cos(hourAngle);
+
+            outHorizontal[3 * i] = cosPhi * sinDelta - sinPhi * cosDeltaCosH;
+            outHorizontal[3 * i + 1] = -cosDelta * Math.sin(hourAngle);
+            outHorizontal[3 * i + 2] = sinPhi * sinDelta + cosPhi * cosDeltaCosH;
+        }
+    }
+
+    /**
+     * Projects the horizontal unit vectors whose indices are stored in indices[from, to[ to canvas positions,
+     * the other positions being left untouched.
+     *
+     * @param horizontal horizontal vectors to project.
+     * @param outXY      array receiving the canvas positions.
+     * @param indices    indices of the vectors to project.
+     * @param from       index of the first index to use (included).
+     * @param to         index of the last index to use (excluded).
+     */
+    public void applyAllHorizontal(double[] horizontal, double[] outXY, int[] indices, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to && to <= indices.length);
+        for (int k = from; k < to; k++) {
+            int i = indices[k];
+            this.projectHorizontal(horizontal[3 * i], horizontal[3 * i + 1], horizontal[3 * i + 2], outXY, 2 * i);
+        }
+    }
+
+    /**
+     * Projects a single equatorial position.
+     *
+     * @param ra                  right ascension in radians.
+     * @param dec                 declination in radians.
+     * @param outXY               array receiving the canvas position.
+     * @param offsetXY            index of x in the canvas positions.
+     * @param outHorizontal       array receiving the horizontal vector, can be null.
+     * @param offsetHorizontal    index of the north component in the horizontal vectors.
+     */
+    private void project(double ra, double dec, double[] outXY, int offsetXY, double[] outHorizontal, int offsetHorizontal) {
+        double hourAngle = localTime - ra;
+        double sinDelta = Math.sin(dec);
+        double cosDelta = Math.cos(dec);
+        double cosDeltaCosH = cosDelta * Math.cos(hourAngle);
+
+        //Horizontal unit vector: north, east and up components.
+        double north = cosPhi * sinDelta - sinPhi * cosDeltaCosH;
+        double east = -cosDelta * Math.sin(hourAngle);
+        double up = sinPhi * sinDelta + cosPhi * cosDeltaCosH;
+
+        if (outHorizontal != null) {
+            outHorizontal[offsetHorizontal] = north;
+            outHorizontal[offsetHorizontal + 1] = east;
+            outHorizontal[offsetHorizontal + 2] = up;
+        }
+        this.projectHorizontal(north, east, up, outXY, offsetXY);
+    }
+
+    /**
+     * Projects a single horizontal unit vector.
+     *
+     * @param north  north component of the vector, i.e. cos(alt) * cos(az).
+     * @param east   east component of the vector, i.e. cos(alt) * sin(az).
+     * @param up     up component of the vector, i.e. sin(alt).
+     * @param outXY  array receiving the canvas position.
+     * @param offset index of x in the canvas positions.
+     */
+    private void projectHorizontal(double north, double east, double up, double[] outXY, int offset) {
+        //cos(alt) * cos(az - az0) and cos(alt) * sin(az - az0).
+        double cosAltCosDAz = north * cosCenterAz + east * sinCenterAz;
+        double cosAltSinDAz = east * cosCenterAz - north * sinCenterAz;
+
+        double d = 1 / (1 + up * sinCenterAlt + cosAltCosDAz * cosCenterAlt);
+        double x = d * cosAltSinDAz;
+        double y = d * (up * cosCenterAlt - cosAltCosDAz * sinCenterAlt);
+
+        outXY[offset] = mxx * x + mxy * y + tx;
+        outXY[offset + 1] = myx * x + myy * y + ty;
+    }
+
+    /**
+     * Not intended to be used. Will throw an exception.
+     *
+     * @param o object to be compared with.
+     * @throws UnsupportedOperationException
+     */
+    @Override
+    public boolean equals(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not intended to be used. Will throw an exception.
+     *
+     * @throws UnsupportedOperationException
+     */
+    @Override
+    public int hashCode() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -1,5 +1,6 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.astronomy.SiderealTime;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.RightOpenInterval;
@@ -44,24 +45,141 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
      */
     @Override
     public HorizontalCoordinates apply(EquatorialCoordinates equ) {
-        double delta = equ.dec();
         //As seen from the book page 24 to find the hour angle.
         double hourAngle = Angle.normalizePositive(this.localTime - equ.ra());
+        double sinDelta = Math.sin(equ.dec());
+        double cosDelta = Math.cos(equ.dec());
+        double alt = this.altitude(sinDelta, cosDelta, hourAngle);
 
-        double cosAngleHour = Math.cos(hourAngle);
-        double sinAngleHour = Math.sin(hourAngle);
+        return HorizontalCoordinates.of(this.azimuth(sinDelta, cosDelta, hourAngle, alt), ALT_INTERVAL.reduce(alt));
+    }
+
+    /**
+     * Computes the equatorial coordinates of the given horizontal coordinates, i.e. the inverse of the conversion.
+     *
+     * @param hor horizontal coordinates input.
+     * @return Equatorial Coordinates representation of the input.
+     */
+    public EquatorialCoordinates inverseApply(HorizontalCoordinates hor) {
+        double cosAlt = Math.cos(hor.alt());
+        double north = cosAlt * Math.cos(hor.az());
+        double east = cosAlt * Math.sin(hor.az());
+        double up = Math.sin(hor.alt());
+
+        double sinDelta = this.cosPhi * north + this.sinPhi * up;
+        double hourAngle = Math.atan2(-east, this.cosPhi * up - this.sinPhi * north);
+        double delta = Math.asin(Math.max(-1, Math.min(1, sinDelta)));
 
+        return EquatorialCoordinates.of(Angle.normalizePositive(this.localTime - hourAngle), delta);
+    }
+
+    /**
+     * Converts all the given equatorial positions to horizontal positions.
+     * The positions are stored in pairs: the right ascension (azimuth) followed by the declination (altitude),
+     * in radians. No object is allocated, which makes it suitable for whole catalogues.
+     *
+     * @param raDec    equatorial positions to convert.
+     * @param outAzAlt array receiving the horizontal positions, at the same indices as the input.
+     * @throws IllegalArgumentException if the input length is odd or the output is smaller than the input.
+     */
+    public void applyAll(double[] raDec, double[] outAzAlt) {
+        Preconditions.checkArgument(raDec.length % 2 == 0);
+        this.applyAll(raDec, outAzAlt, 0, raDec.length / 2);
+    }
+
+    /**
+     * Converts the equatorial positions of index [from, to[ to horizontal positions.
+     * The index of a position is the index of its pair, i.e. the position of index i is
+     * stored at raDec[2i] and raDec[2i + 1].
+     *
+     * @param raDec    equatorial positions to convert.
+     * @param outAzAlt array receiving the horizontal positions, at the same indices as the input.
+     * @param from     index of the first position to convert (included).
+     * @param to       index of the last position to convert (excluded).
+     * @throws IllegalArgumentException if the range is not contained in both arrays.
+     */
+    public void applyAll(double[] raDec, double[] outAzAlt, int from, int to) {
+        Preconditions.checkArgument(0 <= from && from <= to
+                && 2 * to <= raDec.length && 2 * to <= outAzAlt.length);
+        for (int i = 2 * from; i < 2 * to; i += 2) {
+            this.convert(raDec[i], raDec[i + 1], outAzAlt, i);
+        }
+    }
+
+    /**
+     * Converts a single position, writing the azimuth and altitude to the output array at the given offset.
+     *
+     * @param ra     right ascension in radians.
+     * @param delta  declination in radians.
+     * @param out    output array.
+     * @param offset index of the azimuth in the output array.
+     */
+    private void convert(double ra, double delta, double[] out, int offset) {
+        double hourAngle = Angle.normalizePositive(this.localTime - ra);
         double sinDelta = Math.sin(delta);
         double cosDelta = Math.cos(delta);
-        double alt = Math.asin(
-                sinDelta * this.sinPhi + cosDelta * this.cosPhi * cosAngleHour
+        double alt = this.altitude(sinDelta, cosDelta, hourAngle);
+
+        out[offset] = this.azimuth(sinDelta, cosDelta, hourAngle, alt);
+        out[offset + 1] = ALT_INTERVAL.reduce(alt);
+    }
+
+    /**
+     * Computes the altitude of a position, shared by the scalar and array conversions.
+     *
+     * @param sinDelta  sine of the declination.
+     * @param cosDelta  cosine of the declination.
+     * @param hourAngle hour angle in radians.
+     * @return the altitude in radians, not reduced.
+     */
+    private double altitude(double sinDelta, double cosDelta, double hourAngle) {
+        return Math.asin(
+                sinDelta * this.sinPhi + cosDelta * this.cosPhi * Math.cos(hourAngle)
         );
+    }
+
+    /**
+     * Computes the azimuth of a position, shared by the scalar and array conversions.
+     *
+     * @param sinDelta  sine of the declination.
+     * @param cosDelta  cosine of the declination.
+     * @param hourAngle hour angle in radians.
+     * @param alt       altitude in radians, as computed by {@link #altitude(double, double, double)}.
+     * @return the azimuth in radians, normalized to [0, 2PI[.
+     */
+    private double azimuth(double sinDelta, double cosDelta, double hourAngle, double alt) {
         double az = Math.atan2(
-                - cosDelta * this.cosPhi * sinAngleHour,
+                - cosDelta * this.cosPhi * Math.sin(hourAngle),
                 sinDelta - this.sinPhi * Math.sin(alt)
         );
+        return Angle.normalizePositive(az);
+    }
 
-        return HorizontalCoordinates.of(Angle.normalizePositive(az), ALT_INTERVAL.reduce(alt));
+    /**
+     * Returns the local sidereal time used by the conversion.
+     *
+     * @return the local sidereal time in radians.
+     */
+    double localSiderealTime() {
+        return localTime;
+    }
+
+    /**
+     * Returns the sine of the observer latitude.
+     *
+     * @return the sine of the observer latitude.
+     */
+    double sinLatitude() {
+        return sinPhi;
+    }
+
+    /**
+     * Returns the cosine of the observer latitude.
+     *
+     * @return the cosine of the observer latitude.
+     */
+    double cosLatitude() {
+        return cosPhi;
     }
 
     /**
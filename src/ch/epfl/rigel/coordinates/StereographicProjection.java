@@ -116,6 +116,42 @@ public final class StereographicProjection implements Function<HorizontalCoordin
                 HorizontalCoordinates.of(lambda, phi);
     }
 
+    /**
+     * Returns the center of the projection.
+     *
+     * @return the horizontal coordinates of the center of the projection.
+     */
+    public HorizontalCoordinates center() {
+        return HorizontalCoordinates.of(centerX, centerY);
+    }
+
+    /**
+     * Returns the azimuth of the projection center.
+     *
+     * @return the azimuth of the projection center in radians.
+     */
+    double centerAz() {
+        return centerX;
+    }
+
+    /**
+     * Returns the sine of the altitude of the projection center.
+     *
+     * @return the sine of the altitude of the projection center.
+     */
+    double sinCenterAlt() {
+        return sinCenterY;
+    }
+
+    /**
+     * Returns the cosine of the altitude of the projection center.
+     *
+     * @return the cosine of the altitude of the projection center.
+     */
+    double cosCenterAlt() {
+        return cosCenterY;
+    }
+
     /**
      *
      * @see Object#toString()
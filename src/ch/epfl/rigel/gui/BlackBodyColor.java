@@ -13,7 +13,7 @@ import javafx.scene.paint.Color;
 /**
  * Non instantiable class, meant to be used to get the corresponding color in degrees kelvin from a celestial object
  * to a Color object representation.
- * Loads the information from 'bbr_color.txt'.
+ * Loads the information from 'bbr_color.txt', once, in a palette of colors indexed by steps of 100K.
  * @author Mark Mouawad (296508)
  * @author Leah Uzzan (302829)
  */
@@ -22,7 +22,7 @@ final public class BlackBodyColor {
     //attributes
     private static final String BBR_COLOR = "/bbr_color.txt";
     private static final Interval TEMP_INTERVAL = ClosedInterval.of(1000, 40000);
-    private static final List<String> COLOR_LIST = loadColors();
+    private static final Color[] PALETTE = loadColors();
     private static final int columnStart = 80;
     private static final int columnEnd = 87;
 
@@ -34,12 +34,12 @@ final public class BlackBodyColor {
     private BlackBodyColor() { }
 
     /**
-     * Loads the colors of the bbr color file in a list of strings
+     * Loads the colors of the bbr color file in the palette.
      * @return
      */
-     private static List<String> loadColors() {
+     private static Color[] loadColors() {
 
-        List<String> colors = new ArrayList<String>();
+        List<Color> colors = new ArrayList<Color>();
 
         try (InputStreamReader inStrReader = new InputStreamReader(BlackBodyColor.class.getResourceAsStream(BBR_COLOR), StandardCharsets.US_ASCII);
             BufferedReader buffReader = new BufferedReader(inStrReader)) {
@@ -47,12 +47,12 @@ final public class BlackBodyColor {
 
             while(line != null) {
                 if(line.charAt(0) != '#') {
-                    colors.add(line.substring(columnStart,columnEnd).strip());
+                    colors.add(Color.web(line.substring(columnStart,columnEnd).strip()));
                 }
                 buffReader.readLine();
                 line = buffReader.readLine();
             }
-            return colors;
+            return colors.toArray(new Color[0]);
 
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -66,13 +66,40 @@ final public class BlackBodyColor {
      * @throws IllegalArgumentException if temp ( in kelvins ) is not in the interval [1000K, 40000K]
      */
     public static Color colorForTemperature(double temperatureInDeg) {
+        return PALETTE[paletteIndex(temperatureInDeg)];
+    }
+
+    /**
+     * Gets the index in the palette of the color of the given temperature in degrees, so that the color
+     * of an object can be computed once and then read with {@link #paletteColor(int)}.
+     * @param temperatureInDeg
+     * @return the index of the color in the palette.
+     * @throws IllegalArgumentException if temp ( in kelvins ) is not in the interval [1000K, 40000K]
+     */
+    public static int paletteIndex(double temperatureInDeg) {
         //Check if the temperature is in the right interval
         Preconditions.checkInInterval(TEMP_INTERVAL, temperatureInDeg);
         int roundedTemp = (int) Math.round(temperatureInDeg / 100.0d) * 100;
         //the steps of the data are of 100 and the first value is a 1000.
-        String colorCode = COLOR_LIST.get((roundedTemp - 1000)/ STEP_ARRAY);
+        return (roundedTemp - 1000) / STEP_ARRAY;
+    }
 
-        return Color.web(colorCode);
+    /**
+     * Gets the color of the palette of the given index.
+     * @param index index in the palette.
+     * @return the color of the palette.
+     * @throws IndexOutOfBoundsException if the index is not in [0, paletteSize()[.
+     */
+    public static Color paletteColor(int index) {
+        return PALETTE[index];
+    }
+
+    /**
+     * Gets the number of colors of the palette.
+     * @return the number of colors of the palette.
+     */
+    public static int paletteSize() {
+        return PALETTE.length;
     }
 
 }
@@ -1,6 +1,9 @@
 package ch.epfl.rigel.gui;
 
+import javafx.beans.Observable;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleObjectProperty;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -10,6 +13,9 @@ import java.time.ZonedDateTime;
 /**
  * A JavaFX bean class representing a ZonedDateTime. Contains
  * a ZoneId, a LocalDate and a LocalTime.
+ * The three of them are also combined in a single read only ZonedDateTime property, updated
+ * once only when they are set together by setZonedDateTime, so that observers of the whole
+ * date time are notified once per update instead of once per component.
  * @author Mark Mouawad (296508)
  * @author Leah Uzzan (302829)
  */
@@ -18,6 +24,9 @@ public final class DateTimeBean {
      private final ObjectProperty<LocalDate>  date;
      private final ObjectProperty<LocalTime> time;
      private final ObjectProperty<ZoneId> zone;
+     private final ReadOnlyObjectWrapper<ZonedDateTime> zonedDateTime;
+     //True while the components are set together, the combined property being updated afterwards.
+     private boolean updating = false;
 
     /**
      * Constructs a Date Time Bean instance.
@@ -27,6 +36,28 @@ public final class DateTimeBean {
          this.date = new SimpleObjectProperty<>();
          this.time = new SimpleObjectProperty<>();
          this.zone = new SimpleObjectProperty<>();
+         this.zonedDateTime = new ReadOnlyObjectWrapper<>();
+         this.date.addListener(this::componentInvalidated);
+         this.time.addListener(this::componentInvalidated);
+         this.zone.addListener(this::componentInvalidated);
+     }
+
+    /**
+     * Updates the combined property when a component is set on its own.
+     * @param component the invalidated component.
+     */
+     private void componentInvalidated(Observable component) {
+         if (!this.updating) {
+             this.updateZonedDateTime();
+         }
+     }
+
+    /**
+     * Sets the combined property from the components, null while one of them is missing.
+     */
+     private void updateZonedDateTime() {
+         boolean complete = this.getDate() != null && this.getTime() != null && this.getZone() != null;
+         this.zonedDateTime.set(complete ? this.getZonedDateTime() : null);
      }
 
     /**
@@ -46,11 +77,26 @@ public final class DateTimeBean {
      * @param zonedDateTime input ZonedDateTime to set the instance according to.
      */
      public void setZonedDateTime(ZonedDateTime zonedDateTime){
-         this.setDate(zonedDateTime.toLocalDate());
-         this.setTime(zonedDateTime.toLocalTime());
-         this.setZone(zonedDateTime.getZone());
+         this.updating = true;
+         try {
+             this.setDate(zonedDateTime.toLocalDate());
+             this.setTime(zonedDateTime.toLocalTime());
+             this.setZone(zonedDateTime.getZone());
+         } finally {
+             this.updating = false;
+         }
+         this.updateZonedDateTime();
      }
 
+    /**
+     * Gets the read only property combining the date, the time and the zone. Notified once only when
+     * they are set together. Its value is null while one of them is missing.
+     * @return the ZonedDateTime in the form of a read only ObjectProperty.
+     */
+    public ReadOnlyObjectProperty<ZonedDateTime> zonedDateTimeProperty() {
+        return this.zonedDateTime.getReadOnlyProperty();
+    }
+
     /**
      * Gets the stored ObjectProperty for the local date.
      * @return the LocalDate in the form of a ObjectProperty.
@@ -50,7 +50,8 @@ final public class Main extends Application {
     private static final double STAGE_MIN_WIDTH = 800;
     private static final double STAGE_MIN_HEIGHT = 600;
     private static final String APP_TITLE = "Rigel";
-    private static final String HYG_PATH = "/hygdata_v3.csv";
+    //Pre-compiled from hygdata_v3.csv by BinaryCatalogueConverter.
+    private static final String HYG_PATH = "/hygdata_v3.bin";
     private static final String AST_PATH = "/asterisms.txt";
     private static final String CITIES_PATH = "/cities5000.txt";
     private static final String FONT_PATH = "/Font Awesome 5 Free-Solid-900.otf";
@@ -643,11 +644,12 @@ final public class Main extends Application {
      */
     private StarCatalogue loadCatalogue() {
 
-        try (InputStream hs = getClass().getResourceAsStream(HYG_PATH);
-             InputStream astStream = getClass().getResourceAsStream(AST_PATH)) {
+        try (InputStream astStream = getClass().getResourceAsStream(AST_PATH)) {
 
-            return new StarCatalogue.Builder()
-                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
+            //Mapped in memory when the resource is a file.
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            BinaryCatalogueLoader.INSTANCE.load(getClass().getResource(HYG_PATH), builder);
+            return builder
                     .loadFrom(astStream, AsterismLoader.INSTANCE)
                     .build();
 
@@ -0,0 +1,76 @@
+package ch.epfl.rigel.gui;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * Coalesces the requests to render a node: a request only marks the frame as dirty, the rendering
+ * being done once at most per JavaFX pulse, after the animations and the layout of the scene.
+ * Any number of property changes during a pulse (e.g. the date, the time and the zone set by an
+ * animation tick, then the resulting sky and transform) thus cost a single rendering.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class RenderScheduler {
+
+    private final Node node;
+    private final Runnable render;
+    private final Runnable pulseListener = this::onPulse;
+    private boolean dirty = false;
+
+    /**
+     * Constructs a scheduler rendering the given node with the given action.
+     *
+     * @param node   the node to render.
+     * @param render the action rendering the node.
+     */
+    RenderScheduler(Node node, Runnable render) {
+        this.node = node;
+        this.render = render;
+        this.attach(null, node.getScene());
+        node.sceneProperty().addListener((p, o, n) -> this.attach(o, n));
+    }
+
+    /**
+     * Requests the node to be rendered during the next pulse. Renders it immediately if it is
+     * not part of a scene, as no pulse would then be run.
+     */
+    void requestRender() {
+        if (this.node.getScene() == null) {
+            this.render.run();
+            return;
+        }
+        if (!this.dirty) {
+            this.dirty = true;
+            Platform.requestNextPulse();
+        }
+    }
+
+    /**
+     * Moves the pulse listener from the old scene of the node to its new one.
+     *
+     * @param oldScene the scene the node was part of, can be null.
+     * @param newScene the scene the node is part of, can be null.
+     */
+    private void attach(Scene oldScene, Scene newScene) {
+        if (oldScene != null) {
+            oldScene.removePostLayoutPulseListener(this.pulseListener);
+        }
+        if (newScene != null) {
+            newScene.addPostLayoutPulseListener(this.pulseListener);
+            if (this.dirty) Platform.requestNextPulse();
+        }
+    }
+
+    /**
+     * Renders the node if it is dirty. Called once per pulse.
+     */
+    private void onPulse() {
+        if (this.dirty) {
+            this.dirty = false;
+            this.render.run();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ch.epfl.rigel.gui;
+
+/**
+ * Clips segments to an axis-aligned rectangle with the Liang–Barsky algorithm. The clipped segment is kept by the
+ * clipper itself instead of being returned, so that clipping allocates nothing: a single clipper can be reused
+ * for all the segments of all the frames.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class SegmentClipper {
+
+    private double minX, minY, maxX, maxY;
+    private double x0, y0, x1, y1;
+
+    /**
+     * Sets the rectangle the segments are clipped to.
+     *
+     * @param minX smallest x of the rectangle.
+     * @param minY smallest y of the rectangle.
+     * @param maxX largest x of the rectangle.
+     * @param maxY largest y of the rectangle.
+     */
+    void setBounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Checks whether the given point is in the rectangle, borders included.
+     *
+     * @param x the x coordinate of the point.
+     * @param y the y coordinate of the point.
+     * @return true iff the point is in the rectangle, false if one of its coordinates is NaN.
+     */
+    boolean contains(double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Clips the segment between the given points to the rectangle. If part of the segment is in the rectangle,
+     * its ends are then given by {@link #x0()}, {@link #y0()}, {@link #x1()} and {@link #y1()}, in the same
+     * direction as the given segment.
+     *
+     * @param ax the x coordinate of the start of the segment.
+     * @param ay the y coordinate of the start of the segment.
+     * @param bx the x coordinate of the end of the segment.
+     * @param by the y coordinate of the end of the segment.
+     * @return true iff part of the segment is in the rectangle, false if one of the coordinates is NaN.
+     */
+    boolean clip(double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        if (Double.isNaN(dx) || Double.isNaN(dy)) {
+            return false;
+        }
+        //Parameters of the part of the segment a + t (b - a) inside the rectangle, each border of the rectangle
+        //giving a constraint p t <= q: the segment enters the half plane if p < 0 and leaves it if p > 0.
+        double t0 = 0;
+        double t1 = 1;
+        for (int border = 0; border < 4; border++) {
+            double p, q;
+            switch (border) {
+                case 0:
+                    p = -dx;
+                    q = ax - minX;
+                    break;
+                case 1:
+                    p = dx;
+                    q = maxX - ax;
+                    break;
+                case 2:
+                    p = -dy;
+                    q = ay - minY;
+                    break;
+                default:
+                    p = dy;
+                    q = maxY - ay;
+                    break;
+            }
+            if (p == 0) {
+                //Parallel to the border, either entirely inside its half plane or entirely outside.
+                if (q < 0) return false;
+            } else if (p < 0) {
+                double t = q / p;
+                if (t > t1) return false;
+                if (t > t0) t0 = t;
+            } else {
+                double t = q / p;
+                if (t < t0) return false;
+                if (t < t1) t1 = t;
+            }
+        }
+        //The ends inside the rectangle are kept as they are, so that consecutive segments stay connected.
+        this.x0 = t0 == 0 ? ax : ax + t0 * dx;
+        this.y0 = t0 == 0 ? ay : ay + t0 * dy;
+        this.x1 = t1 == 1 ? bx : ax + t1 * dx;
+        this.y1 = t1 == 1 ? by : ay + t1 * dy;
+        return true;
+    }
+
+    /**
+     * Returns the x coordinate of the start of the last clipped segment.
+     *
+     * @return the x coordinate of the start of the clipped segment.
+     */
+    double x0() {
+        return x0;
+    }
+
+    /**
+     * Returns the y coordinate of the start of the last clipped segment.
+     *
+     * @return the y coordinate of the start of the clipped segment.
+     */
+    double y0() {
+        return y0;
+    }
+
+    /**
+     * Returns the x coordinate of the end of the last clipped segment.
+     *
+     * @return the x coordinate of the end of the clipped segment.
+     */
+    double x1() {
+        return x1;
+    }
+
+    /**
+     * Returns the y coordinate of the end of the last clipped segment.
+     *
+     * @return the y coordinate of the end of the clipped segment.
+     */
+    double y1() {
+        return y1;
+    }
+}
@@ -1,14 +1,19 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.EphemerisCache;
 import ch.epfl.rigel.astronomy.ObservedSky;
 import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarProjectionEngine;
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.ClosedInterval;
 import ch.epfl.rigel.math.RightOpenInterval;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.binding.ObjectBinding;
@@ -20,7 +25,7 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.input.KeyCode;
 import javafx.scene.transform.NonInvertibleTransformException;
 import javafx.scene.transform.Transform;
-
+import javafx.util.Duration;
 import java.util.Optional;
 
 
@@ -40,6 +45,14 @@ final public class SkyCanvasManager {
     private final static double STEP_HORIZONTAL_PROJECTION_DEG = 10;
     private final static double STEP_VERTICAL_PROJECTION_DEG = 5;
     private final static double TRANSLATION_COEF = 2.0d;
+    //Margin added to the visible radius so that the stars on the border of the canvas are drawn entirely.
+    private final static double VISIBLE_RADIUS_MARGIN = Angle.ofDeg(1);
+    //Limiting magnitude of the naked eye, reached with the reference number of canvas pixels per degree of sky.
+    private final static double NAKED_EYE_LIMITING_MAGNITUDE = 6.5;
+    private final static double REFERENCE_PIXELS_PER_DEGREE = 8;
+    //Limiting magnitude while the user pans or zooms, and delay without input after which the sky is refined.
+    private final static double INTERACTION_LIMITING_MAGNITUDE = 4.5;
+    private final static Duration DEFAULT_REFINE_DELAY = Duration.millis(300);
     //Intervals
     private final static ClosedInterval FOV_INTERVAL = ClosedInterval.of(30, 150);
     private final static RightOpenInterval CENTER_AZDEG_INTERVAL = RightOpenInterval.of(0, 360);
@@ -48,10 +61,25 @@ final public class SkyCanvasManager {
     private final DateTimeBean dateTimeBean;
     private final Canvas canvas;
     private final SkyCanvasPainter skyCanvasPainter;
+    private final RenderScheduler renderScheduler;
+    //Computes the frames of the sky off the JavaFX thread.
+    private final SkyFramePipeline framePipeline;
     //Private bindings
     private ObjectBinding<Transform> planeToCanvas;
-    private ObjectBinding<ObservedSky> observedSky;
+    private ObjectBinding<SkyFramePipeline.Request> frameRequest;
+    //Last request handed to the pipeline, the last frame drawn and the sky it shows with its transform.
+    private SkyFramePipeline.Request lastFrameRequest;
+    private SkyFrame lastDrawnFrame;
+    private ObjectProperty<DrawnSky> drawnSky;
     private ObjectBinding<StereographicProjection> projection;
+    private DoubleBinding visibleRadius;
+    private BooleanProperty limitingMagnitudeEnabled;
+    private BooleanProperty rasterized;
+    private BooleanProperty levelOfDetailEnabled;
+    private BooleanProperty interacting;
+    private ObjectProperty<Duration> refineDelay;
+    private PauseTransition refineTimer;
+    private DoubleBinding limitingMagnitude;
     private SimpleObjectProperty<Point2D> mousePosition;
     private ObjectBinding<HorizontalCoordinates> mouseHorizontalPosition;
     private ObjectBinding<CelestialObject> objectUnderMouse;
@@ -80,11 +108,24 @@ final public class SkyCanvasManager {
         this.viewingParameters = viewingParameters;
         this.dateTimeBean = dateTime;
         this.skyCanvasPainter = new SkyCanvasPainter(this.canvas);
+        this.renderScheduler = new RenderScheduler(this.canvas, this::drawSky);
+        //The planets and the Moon are interpolated, the time being animated.
+        this.framePipeline = new SkyFramePipeline(catalogue, StarProjectionEngine.DEFAULT, new EphemerisCache(),
+                () -> Platform.runLater(this.renderScheduler::requestRender));
+        this.drawnSky = new SimpleObjectProperty<DrawnSky>();
         this.mousePosition = new SimpleObjectProperty<Point2D>(Point2D.ZERO);
         this.mouseAzDegProperty = new SimpleDoubleProperty();
         this.mouseAltDegProperty = new SimpleDoubleProperty();
+        this.limitingMagnitudeEnabled = new SimpleBooleanProperty(true);
+        this.rasterized = new SimpleBooleanProperty(false);
+        this.levelOfDetailEnabled = new SimpleBooleanProperty(true);
+        this.interacting = new SimpleBooleanProperty(false);
+        this.refineDelay = new SimpleObjectProperty<Duration>(DEFAULT_REFINE_DELAY);
+        this.refineTimer = new PauseTransition();
+        this.refineTimer.durationProperty().bind(this.refineDelay);
+        this.refineTimer.setOnFinished(event -> this.interacting.set(false));
         this.initMouseMovement();
-        this.initBindings(catalogue, dateTime, observerLocation);
+        this.initBindings(dateTime, observerLocation);
 
         this.mouseAzDegProperty.bind(this.mouseAzDeg);
         this.mouseAltDegProperty.bind(this.mouseAltDeg);
@@ -105,17 +146,28 @@ final public class SkyCanvasManager {
     }
 
     /**
-     * Draws the sky objects from the observedSky with the skyCanvasPainter.
+     * Hands the current parameters of the sky to the frame pipeline if they changed, then draws the last
+     * frame computed by the pipeline with the skyCanvasPainter, if not drawn yet. The sky itself is computed
+     * on the thread of the pipeline, which requests a new rendering once the frame is ready.
+     * No frame is requested while the instant is incomplete (e.g. the date being cleared by the user),
+     * the last frame staying drawn.
      */
     public void drawSky() {
-        this.skyCanvasPainter.clear();
-        Transform planeToCanvas = this.planeToCanvas.get();
-        this.skyCanvasPainter.drawSkyColor(this.observedSky.get(), planeToCanvas, projection.get());
-        this.skyCanvasPainter.drawStars(this.observedSky.get(), planeToCanvas, projection.get());
-        this.skyCanvasPainter.drawPlanets(this.observedSky.get(), planeToCanvas, projection.get());
-        this.skyCanvasPainter.drawSun(this.observedSky.get(), this.projection.get(), planeToCanvas);
-        this.skyCanvasPainter.drawMoon(this.observedSky.get(), this.projection.get(), planeToCanvas);
-        this.skyCanvasPainter.drawHorizon(this.projection.get(), planeToCanvas);
+        SkyFramePipeline.Request request = this.frameRequest.get();
+        if (request != null && request != this.lastFrameRequest) {
+            this.lastFrameRequest = request;
+            this.framePipeline.request(request);
+        }
+        SkyFrame frame = this.framePipeline.frame();
+        if (frame == null || (frame == this.lastDrawnFrame && this.skyCanvasPainter.isRasterized() == this.rasterized.get())) {
+            return;
+        }
+        this.lastDrawnFrame = frame;
+        this.skyCanvasPainter.setRasterized(this.rasterized.get());
+        this.skyCanvasPainter.setReducedDetail(this.isReducingDetail());
+        this.skyCanvasPainter.drawFrame(frame);
+        //The frame being recycled by the pipeline, its sky and transform are kept, together.
+        this.drawnSky.set(new DrawnSky(frame.sky(), frame.planeToCanvas()));
     }
 
     /**
@@ -179,9 +231,12 @@ final public class SkyCanvasManager {
             }
         });
 
-        //Whenever a change occurs, draw sky is called to update the view.
-        this.observedSky.addListener((e, n, o) -> this.drawSky());
-        this.planeToCanvas.addListener((e, n , o) -> this.drawSky());
+        //Whenever a change occurs, a frame is requested once at the next pulse. Invalidation listeners keep
+        //the bindings lazy: the request is only taken by the drawing, once per pulse whatever the number of changes.
+        this.frameRequest.addListener((Observable o) -> this.renderScheduler.requestRender());
+        this.rasterized.addListener((Observable o) -> this.renderScheduler.requestRender());
+        //Validates the bindings, the invalidation listeners being only notified by valid bindings.
+        this.renderScheduler.requestRender();
 
     }
 
@@ -199,27 +254,39 @@ final public class SkyCanvasManager {
     /**
      * Init the bindings.
      *
-     * @param catalogue
      * @param dateTime
      * @param observerLocation
      */
-    private void initBindings(StarCatalogue catalogue, DateTimeBean dateTime, ObserverLocationBean observerLocation) {
+    private void initBindings(DateTimeBean dateTime, ObserverLocationBean observerLocation) {
 
         this.projection = Bindings.createObjectBinding(
                 () -> new StereographicProjection(this.viewingParameters.getCenter()),
                 viewingParameters.centerProperty()
         );
 
-        this.observedSky = Bindings.createObjectBinding(
-                () -> new ObservedSky(dateTime.getZonedDateTime(), observerLocation.getCoordinates(), this.projection.getValue(), catalogue),
-                dateTime.dateProperty(), dateTime.zoneProperty(), dateTime.timeProperty(), observerLocation.coordinatesProperty(), this.projection);
+        this.visibleRadius = Bindings.createDoubleBinding(
+                this::computeVisibleRadius,
+                canvas.widthProperty(), canvas.heightProperty(), this.viewingParameters.fieldOfViewDegProperty()
+        );
 
+        this.limitingMagnitude = Bindings.createDoubleBinding(
+                this::computeLimitingMagnitude,
+                canvas.widthProperty(), this.viewingParameters.fieldOfViewDegProperty(), this.limitingMagnitudeEnabled,
+                this.interacting, this.levelOfDetailEnabled
+        );
 
         this.planeToCanvas = Bindings.createObjectBinding(
                 () -> computePlaneToCanvas(this.viewingParameters),
                 canvas.widthProperty(), canvas.heightProperty(), this.viewingParameters.fieldOfViewDegProperty(), this.projection
         );
 
+        this.frameRequest = Bindings.createObjectBinding(
+                () -> dateTime.zonedDateTimeProperty().get() == null ? null
+                        : new SkyFramePipeline.Request(dateTime.zonedDateTimeProperty().get(), observerLocation.getCoordinates(),
+                        this.projection.get(), this.planeToCanvas.get(), this.visibleRadius.get(), this.limitingMagnitude.get()),
+                dateTime.zonedDateTimeProperty(), observerLocation.coordinatesProperty(),
+                this.projection, this.visibleRadius, this.limitingMagnitude, this.planeToCanvas);
+
         this.mouseHorizontalPosition = Bindings.createObjectBinding(
                 () -> this.computeMouseHorizontalPosition(),
                 this.mousePosition, this.projection, this.planeToCanvas
@@ -237,7 +304,7 @@ final public class SkyCanvasManager {
 
         this.objectUnderMouse = Bindings.createObjectBinding(
                 this::computeObjectUnderMouse,
-                this.observedSky, this.mousePosition, this.planeToCanvas
+                this.drawnSky, this.mousePosition
         );
 
         this.horTransBinding = Bindings.createDoubleBinding(() -> this.mouseMovementAnimation.horizontalTranslationProperty().get(),
@@ -250,25 +317,85 @@ final public class SkyCanvasManager {
 
     }
 
+    /**
+     * Computes the magnitude of the faintest stars drawn. It grows with the number of canvas pixels per degree
+     * of sky, as an eyepiece would: zooming in or enlarging the window shows fainter stars.
+     * While the user pans or zooms, only the brightest stars are drawn.
+     *
+     * @return the limiting magnitude, infinity if all stars are drawn.
+     */
+    private double computeLimitingMagnitude() {
+        double width = canvas.widthProperty().get();
+        double limitingMagnitude = Double.POSITIVE_INFINITY;
+        if (this.limitingMagnitudeEnabled.get() && width > 0) {
+            double pixelsPerDegree = width / viewingParameters.getFieldOfViewDeg();
+            limitingMagnitude = NAKED_EYE_LIMITING_MAGNITUDE + 5 * Math.log10(pixelsPerDegree / REFERENCE_PIXELS_PER_DEGREE);
+        }
+        return this.isReducingDetail() ? Math.min(limitingMagnitude, INTERACTION_LIMITING_MAGNITUDE) : limitingMagnitude;
+    }
+
+    /**
+     * Checks whether the sky is drawn with a reduced level of detail, i.e. whether the user is panning or zooming
+     * and the level of detail is enabled.
+     *
+     * @return true if the sky is drawn with a reduced level of detail.
+     */
+    private boolean isReducingDetail() {
+        return this.interacting.get() && this.levelOfDetailEnabled.get();
+    }
+
+    /**
+     * Notes an input of the user moving the view: the sky is drawn with a reduced level of detail until no
+     * input was received during the refine delay.
+     */
+    private void noteInteraction() {
+        this.interacting.set(true);
+        this.refineTimer.playFromStart();
+    }
+
+    /**
+     * Computes the angular radius around the center of projection containing the whole canvas,
+     * i.e. the angle between the center and the corners of the canvas.
+     *
+     * @return the visible radius in radians.
+     */
+    private double computeVisibleRadius() {
+        double width = canvas.widthProperty().get();
+        double height = canvas.heightProperty().get();
+        if (width <= 0 || height <= 0) {
+            return Math.PI;
+        }
+        //Half of the diagonal of the canvas in the projection plane, the plane width being the projected field of view.
+        double planeHalfDiagonal = Math.hypot(width, height) / (2 * width)
+                * projection.get().applyToAngle(Angle.ofDeg(viewingParameters.getFieldOfViewDeg()));
+        //A point at an angle a from the center is projected at a distance tan(a / 2) from it.
+        return Math.min(Math.PI, 2 * Math.atan(planeHalfDiagonal) + VISIBLE_RADIUS_MARGIN);
+    }
+
     /**
      * Computes the object under mouse.
      *
      * @return
      */
     private CelestialObject computeObjectUnderMouse() {
+        //The objects are searched in the sky drawn, the one seen by the user, through the transform it was drawn with.
+        DrawnSky drawn = this.drawnSky.get();
+        if (drawn == null) {
+            return null;
+        }
         Point2D mousePosInverse = Point2D.ZERO;
         double inverseDistance = 0.0;
 
         try {
-            inverseDistance = this.planeToCanvas.get().inverseDeltaTransform(new Point2D(OBJECT_MOUSE_DISTANCE, 0)).getX();
-            mousePosInverse = this.planeToCanvas.get().inverseTransform(this.mousePosition.get());
+            inverseDistance = drawn.planeToCanvas.inverseDeltaTransform(new Point2D(OBJECT_MOUSE_DISTANCE, 0)).getX();
+            mousePosInverse = drawn.planeToCanvas.inverseTransform(this.mousePosition.get());
         } catch (NonInvertibleTransformException error) {
             System.out.println(
                     String.format("Erreur de transformation inverse du point: %s avec erreur: %s", this.mousePosition.get(), error)
             );
         }
 
-        Optional<CelestialObject> celObj = this.observedSky.get().objectClosestTo(
+        Optional<CelestialObject> celObj = drawn.sky.objectClosestTo(
                 toCartesian(mousePosInverse), inverseDistance
         );
 
@@ -321,6 +448,7 @@ final public class SkyCanvasManager {
      * @param fovDeg degrees to be added the current FOV. Can be negative.
      */
     private void addFOV(double fovDeg) {
+        this.noteInteraction();
         double currentFOVDeg = this.viewingParameters.getFieldOfViewDeg();
         this.viewingParameters.setFieldOfViewDeg(
                 FOV_INTERVAL.clip(currentFOVDeg + fovDeg)
@@ -333,6 +461,7 @@ final public class SkyCanvasManager {
      * @param stepDeg
      */
     private void translateHorizontalProjectCenter(double stepDeg) {
+        this.noteInteraction();
         HorizontalCoordinates currentCenter = this.viewingParameters.getCenter();
         double newAzDeg = CENTER_AZDEG_INTERVAL.reduce(currentCenter.azDeg() + stepDeg);
         HorizontalCoordinates newCenter = HorizontalCoordinates.ofDeg(newAzDeg, currentCenter.altDeg());
@@ -345,6 +474,7 @@ final public class SkyCanvasManager {
      * @param stepDeg
      */
     private void translateVerticalProjectCenter(double stepDeg) {
+        this.noteInteraction();
         HorizontalCoordinates currentCenter = this.viewingParameters.getCenter();
         double newAltDeg = CENTER_ALTDEG_INTERVAL.clip(currentCenter.altDeg() + stepDeg);
         HorizontalCoordinates newCenter = HorizontalCoordinates.ofDeg(currentCenter.azDeg(), newAltDeg);
@@ -371,6 +501,47 @@ final public class SkyCanvasManager {
         return this.canvas;
     }
 
+    /**
+     * Returns the property enabling the limiting magnitude, which depends on the field of view and
+     * the size of the canvas. When disabled, all stars are drawn.
+     *
+     * @return the property enabling the limiting magnitude.
+     */
+    public BooleanProperty limitingMagnitudeEnabledProperty() {
+        return this.limitingMagnitudeEnabled;
+    }
+
+    /**
+     * Returns the property selecting the software rasterization of the sky, see
+     * {@link SkyCanvasPainter#setRasterized(boolean)}. Disabled by default.
+     *
+     * @return the property selecting the software rasterization.
+     */
+    public BooleanProperty rasterizedProperty() {
+        return this.rasterized;
+    }
+
+    /**
+     * Returns the property enabling the reduced level of detail while the user pans or zooms: only the stars
+     * brighter than a fixed magnitude are then drawn, without the labels, until no input was received during
+     * the refine delay. Enabled by default.
+     *
+     * @return the property enabling the reduced level of detail.
+     */
+    public BooleanProperty levelOfDetailEnabledProperty() {
+        return this.levelOfDetailEnabled;
+    }
+
+    /**
+     * Returns the property of the delay without input after which the sky is drawn again with all its details,
+     * see {@link #levelOfDetailEnabledProperty()}.
+     *
+     * @return the property of the refine delay.
+     */
+    public ObjectProperty<Duration> refineDelayProperty() {
+        return this.refineDelay;
+    }
+
     /**
      * Get the mouse position azimuth in degrees property.
      *
@@ -390,6 +561,17 @@ final public class SkyCanvasManager {
         return this.mouseAltDegProperty;
     }
 
+    /**
+     * A sky drawn on the canvas and the plane to canvas transform it was drawn with.
+     */
+    private static final class DrawnSky {
+        private final ObservedSky sky;
+        private final Transform planeToCanvas;
 
+        private DrawnSky(ObservedSky sky, Transform planeToCanvas) {
+            this.sky = sky;
+            this.planeToCanvas = planeToCanvas;
+        }
+    }
 }
 
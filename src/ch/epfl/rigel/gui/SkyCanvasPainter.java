@@ -9,6 +9,7 @@ import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.LinearGradient;
@@ -16,8 +17,7 @@ import javafx.scene.paint.Stop;
 import javafx.scene.transform.NonInvertibleTransformException;
 import javafx.scene.transform.Transform;
 
-import java.util.List;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Class encapsulating methods to draw the stars, sky, planets,
@@ -30,6 +30,21 @@ final public class SkyCanvasPainter {
 
     final Canvas canvas;
     final GraphicsContext graphicContext;
+    //Canvas positions and diameters of the last drawn sky, reused as long as the sky and the transform do not change.
+    private final SkyFrame renderCache = new SkyFrame();
+    //Frame computed ahead of the drawing, only set while drawFrame is drawing it.
+    private SkyFrame preparedFrame = null;
+    //Whether the stars are drawn grouped by color, and the buffers of the grouping reused from frame to frame.
+    private boolean batchedStars = true;
+    //Software rasterizer of the discs, used instead of the graphics context when enabled.
+    private final SkyRasterizer rasterizer = new SkyRasterizer();
+    //Clips the asterisms to the canvas.
+    private final SegmentClipper clipper = new SegmentClipper();
+    private boolean rasterized = false;
+    //Whether the labels are left out, while the user pans or zooms.
+    private boolean reducedDetail = false;
+    private int[] colorStarts = new int[BlackBodyColor.paletteSize() + 1];
+    private int[] starsByColor = new int[0];
     static private Color BACKGROUND_COLOR_EARLY_NIGHT = Color.MIDNIGHTBLUE;
     static private Color BACKGROUND_COLOR_DARK_NIGHT = Color.BLACK;
     static private ClosedInterval DARK_NIGHT_INTERVAL = ClosedInterval.of(-90.0, -5.0);
@@ -40,7 +55,7 @@ final public class SkyCanvasPainter {
     static final private double CLIP_MAG_FACTOR = 17.0;
     static final private double CLIP_MAG_ALPHA = 99.0;
     static final private double CLIP_MAG_BETA = 140;
-    static final private double CLIP_MAG_APPARENT_SIZE = Angle.ofDeg(0.5);
+    static final double CLIP_MAG_APPARENT_SIZE = Angle.ofDeg(0.5);
     static final private Color SUN_INNER_CENTER_COLOR = Color.WHITE;
     static final private Color SUN_OUTER_CENTER_COLOR = Color.YELLOW;
     static final private Color SUN_OUTER_COLOR = Color.YELLOW.deriveColor(0, 1.0f, 1.0f, 0.25f);
@@ -51,6 +66,7 @@ final public class SkyCanvasPainter {
     static final private HorizontalCoordinates PARALLEL_COORDINATES = HorizontalCoordinates.of(0, 0);
     static final private double CIRCLE_EIGHTH_DEGREE = 45;
     static final private double SCALE_FACTOR_SUNMOON = 3.0;
+    static final private int[] PALETTE_ARGB = paletteArgb();
 
 
     /**
@@ -65,6 +81,136 @@ final public class SkyCanvasPainter {
         this.clear();
     }
 
+    /**
+     * Sets whether the stars are drawn grouped by color, the fill color being then set once per color
+     * instead of once per star. Stars of different colors overlapping each other may then be
+     * stacked differently, stars of the same color being still drawn from the faintest to the brightest.
+     * Enabled by default.
+     *
+     * @param batchedStars true to draw the stars grouped by color.
+     */
+    public void setBatchedStars(boolean batchedStars) {
+        this.batchedStars = batchedStars;
+    }
+
+    /**
+     * Sets whether the stars, planets, Sun and Moon are rasterized in software into an image drawn at once,
+     * instead of being drawn one by one with the graphics context. The asterisms and the horizon are then
+     * drawn over the image. Only used by {@link #drawSky(ObservedSky, StereographicProjection, Transform)}.
+     * Disabled by default.
+     *
+     * @param rasterized true to rasterize the sky in software.
+     */
+    public void setRasterized(boolean rasterized) {
+        this.rasterized = rasterized;
+    }
+
+    /**
+     * Sets whether the sky is drawn with a reduced level of detail, typically while the user pans or zooms:
+     * the names of the asterisms and the labels of the horizon are then left out. The subset of stars drawn is
+     * chosen by the limiting magnitude of the sky. Disabled by default.
+     *
+     * @param reducedDetail true to draw the sky with a reduced level of detail.
+     */
+    public void setReducedDetail(boolean reducedDetail) {
+        this.reducedDetail = reducedDetail;
+    }
+
+    /**
+     * Returns whether the sky is rasterized in software, see {@link #setRasterized(boolean)}.
+     *
+     * @return true if the sky is rasterized in software.
+     */
+    public boolean isRasterized() {
+        return this.rasterized;
+    }
+
+    /**
+     * Draws the whole sky: its color, the stars and asterisms, the planets, the Sun, the Moon and the horizon.
+     *
+     * @param sky           the ObservedSky instance containing the given sky to draw.
+     * @param projection    the stereographic projection of the sky.
+     * @param planeToCanvas the transform matrix for the conversion.
+     */
+    public void drawSky(ObservedSky sky, StereographicProjection projection, Transform planeToCanvas) {
+        if (!this.rasterized) {
+            this.clear();
+            this.drawSkyColor(sky, planeToCanvas, projection);
+            this.drawStars(sky, planeToCanvas, projection);
+            this.drawPlanets(sky, planeToCanvas, projection);
+            this.drawSun(sky, projection, planeToCanvas);
+            this.drawMoon(sky, projection, planeToCanvas);
+            this.drawHorizon(projection, planeToCanvas);
+            return;
+        }
+
+        SkyFrame frame = this.frameFor(sky, planeToCanvas, projection);
+        Color skyColor = skyColor(getSunAltitude(sky.sunPosition(), planeToCanvas, projection));
+        this.rasterizer.begin((int) Math.ceil(this.canvas.getWidth()), (int) Math.ceil(this.canvas.getHeight()), skyColor);
+
+        //Stars, from the faintest visible one to the brightest so that bright stars stay on top.
+        StarStore store = sky.starStore();
+        double[] starPositions = frame.starPositions;
+        for (int rank = store.countBrighterThan(sky.limitingMagnitude()) - 1; rank >= 0; rank--) {
+            int i = store.byMagnitude(rank);
+            this.rasterizer.addDisc(starPositions[2 * i], starPositions[2 * i + 1],
+                    frame.starDiameters[i], PALETTE_ARGB[frame.paletteIndices[i]]);
+        }
+        for (int i = 0; i < frame.planetDiameters.length; i++) {
+            this.rasterizer.addDisc(frame.planetPositions[2 * i], frame.planetPositions[2 * i + 1],
+                    frame.planetDiameters[i], PLANET_COLOR);
+        }
+        Point2D sunPos = planeToCanvas.transform(sky.sunPosition().x(), sky.sunPosition().y());
+        double sunDiameter = this.sunMoonDiameter(sky.sun().angularSize(), projection, planeToCanvas);
+        this.rasterizer.addDisc(sunPos.getX(), sunPos.getY(), 2.2 * sunDiameter, SUN_OUTER_COLOR);
+        this.rasterizer.addDisc(sunPos.getX(), sunPos.getY(), sunDiameter + 2.0, SUN_OUTER_CENTER_COLOR);
+        this.rasterizer.addDisc(sunPos.getX(), sunPos.getY(), sunDiameter, SUN_INNER_CENTER_COLOR);
+        Point2D moonPos = planeToCanvas.transform(sky.moonPosition().x(), sky.moonPosition().y());
+        this.rasterizer.addDisc(moonPos.getX(), moonPos.getY(),
+                this.sunMoonDiameter(sky.moon().angularSize(), projection, planeToCanvas), MOON_COLOR);
+
+        WritableImage image = this.rasterizer.end();
+        this.clear();
+        if (image != null) {
+            this.graphicContext.drawImage(image, 0, 0);
+        }
+        this.drawAsterisms(sky, starPositions);
+        this.drawHorizon(projection, planeToCanvas);
+    }
+
+    /**
+     * Draws the sky of a frame computed ahead, see {@link SkyFramePipeline}: the canvas positions and diameters
+     * of the frame are drawn as they are, only the graphics context calls being left to the caller thread.
+     *
+     * @param frame the frame to draw.
+     */
+    void drawFrame(SkyFrame frame) {
+        this.preparedFrame = frame;
+        try {
+            this.drawSky(frame.sky(), frame.projection(), frame.planeToCanvas());
+        } finally {
+            //The frame may be recycled by the pipeline once drawn.
+            this.preparedFrame = null;
+        }
+    }
+
+    /**
+     * Returns the canvas positions and diameters of the given sky: the frame being drawn if it was computed for
+     * this sky and transform, otherwise the cache of the painter, updated if needed.
+     *
+     * @param sky           the sky to draw.
+     * @param planeToCanvas the transform matrix for the conversion.
+     * @param projection    the stereographic projection of the sky.
+     * @return the canvas positions and diameters of the sky.
+     */
+    private SkyFrame frameFor(ObservedSky sky, Transform planeToCanvas, StereographicProjection projection) {
+        if (this.preparedFrame != null && this.preparedFrame.isFor(sky, planeToCanvas)) {
+            return this.preparedFrame;
+        }
+        this.renderCache.update(sky, planeToCanvas, projection);
+        return this.renderCache;
+    }
+
     /**
      * Clears the canvas.
      */
@@ -107,21 +253,76 @@ final public class SkyCanvasPainter {
      * @param planeToCanvas the transform matrix for the conversion.
      */
     public void drawStars(ObservedSky sky, Transform planeToCanvas, StereographicProjection projection) {
-        double[] transformedStarPos = new double[sky.starPositions().length];
-        planeToCanvas.transform2DPoints(sky.starPositions(), 0, transformedStarPos, 0, sky.stars().size());
+        StarStore store = sky.starStore();
+        SkyFrame frame = this.frameFor(sky, planeToCanvas, projection);
+        double[] transformedStarPos = frame.starPositions;
+        double[] starDiameters = frame.starDiameters;
+        short[] paletteIndices = frame.paletteIndices;
         //Draw Asterisms.
         this.drawAsterisms(sky, transformedStarPos);
-        //Draw Stars
-        int i = 0;
-
-        for (Star s : sky.stars()) {
-            Color starColor = BlackBodyColor.colorForTemperature(s.colorTemperature());
+        int visibleCount = store.countBrighterThan(sky.limitingMagnitude());
+        if (this.batchedStars) {
+            this.drawStarsByColor(store, visibleCount, transformedStarPos, starDiameters, paletteIndices);
+            return;
+        }
+        //Draw Stars, from the faintest visible one to the brightest so that bright stars stay on top.
+        for (int rank = visibleCount - 1; rank >= 0; rank--) {
+            int i = store.byMagnitude(rank);
+            double x = transformedStarPos[2 * i];
+            double y = transformedStarPos[2 * i + 1];
+            //Stars out of the visible part of the sky are not projected.
+            if (Double.isNaN(x)) continue;
             //Draw the element
-            double diameter = planeToCanvas.deltaTransform(magnitudeSize(s, projection), 0).getX();
-            double x = transformedStarPos[i];
-            double y = transformedStarPos[i + 1];
-            this.drawCircle(x, y, diameter, starColor);
-            i += 2;
+            this.drawCircle(x, y, starDiameters[i], BlackBodyColor.paletteColor(paletteIndices[i]));
+        }
+    }
+
+    /**
+     * Draws the visible stars grouped by color: the stars are sorted by palette index with a counting sort
+     * keeping their order from the faintest to the brightest, then each color is set once before its stars.
+     * Allocates nothing once the buffers are large enough.
+     *
+     * @param store              the stars.
+     * @param visibleCount       number of stars bright enough to be drawn.
+     * @param transformedStarPos canvas positions of the stars.
+     * @param starDiameters      canvas diameters of the stars.
+     * @param paletteIndices     palette indices of the colors of the stars.
+     */
+    private void drawStarsByColor(StarStore store, int visibleCount, double[] transformedStarPos,
+                                  double[] starDiameters, short[] paletteIndices) {
+        if (this.starsByColor.length < visibleCount) {
+            this.starsByColor = new int[visibleCount];
+        }
+        //Counts the stars of each color, then makes each count the start of its group.
+        int[] starts = this.colorStarts;
+        Arrays.fill(starts, 0);
+        for (int rank = 0; rank < visibleCount; rank++) {
+            int i = store.byMagnitude(rank);
+            //Stars out of the visible part of the sky are not projected.
+            if (!Double.isNaN(transformedStarPos[2 * i])) starts[paletteIndices[i] + 1]++;
+        }
+        for (int c = 1; c < starts.length; c++) {
+            starts[c] += starts[c - 1];
+        }
+        //Fills the groups from the faintest star, each start becoming the end of its group.
+        for (int rank = visibleCount - 1; rank >= 0; rank--) {
+            int i = store.byMagnitude(rank);
+            if (!Double.isNaN(transformedStarPos[2 * i])) this.starsByColor[starts[paletteIndices[i]]++] = i;
+        }
+
+        int from = 0;
+        for (int c = 0; c + 1 < starts.length; c++) {
+            int to = starts[c];
+            if (from < to) {
+                this.graphicContext.setFill(BlackBodyColor.paletteColor(c));
+                for (int k = from; k < to; k++) {
+                    int i = this.starsByColor[k];
+                    double radius = starDiameters[i] / 2.0d;
+                    this.graphicContext.fillOval(transformedStarPos[2 * i] - radius,
+                            transformedStarPos[2 * i + 1] - radius, starDiameters[i], starDiameters[i]);
+                }
+            }
+            from = to;
         }
     }
 
@@ -133,17 +334,14 @@ final public class SkyCanvasPainter {
      * @param planeToCanvas the transform matrix for the conversion.
      */
     public void drawPlanets(ObservedSky sky, Transform planeToCanvas, StereographicProjection projection) {
-
-        double[] transformedPlanetPos = new double[sky.planetPositions().length];
-        planeToCanvas.transform2DPoints(sky.planetPositions(), 0, transformedPlanetPos, 0, sky.planets().size());
-
-        int i = 0;
-        for (Planet p : sky.planets()) {
-            double diameter = planeToCanvas.deltaTransform(magnitudeSize(p, projection), 0).getX();
-            double x = transformedPlanetPos[i];
-            double y = transformedPlanetPos[i + 1];
-            this.drawCircle(x, y, diameter, PLANET_COLOR);
-            i += 2;
+        SkyFrame frame = this.frameFor(sky, planeToCanvas, projection);
+        double[] transformedPlanetPos = frame.planetPositions;
+        double[] planetDiameters = frame.planetDiameters;
+
+        for (int i = 0; i < sky.planets().size(); i++) {
+            double x = transformedPlanetPos[2 * i];
+            double y = transformedPlanetPos[2 * i + 1];
+            this.drawCircle(x, y, planetDiameters[i], PLANET_COLOR);
         }
 
     }
@@ -163,9 +361,7 @@ final public class SkyCanvasPainter {
                 sky.sunPosition().x(),
                 sky.sunPosition().y()
         );
-        double diameter = planeToCanvas.deltaTransform(
-                projection.applyToAngle(sky.sun().angularSize()), 0
-        ).getX() * SCALE_FACTOR_SUNMOON;
+        double diameter = this.sunMoonDiameter(sky.sun().angularSize(), projection, planeToCanvas);
 
 
         double outerDiameter = 2.2 * diameter;
@@ -191,13 +387,34 @@ final public class SkyCanvasPainter {
 
         Point2D transformedPos = planeToCanvas.transform(sky.moonPosition().x(), sky.moonPosition().y());
 
-        double diameter = planeToCanvas.deltaTransform(
-                projection.applyToAngle(sky.moon().angularSize()), 0
-        ).getX() * SCALE_FACTOR_SUNMOON;
+        double diameter = this.sunMoonDiameter(sky.moon().angularSize(), projection, planeToCanvas);
 
         this.drawCircle(transformedPos.getX(), transformedPos.getY(), diameter , MOON_COLOR);
     }
 
+    /**
+     * Computes the diameter on the canvas of the Sun or the Moon, enlarged to be visible.
+     *
+     * @param angularSize   the angular size of the body.
+     * @param projection    the stereographic projection of the sky.
+     * @param planeToCanvas the transform matrix for the conversion.
+     * @return the diameter on the canvas.
+     */
+    private double sunMoonDiameter(double angularSize, StereographicProjection projection, Transform planeToCanvas) {
+        return planeToCanvas.deltaTransform(projection.applyToAngle(angularSize), 0).getX() * SCALE_FACTOR_SUNMOON;
+    }
+
+    /**
+     * Converts the colors of the black body palette to ARGB ints, for the rasterizer.
+     */
+    private static int[] paletteArgb() {
+        int[] argb = new int[BlackBodyColor.paletteSize()];
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = SkyRasterizer.argb(BlackBodyColor.paletteColor(i));
+        }
+        return argb;
+    }
+
     /**
      * Draws the Horizon line to the Canvas. Uses
      * a given Transform matrix to convert to the screen coordinate system.
@@ -217,6 +434,9 @@ final public class SkyCanvasPainter {
         graphicContext.setLineWidth(2);
         graphicContext.strokeOval(transformedPos.getX() - radius,
                 transformedPos.getY() - radius, transformedDiameter, transformedDiameter);
+        if (this.reducedDetail) {
+            return;
+        }
 
         for (int i = 0; i < 8; i++) {
             HorizontalCoordinates horiz = HorizontalCoordinates.ofDeg(i * CIRCLE_EIGHTH_DEGREE, 0);
@@ -234,49 +454,52 @@ final public class SkyCanvasPainter {
 
 
     /**
-     * Method used along draw stars. Draw the asterisms.
+     * Method used along draw stars. Draw the asterisms, as a single path clipped to the canvas: the segments crossing
+     * the canvas are drawn even if both their stars are out of it, and the segments with a star out of the visible
+     * part of the sky are left out. Allocates nothing but the names of the asterisms drawn.
      *
      * @param sky
      * @param transformedStarPos
      */
     private void drawAsterisms(ObservedSky sky, double[] transformedStarPos) {
-
-        Set<Asterism> asterismSet = sky.asterisms();
-        //Draw Asterisms
-
-        for (Asterism ast : asterismSet) {
-            List<Integer> indexList = sky.asterismIndices(ast);
-            this.graphicContext.setStroke(ASTERISM_COLOR);
-            this.graphicContext.beginPath();
-            boolean isPreviousStarOnScreen = true;
-            boolean isCurrentStarOnScreen = true;
-            double nameX = 0.0;
-            double nameY = 0.0;
-
-            for (int i = 0; i < indexList.size(); i++) {
-                int index = indexList.get(i);
-                double x = transformedStarPos[2 * index];
-                double y = transformedStarPos[2 * index + 1];
-
-                if (i == 0) {
-                    this.graphicContext.moveTo(x, y);
-                    nameX = x ;
-                    nameY = y ;
-                } else {
-                    isCurrentStarOnScreen = this.isInScreen(x, y);
-                    if (isCurrentStarOnScreen || isPreviousStarOnScreen) this.graphicContext.lineTo(x, y);
-                    else this.graphicContext.moveTo(x, y);
-
+        int[] offsets = sky.asterismOffsets();
+        int[] indices = sky.asterismStarIndices();
+        //Margin of the width of the line, so that the segments along the borders are still drawn.
+        this.clipper.setBounds(-1, -1, this.canvas.getWidth() + 1, this.canvas.getHeight() + 1);
+
+        this.graphicContext.setStroke(ASTERISM_COLOR);
+        this.graphicContext.beginPath();
+        //End of the last segment added to the path, the next one being joined to it if it starts there.
+        double penX = Double.NaN;
+        double penY = Double.NaN;
+        for (int a = 0; a < sky.asterismCount(); a++) {
+            for (int i = offsets[a] + 1; i < offsets[a + 1]; i++) {
+                int from = 2 * indices[i - 1];
+                int to = 2 * indices[i];
+                if (!this.clipper.clip(transformedStarPos[from], transformedStarPos[from + 1],
+                        transformedStarPos[to], transformedStarPos[to + 1])) {
+                    continue;
+                }
+                if (this.clipper.x0() != penX || this.clipper.y0() != penY) {
+                    this.graphicContext.moveTo(this.clipper.x0(), this.clipper.y0());
                 }
-                isPreviousStarOnScreen = isCurrentStarOnScreen;
+                this.graphicContext.lineTo(this.clipper.x1(), this.clipper.y1());
+                penX = this.clipper.x1();
+                penY = this.clipper.y1();
             }
-            this.graphicContext.stroke();
-            this.graphicContext.closePath();
-
-            if(this.isInScreen(nameX + 10, nameY + 5))
-                this.drawText(ast.getName(),nameX + 10,nameY + 5, Color.WHITE,VPos.CENTER);
         }
+        this.graphicContext.stroke();
 
+        if (this.reducedDetail) {
+            return;
+        }
+        for (int a = 0; a < sky.asterismCount(); a++) {
+            int first = 2 * indices[offsets[a]];
+            double nameX = transformedStarPos[first] + 10;
+            double nameY = transformedStarPos[first + 1] + 5;
+            if (this.clipper.contains(nameX, nameY))
+                this.drawText(sky.asterism(a).getName(), nameX, nameY, Color.WHITE, VPos.CENTER);
+        }
     }
 
     /**
@@ -309,16 +532,15 @@ final public class SkyCanvasPainter {
     }
 
     /**
-     * Computes the magnitude size technique for the stars and planets diameter.
+     * Computes the magnitude size technique factor for the stars and planets diameter.
+     * Only depends on the magnitude, the diameter being this factor times the projected apparent size.
      *
-     * @param celestialObject
-     * @param projection
+     * @param magnitude
      * @return
      */
-    static private double magnitudeSize(CelestialObject celestialObject, StereographicProjection projection) {
-        double clippedMag = CLIP_INTERVAL_MAG.clip(celestialObject.magnitude());
-        double sizeFactor = (CLIP_MAG_ALPHA - CLIP_MAG_FACTOR * clippedMag) / CLIP_MAG_BETA;
-        return sizeFactor * projection.applyToAngle(CLIP_MAG_APPARENT_SIZE);
+    static double magnitudeSizeFactor(double magnitude) {
+        double clippedMag = CLIP_INTERVAL_MAG.clip(magnitude);
+        return (CLIP_MAG_ALPHA - CLIP_MAG_FACTOR * clippedMag) / CLIP_MAG_BETA;
     }
 
 
@@ -341,14 +563,5 @@ final public class SkyCanvasPainter {
 
     }
 
-    /**
-     * Check if  position is  within the screen boundaries.
-     * Helper method
-     *
-     * @return true if current position is within the screen boundaries. Otherwise false.
-     */
-    private boolean isInScreen(double x, double y) {
-        return canvas.getBoundsInLocal().contains(x, y);
-    }
 
 }
@@ -0,0 +1,142 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.StarStore;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import javafx.scene.transform.Transform;
+
+import java.util.List;
+
+/**
+ * Canvas positions and diameters of the stars and planets of a sky, keyed by the sky and the plane to canvas
+ * transform. The positions in the projection plane are kept by the sky itself, so that a change of the transform
+ * only (zoom or resize) costs an affine transform per object. The magnitude size factors and the color palette
+ * indices of the stars only depend on the catalogue and are computed once per catalogue.
+ * A frame does not depend on the canvas, so that it can be computed on any thread, then drawn on the JavaFX one.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class SkyFrame {
+    private ObservedSky sky;
+    private StereographicProjection projection;
+    private Transform planeToCanvas;
+    private StarStore store;
+    private double mxx, mxy, tx, myx, myy, ty;
+    private double[] sizeFactors = new double[0];
+    //Read directly by the painter.
+    short[] paletteIndices = new short[0];
+    double[] starPositions = new double[0];
+    double[] starDiameters = new double[0];
+    double[] planetPositions = new double[0];
+    double[] planetDiameters = new double[0];
+
+    /**
+     * Returns the sky of the frame.
+     *
+     * @return the sky of the frame, null if the frame was never updated.
+     */
+    ObservedSky sky() {
+        return this.sky;
+    }
+
+    /**
+     * Returns the stereographic projection of the sky of the frame.
+     *
+     * @return the projection of the frame.
+     */
+    StereographicProjection projection() {
+        return this.projection;
+    }
+
+    /**
+     * Returns the transform from the projection plane to the canvas of the frame.
+     *
+     * @return the plane to canvas transform of the frame.
+     */
+    Transform planeToCanvas() {
+        return this.planeToCanvas;
+    }
+
+    /**
+     * Checks whether the frame was computed for the given sky and transform.
+     *
+     * @param sky           the sky.
+     * @param planeToCanvas the transform matrix for the conversion.
+     * @return true iff the frame holds the canvas positions of the sky through the transform.
+     */
+    boolean isFor(ObservedSky sky, Transform planeToCanvas) {
+        return sky == this.sky
+                && planeToCanvas.getMxx() == mxx && planeToCanvas.getMxy() == mxy && planeToCanvas.getTx() == tx
+                && planeToCanvas.getMyx() == myx && planeToCanvas.getMyy() == myy && planeToCanvas.getTy() == ty;
+    }
+
+    /**
+     * Updates the frame for the given sky and transform, if needed.
+     *
+     * @param sky           the sky to draw.
+     * @param planeToCanvas the transform matrix for the conversion.
+     * @param projection    the stereographic projection of the sky.
+     */
+    void update(ObservedSky sky, Transform planeToCanvas, StereographicProjection projection) {
+        if (this.isFor(sky, planeToCanvas)) {
+            return;
+        }
+        this.sky = sky;
+        this.projection = projection;
+        this.planeToCanvas = planeToCanvas;
+        this.mxx = planeToCanvas.getMxx();
+        this.mxy = planeToCanvas.getMxy();
+        this.tx = planeToCanvas.getTx();
+        this.myx = planeToCanvas.getMyx();
+        this.myy = planeToCanvas.getMyy();
+        this.ty = planeToCanvas.getTy();
+
+        StarStore store = sky.starStore();
+        if (store != this.store) {
+            this.store = store;
+            this.sizeFactors = new double[store.size()];
+            for (int i = 0; i < store.size(); i++) {
+                this.sizeFactors[i] = SkyCanvasPainter.magnitudeSizeFactor(store.magnitude(i));
+            }
+            this.paletteIndices = new short[store.size()];
+            for (int i = 0; i < store.size(); i++) {
+                this.paletteIndices[i] = (short) BlackBodyColor.paletteIndex(store.colorTemperature(i));
+            }
+            this.starPositions = new double[2 * store.size()];
+            this.starDiameters = new double[store.size()];
+        }
+        //Equivalent to planeToCanvas.deltaTransform(size, 0).getX(), the apparent size being the same for all.
+        double sizeToCanvas = mxx * projection.applyToAngle(SkyCanvasPainter.CLIP_MAG_APPARENT_SIZE);
+        this.transform(sky.starPositions(), this.starPositions);
+        for (int i = 0; i < sizeFactors.length; i++) {
+            this.starDiameters[i] = sizeToCanvas * sizeFactors[i];
+        }
+
+        List<Planet> planets = sky.planets();
+        if (this.planetDiameters.length != planets.size()) {
+            this.planetPositions = new double[2 * planets.size()];
+            this.planetDiameters = new double[planets.size()];
+        }
+        this.transform(sky.planetPositions(), this.planetPositions);
+        for (int i = 0; i < planets.size(); i++) {
+            this.planetDiameters[i] = sizeToCanvas * SkyCanvasPainter.magnitudeSizeFactor(planets.get(i).magnitude());
+        }
+    }
+
+    /**
+     * Applies the transform of the frame to the given plane positions.
+     *
+     * @param planePositions positions in the projection plane, in pairs (x, y).
+     * @param out            array receiving the canvas positions.
+     */
+    private void transform(double[] planePositions, double[] out) {
+        for (int i = 0; i < planePositions.length; i += 2) {
+            double x = planePositions[i];
+            double y = planePositions[i + 1];
+            out[i] = mxx * x + mxy * y + tx;
+            out[i + 1] = myx * x + myy * y + ty;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.SolarSystemModel;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarProjectionEngine;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import javafx.scene.transform.Transform;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes the frames of the sky on a background thread, the JavaFX thread only drawing them.
+ * The requests are handed to the worker through a single slot: a request replaces the one still pending,
+ * so that the stale parameters are dropped when new ones arrive faster than the frames are computed.
+ * The finished frames are handed back the same way, the last one only being drawn.
+ * The frames are recycled: a frame is reused by the worker once the JavaFX thread took a newer one,
+ * so that the frame drawn, the frame ready to be drawn and the frame being computed never share their buffers.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class SkyFramePipeline {
+
+    private final StarCatalogue catalogue;
+    private final StarProjectionEngine engine;
+    private final SolarSystemModel solarSystemModel;
+    private final Runnable onFrameReady;
+    private final ExecutorService worker;
+    private final AtomicReference<Request> pending = new AtomicReference<Request>();
+    private final AtomicReference<SkyFrame> ready = new AtomicReference<SkyFrame>();
+    private final ConcurrentLinkedQueue<SkyFrame> free = new ConcurrentLinkedQueue<SkyFrame>();
+    //Only used by the thread drawing the frames.
+    private SkyFrame current = null;
+    //Only used by the worker: last computed sky, reused when only the center of projection changes.
+    private ObservedSky lastSky = null;
+
+    /**
+     * Constructs a pipeline computing the skies of the given catalogue.
+     *
+     * @param catalogue        the star catalogue.
+     * @param engine           the engine projecting the stars.
+     * @param solarSystemModel the model of the Sun, the Moon and the planets.
+     * @param onFrameReady     action run by the worker each time a frame is ready to be drawn.
+     */
+    SkyFramePipeline(StarCatalogue catalogue, StarProjectionEngine engine, SolarSystemModel solarSystemModel,
+                     Runnable onFrameReady) {
+        this.catalogue = Objects.requireNonNull(catalogue);
+        this.engine = Objects.requireNonNull(engine);
+        this.solarSystemModel = Objects.requireNonNull(solarSystemModel);
+        this.onFrameReady = Objects.requireNonNull(onFrameReady);
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sky-frames");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a frame to be computed for the given parameters, replacing the request still pending if any.
+     *
+     * @param request the parameters of the frame.
+     */
+    void request(Request request) {
+        //A task is only submitted when the slot was empty, the running task taking the requests until none is left.
+        if (this.pending.getAndSet(Objects.requireNonNull(request)) == null) {
+            this.worker.execute(this::computePending);
+        }
+    }
+
+    /**
+     * Returns the frame to draw: the last computed one, or the frame returned by the previous call if no frame was
+     * computed since. The frame returned by the previous call may be recycled once a newer frame is returned.
+     *
+     * @return the frame to draw, null if no frame was computed yet.
+     */
+    SkyFrame frame() {
+        SkyFrame next = this.ready.getAndSet(null);
+        if (next != null) {
+            if (this.current != null) {
+                this.free.offer(this.current);
+            }
+            this.current = next;
+        }
+        return this.current;
+    }
+
+    /**
+     * Computes the frames of the pending requests, the last one only if several were made meanwhile.
+     */
+    private void computePending() {
+        Request request;
+        while ((request = this.pending.getAndSet(null)) != null) {
+            SkyFrame frame = this.free.poll();
+            if (frame == null) {
+                frame = new SkyFrame();
+            }
+            this.compute(request, frame);
+            SkyFrame stale = this.ready.getAndSet(frame);
+            if (stale != null) {
+                //Never drawn, the JavaFX thread did not take it in time.
+                this.free.offer(stale);
+            }
+            this.onFrameReady.run();
+        }
+    }
+
+    /**
+     * Computes the sky of the given request and its canvas positions into the given frame.
+     *
+     * @param request the parameters of the frame.
+     * @param frame   the frame receiving the sky.
+     */
+    private void compute(Request request, SkyFrame frame) {
+        ObservedSky previous = this.lastSky;
+        ObservedSky sky = (previous != null && previous.isObservedAt(request.when, request.where))
+                ? previous.withProjection(request.projection, request.visibleRadius, request.limitingMagnitude)
+                : new ObservedSky(request.when, request.where, request.projection, this.catalogue,
+                this.engine, request.visibleRadius, request.limitingMagnitude, this.solarSystemModel);
+        this.lastSky = sky;
+        //Builds the index of the objects here too, instead of on the first query under the mouse.
+        sky.buildObjectIndex();
+        frame.update(sky, request.planeToCanvas, request.projection);
+    }
+
+    /**
+     * Parameters of a frame, taken on the JavaFX thread.
+     */
+    static final class Request {
+        private final ZonedDateTime when;
+        private final GeographicCoordinates where;
+        private final StereographicProjection projection;
+        private final Transform planeToCanvas;
+        private final double visibleRadius;
+        private final double limitingMagnitude;
+
+        /**
+         * Constructs the parameters of a frame.
+         *
+         * @param when              the observation instant.
+         * @param where             the observer location.
+         * @param projection        the stereographic projection of the sky.
+         * @param planeToCanvas     the transform from the projection plane to the canvas, not modified afterwards.
+         * @param visibleRadius     the angular radius of the visible part of the sky.
+         * @param limitingMagnitude the magnitude of the faintest stars drawn.
+         */
+        Request(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
+                Transform planeToCanvas, double visibleRadius, double limitingMagnitude) {
+            this.when = Objects.requireNonNull(when);
+            this.where = Objects.requireNonNull(where);
+            this.projection = Objects.requireNonNull(projection);
+            this.planeToCanvas = Objects.requireNonNull(planeToCanvas);
+            this.visibleRadius = visibleRadius;
+            this.limitingMagnitude = limitingMagnitude;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Software rasterizer of the discs of the sky (stars, planets, Sun and Moon) into an ARGB pixel buffer,
+ * pushed to a WritableImage in a single call per frame.
+ * The discs are queued in drawing order, then blended over an opaque background with anti-aliased edges.
+ * The coverage of the small discs comes from sprites precomputed once per diameter and sub-pixel
+ * position (both quantized to a quarter of pixel), the one of the larger discs being computed per pixel.
+ * The rows of the buffer are split in bands rasterized in parallel, each band drawing the discs in the
+ * same order, so that the result does not depend on the number of bands.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+final class SkyRasterizer {
+
+    //Quantization of the sub-pixel positions and of the diameters of the sprites.
+    private static final int SUBPIXELS = 4;
+    private static final double DIAMETER_STEP = 1.0 / SUBPIXELS;
+    private static final double MAX_SPRITE_DIAMETER = 32;
+    //Samples per pixel side used to compute the coverage of the sprites.
+    private static final int SAMPLES = 8;
+    //Minimum number of discs worth splitting the rasterization.
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int MIN_BAND_ROWS = 32;
+
+    //Sprites indexed by quantized diameter, then sub-pixel row and column. Created lazily by any band:
+    //concurrent creations of the same sprite are harmless as sprites are immutable.
+    private static final Sprite[] SPRITES =
+            new Sprite[((int) (MAX_SPRITE_DIAMETER / DIAMETER_STEP) + 1) * SUBPIXELS * SUBPIXELS];
+
+    private int width = 0;
+    private int height = 0;
+    private int[] pixels = new int[0];
+    private WritableImage image;
+    private double[] discs = new double[3 * 1024];
+    private int[] colors = new int[1024];
+    private int discCount = 0;
+
+    /**
+     * Starts a frame of the given size, filled with the given opaque background.
+     *
+     * @param width      width of the frame in pixels.
+     * @param height     height of the frame in pixels.
+     * @param background background color, its opacity being ignored.
+     * @throws IllegalArgumentException if the width or the height is negative.
+     */
+    void begin(int width, int height, Color background) {
+        Preconditions.checkArgument(width >= 0 && height >= 0);
+        if (width != this.width || height != this.height) {
+            this.width = width;
+            this.height = height;
+            this.pixels = new int[width * height];
+            this.image = width > 0 && height > 0 ? new WritableImage(width, height) : null;
+        }
+        Arrays.fill(this.pixels, argb(background) | 0xFF000000);
+        this.discCount = 0;
+    }
+
+    /**
+     * Queues a disc, drawn over the discs queued before it.
+     *
+     * @param x        abscissa of the center, in pixels.
+     * @param y        ordinate of the center, in pixels.
+     * @param diameter diameter in pixels.
+     * @param color    color of the disc, its opacity being used.
+     */
+    void addDisc(double x, double y, double diameter, Color color) {
+        this.addDisc(x, y, diameter, argb(color));
+    }
+
+    /**
+     * Queues a disc, drawn over the discs queued before it.
+     *
+     * @param x        abscissa of the center, in pixels.
+     * @param y        ordinate of the center, in pixels.
+     * @param diameter diameter in pixels.
+     * @param argb     color of the disc as a non pre-multiplied ARGB int.
+     */
+    void addDisc(double x, double y, double diameter, int argb) {
+        if (!(diameter > 0) || Double.isNaN(x) || Double.isNaN(y)) {
+            return;
+        }
+        if (discCount == colors.length) {
+            discs = Arrays.copyOf(discs, 6 * discCount);
+            colors = Arrays.copyOf(colors, 2 * discCount);
+        }
+        discs[3 * discCount] = x;
+        discs[3 * discCount + 1] = y;
+        discs[3 * discCount + 2] = diameter;
+        colors[discCount] = argb;
+        discCount++;
+    }
+
+    /**
+     * Rasterizes the queued discs and pushes the pixels to the image of the frame. The queue is then emptied,
+     * so that more discs can be drawn over the frame.
+     *
+     * @return the image of the frame, or null if the frame is empty.
+     */
+    WritableImage end() {
+        if (image == null) {
+            discCount = 0;
+            return null;
+        }
+        int bands = discCount < PARALLEL_THRESHOLD ? 1
+                : Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism() * 2, height / MIN_BAND_ROWS));
+        BandTask task = new BandTask(this, bands, 0, bands);
+        if (bands == 1) {
+            task.compute();
+        } else if (ForkJoinTask.getPool() != null) {
+            task.invoke();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        discCount = 0;
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * Returns the pixels of the last frame, as opaque ARGB ints row by row.
+     * The array is not copied and must not be modified.
+     *
+     * @return the pixels of the last frame.
+     */
+    int[] pixels() {
+        return pixels;
+    }
+
+    /**
+     * Draws all the queued discs, clipped to the rows of [rowFrom, rowTo[.
+     */
+    private void rasterizeRows(int rowFrom, int rowTo) {
+        for (int d = 0; d < discCount; d++) {
+            double x = discs[3 * d];
+            double y = discs[3 * d + 1];
+            double diameter = discs[3 * d + 2];
+            double radius = diameter / 2;
+            if (y + radius + 1 < rowFrom || y - radius - 1 >= rowTo
+                    || x + radius + 1 < 0 || x - radius - 1 >= width) {
+                continue;
+            }
+            if (diameter <= MAX_SPRITE_DIAMETER) {
+                this.drawSprite(x, y, diameter, colors[d], rowFrom, rowTo);
+            } else {
+                this.drawLargeDisc(x, y, radius, colors[d], rowFrom, rowTo);
+            }
+        }
+    }
+
+    /**
+     * Draws a disc with the sprite of its quantized diameter and position.
+     */
+    private void drawSprite(double x, double y, double diameter, int argb, int rowFrom, int rowTo) {
+        int ix = (int) Math.floor(x);
+        int iy = (int) Math.floor(y);
+        int fx = (int) Math.round((x - ix) * SUBPIXELS);
+        int fy = (int) Math.round((y - iy) * SUBPIXELS);
+        if (fx == SUBPIXELS) {
+            fx = 0;
+            ix++;
+        }
+        if (fy == SUBPIXELS) {
+            fy = 0;
+            iy++;
+        }
+        int step = Math.max(1, (int) Math.round(diameter / DIAMETER_STEP));
+        Sprite sprite = sprite(step, fx, fy);
+
+        int left = ix - sprite.offset;
+        int top = iy - sprite.offset;
+        int rowStart = Math.max(top, rowFrom);
+        int rowEnd = Math.min(top + sprite.size, Math.min(rowTo, height));
+        int columnStart = Math.max(left, 0);
+        int columnEnd = Math.min(left + sprite.size, width);
+        for (int row = rowStart; row < rowEnd; row++) {
+            int maskRow = (row - top) * sprite.size - left;
+            int pixelRow = row * width;
+            for (int column = columnStart; column < columnEnd; column++) {
+                int coverage = sprite.coverage[maskRow + column] & 0xFF;
+                if (coverage != 0) {
+                    pixels[pixelRow + column] = blend(pixels[pixelRow + column], argb, coverage);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a disc too large for the sprites, its coverage being approximated by the distance of the
+     * center of each pixel to its edge.
+     */
+    private void drawLargeDisc(double x, double y, double radius, int argb, int rowFrom, int rowTo) {
+        int rowStart = Math.max((int) Math.floor(y - radius - 1), Math.max(rowFrom, 0));
+        int rowEnd = Math.min((int) Math.ceil(y + radius + 1), Math.min(rowTo, height));
+        int columnStart = Math.max((int) Math.floor(x - radius - 1), 0);
+        int columnEnd = Math.min((int) Math.ceil(x + radius + 1), width);
+        for (int row = rowStart; row < rowEnd; row++) {
+            double dy = row + 0.5 - y;
+            int pixelRow = row * width;
+            for (int column = columnStart; column < columnEnd; column++) {
+                double dx = column + 0.5 - x;
+                double coverage = radius + 0.5 - Math.sqrt(dx * dx + dy * dy);
+                if (coverage > 0) {
+                    pixels[pixelRow + column] = blend(pixels[pixelRow + column], argb,
+                            coverage >= 1 ? 255 : (int) Math.round(coverage * 255));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sprite of the given quantized diameter and sub-pixel position, creating it if needed.
+     */
+    private static Sprite sprite(int step, int fx, int fy) {
+        int index = (step * SUBPIXELS + fy) * SUBPIXELS + fx;
+        Sprite sprite = SPRITES[index];
+        if (sprite == null) {
+            sprite = new Sprite(step * DIAMETER_STEP / 2, (double) fx / SUBPIXELS, (double) fy / SUBPIXELS);
+            SPRITES[index] = sprite;
+        }
+        return sprite;
+    }
+
+    /**
+     * Blends the given color over the given opaque pixel, with the given coverage.
+     *
+     * @param pixel    opaque ARGB pixel.
+     * @param argb     non pre-multiplied ARGB color.
+     * @param coverage coverage of the pixel, in [0, 255].
+     * @return the blended opaque pixel.
+     */
+    static int blend(int pixel, int argb, int coverage) {
+        int alpha = ((argb >>> 24) * coverage + 127) / 255;
+        int inverse = 255 - alpha;
+        int r = (((argb >> 16) & 0xFF) * alpha + ((pixel >> 16) & 0xFF) * inverse + 127) / 255;
+        int g = (((argb >> 8) & 0xFF) * alpha + ((pixel >> 8) & 0xFF) * inverse + 127) / 255;
+        int b = ((argb & 0xFF) * alpha + (pixel & 0xFF) * inverse + 127) / 255;
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Converts a color to a non pre-multiplied ARGB int.
+     *
+     * @param color the color.
+     * @return the ARGB int.
+     */
+    static int argb(Color color) {
+        return ((int) Math.round(color.getOpacity() * 255) << 24)
+                | ((int) Math.round(color.getRed() * 255) << 16)
+                | ((int) Math.round(color.getGreen() * 255) << 8)
+                | (int) Math.round(color.getBlue() * 255);
+    }
+
+    /**
+     * Square coverage mask of a disc whose center is at the given sub-pixel position of the pixel of
+     * index offset in both directions.
+     */
+    private static final class Sprite {
+        private final int size;
+        private final int offset;
+        private final byte[] coverage;
+
+        private Sprite(double radius, double subX, double subY) {
+            this.offset = (int) Math.ceil(radius) + 1;
+            this.size = 2 * offset + 1;
+            this.coverage = new byte[size * size];
+            double radiusSqrd = radius * radius;
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    int inside = 0;
+                    for (int sy = 0; sy < SAMPLES; sy++) {
+                        double dy = row - offset + (sy + 0.5) / SAMPLES - subY;
+                        for (int sx = 0; sx < SAMPLES; sx++) {
+                            double dx = column - offset + (sx + 0.5) / SAMPLES - subX;
+                            if (dx * dx + dy * dy <= radiusSqrd) inside++;
+                        }
+                    }
+                    coverage[row * size + column] = (byte) Math.round(255.0 * inside / (SAMPLES * SAMPLES));
+                }
+            }
+        }
+    }
+
+    /**
+     * Task splitting its range of bands in halves until a single band is left, which it rasterizes.
+     */
+    private static final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SkyRasterizer rasterizer;
+        private final int bands;
+        private final int from;
+        private final int to;
+
+        private BandTask(SkyRasterizer rasterizer, int bands, int from, int to) {
+            this.rasterizer = rasterizer;
+            this.bands = bands;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int height = rasterizer.height;
+                rasterizer.rasterizeRows((int) ((long) from * height / bands), (int) ((long) to * height / bands));
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BandTask(rasterizer, bands, from, middle), new BandTask(rasterizer, bands, middle, to));
+            }
+        }
+    }
+}
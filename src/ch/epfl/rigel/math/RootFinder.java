@@ -0,0 +1,66 @@
+package ch.epfl.rigel.math;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Static class offering tools to find the roots of the functions of a real variable, used by the searches of events.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class RootFinder {
+
+    //Non instanceable class.
+    private RootFinder() {
+    }
+
+    /**
+     * Refines the root of the given function bracketed by [a, b] with the Illinois variant of the regula falsi:
+     * the value kept at an end twice in a row is halved, so that both ends converge.
+     *
+     * @param f             the function, continuous on [a, b].
+     * @param a             the lower end of the bracket.
+     * @param fa            the value of the function at a.
+     * @param b             the upper end of the bracket.
+     * @param fb            the value of the function at b, of the opposite sign of fa (or zero).
+     * @param tolerance     the width of the bracket under which the search stops.
+     * @param maxIterations the maximal number of evaluations of the function.
+     * @return the root, or the middle of the last bracket.
+     * @throws IllegalArgumentException if a is greater than b, if the values have the same sign or if the tolerance
+     *                                  is not strictly positive.
+     */
+    public static double illinois(DoubleUnaryOperator f, double a, double fa, double b, double fb,
+                                  double tolerance, int maxIterations) {
+        Preconditions.checkArgument(a <= b && !(fa < 0 == fb < 0 && fa != 0 && fb != 0) && tolerance > 0);
+        if (fa == 0) {
+            return a;
+        } else if (fb == 0) {
+            return b;
+        }
+        int side = 0;
+        for (int i = 0; i < maxIterations && b - a > tolerance; i++) {
+            double c = (a * fb - b * fa) / (fb - fa);
+            double fc = f.applyAsDouble(c);
+            if (fc == 0) {
+                return c;
+            } else if ((fc < 0) == (fa < 0)) {
+                a = c;
+                fa = fc;
+                if (side == 1) {
+                    fb /= 2;
+                }
+                side = 1;
+            } else {
+                b = c;
+                fb = fc;
+                if (side == -1) {
+                    fa /= 2;
+                }
+                side = -1;
+            }
+        }
+        return (a + b) / 2;
+    }
+}
@@ -0,0 +1,121 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.rigel.Preconditions;
+
+/**
+ * Hash map from int keys to int values, stored in primitive arrays with open addressing and
+ * linear probing, so that neither the keys nor the values are boxed.
+ * Entries can only be added, as needed to index the elements of a catalogue by one of their ids.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class IntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+
+    /**
+     * Constructs an empty map with a default capacity.
+     */
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty map able to hold the given number of entries without growing.
+     *
+     * @param capacity expected number of entries.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public IntHashMap(int capacity) {
+        Preconditions.checkArgument(capacity >= 0);
+        //Load factor of at most one half.
+        int slots = Integer.highestOneBit(Math.max(2 * capacity, DEFAULT_CAPACITY) - 1) << 1;
+        this.keys = new int[slots];
+        this.values = new int[slots];
+        this.used = new boolean[slots];
+    }
+
+    /**
+     * Returns the number of entries of the map.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value associated to the given key.
+     *
+     * @param key          the key.
+     * @param defaultValue value returned if the key is not in the map.
+     * @return the value associated to the key, or the default value.
+     */
+    public int get(int key, int defaultValue) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Associates the given value to the given key, unless the key is already in the map.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return true iff the entry was added.
+     */
+    public boolean putIfAbsent(int key, int value) {
+        if (2 * (size + 1) > keys.length) {
+            this.grow();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Doubles the number of slots, inserting the entries again.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[2 * oldKeys.length];
+        values = new int[2 * oldKeys.length];
+        used = new boolean[2 * oldKeys.length];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                putIfAbsent(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the key, ids being often consecutive.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
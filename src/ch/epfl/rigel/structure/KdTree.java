@@ -0,0 +1,165 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of a static two dimensional k-d tree over points given in pairs (x, y).
+ * The tree is stored implicitly in arrays: the median of each range is its root, its left and right
+ * subtrees being the lower and upper halves of the range, the splitting axis alternating with the depth.
+ * Answers exact nearest neighbour queries within a given distance in O(log n) on average.
+ * Points having a NaN coordinate are not indexed.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class KdTree {
+
+    private final double[] points;
+    private final int[] indices;
+
+    /**
+     * Builds the tree over the given points. The point of index i is (positions[2i], positions[2i + 1]).
+     *
+     * @param positions the points, in pairs (x, y).
+     * @throws IllegalArgumentException if the length of the positions is odd.
+     */
+    public KdTree(double[] positions) {
+        Preconditions.checkArgument(positions.length % 2 == 0);
+        int[] indices = new int[positions.length / 2];
+        int size = 0;
+        for (int i = 0; i < positions.length / 2; i++) {
+            if (!Double.isNaN(positions[2 * i]) && !Double.isNaN(positions[2 * i + 1])) {
+                indices[size++] = i;
+            }
+        }
+        this.indices = Arrays.copyOf(indices, size);
+        build(positions, this.indices, 0, size, 0);
+
+        //Coordinates copied in tree order, so that a query reads them sequentially.
+        this.points = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            this.points[2 * i] = positions[2 * this.indices[i]];
+            this.points[2 * i + 1] = positions[2 * this.indices[i] + 1];
+        }
+    }
+
+    /**
+     * Returns the number of points indexed by the tree.
+     *
+     * @return the number of points indexed by the tree.
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the index of the point closest to (x, y), within the given distance (included).
+     * When several points are at the same distance, the one of lowest index is returned.
+     *
+     * @param x           x coordinate of the reference point.
+     * @param y           y coordinate of the reference point.
+     * @param maxDistance the maximum distance.
+     * @return the index of the closest point, or -1 if there is no point within the given distance.
+     * @throws IllegalArgumentException if the distance is negative.
+     */
+    public int nearestWithin(double x, double y, double maxDistance) {
+        Preconditions.checkArgument(maxDistance >= 0);
+        Query query = new Query(x, y, maxDistance * maxDistance);
+        this.search(query, 0, indices.length, 0);
+        return query.bestIndex;
+    }
+
+    /**
+     * Searches the subtree of the given range.
+     *
+     * @param query the query being answered.
+     * @param from  index of the first point of the subtree (included).
+     * @param to    index of the last point of the subtree (excluded).
+     * @param axis  splitting axis of the subtree, 0 for x and 1 for y.
+     */
+    private void search(Query query, int from, int to, int axis) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        double dx = query.x - points[2 * middle];
+        double dy = query.y - points[2 * middle + 1];
+        double distanceSqrd = dx * dx + dy * dy;
+        int index = indices[middle];
+        if (distanceSqrd < query.bestDistanceSqrd
+                || (distanceSqrd == query.bestDistanceSqrd && (query.bestIndex == -1 || index < query.bestIndex))) {
+            query.bestDistanceSqrd = distanceSqrd;
+            query.bestIndex = index;
+        }
+
+        double delta = axis == 0 ? dx : dy;
+        //The side of the reference point first, the other one only if it can contain a closer point.
+        if (delta < 0) {
+            search(query, from, middle, 1 - axis);
+            if (delta * delta <= query.bestDistanceSqrd) search(query, middle + 1, to, 1 - axis);
+        } else {
+            search(query, middle + 1, to, 1 - axis);
+            if (delta * delta <= query.bestDistanceSqrd) search(query, from, middle, 1 - axis);
+        }
+    }
+
+    /**
+     * Orders the indices of the given range so that its median splits it along the given axis, then
+     * recursively orders both halves along the other axis.
+     */
+    private static void build(double[] positions, int[] indices, int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        select(positions, indices, from, to, middle, axis);
+        build(positions, indices, from, middle, 1 - axis);
+        build(positions, indices, middle + 1, to, 1 - axis);
+    }
+
+    /**
+     * Quickselect: moves the k-th smallest point of the range along the given axis at index k, the smaller
+     * points before it and the greater ones after it.
+     */
+    private static void select(double[] positions, int[] indices, int from, int to, int k, int axis) {
+        int left = from;
+        int right = to - 1;
+        while (left < right) {
+            double pivot = positions[2 * indices[(left + right) >>> 1] + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (positions[2 * indices[i] + axis] < pivot) i++;
+                while (positions[2 * indices[j] + axis] > pivot) j--;
+                if (i <= j) {
+                    int tmp = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    /**
+     * State of a nearest neighbour query.
+     */
+    private static final class Query {
+        private final double x;
+        private final double y;
+        private double bestDistanceSqrd;
+        private int bestIndex = -1;
+
+        private Query(double x, double y, double maxDistanceSqrd) {
+            this.x = x;
+            this.y = y;
+            this.bestDistanceSqrd = maxDistanceSqrd;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hierarchical spatial index of points on the sphere, given by their longitude and latitude
+ * (i.e. right ascension and declination), answering cone queries.
+ * The points are sorted along the nested HEALPix equal area tessellation of the sphere: each of the
+ * twelve base pixels is recursively split in four pixels of equal area, so that the points of a pixel are
+ * contiguous at every level. Each non empty pixel is a node of the tree, bounded by the smallest cap
+ * centered on the mean direction of its points that contains them all.
+ *
+ * @author Mark Mouawad (296508)
+ * @author Leah Uzzan (302829)
+ */
+public final class SphereIndex {
+
+    //Order of the finest tessellation: 12 * 4^10 pixels of about 3.4 arc minutes.
+    private static final int MAX_ORDER = 10;
+    private static final int NSIDE = 1 << MAX_ORDER;
+    //Nodes having less points than this are not split.
+    private static final int LEAF_SIZE = 32;
+    private static final int BASE_PIXELS = 12;
+    //Keeps points lying exactly on the boundary of a cap inside it despite rounding errors.
+    private static final double EPSILON = 1e-12;
+
+    private final int[] indices;
+    private final double[] points;
+    private final List<Node> roots;
+
+    /**
+     * Builds the index over the given points. The point of index i has the longitude lonLat[2i]
+     * and the latitude lonLat[2i + 1], in radians.
+     *
+     * @param lonLat the points, in pairs (longitude, latitude).
+     * @throws IllegalArgumentException if the length of the positions is odd.
+     */
+    public SphereIndex(double[] lonLat) {
+        Preconditions.checkArgument(lonLat.length % 2 == 0);
+        int size = lonLat.length / 2;
+
+        //Sorts the points by pixel, the pixel being stored in the high bits of a key and the index in the low ones.
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) nestedPixel(lonLat[2 * i], lonLat[2 * i + 1]) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        this.indices = new int[size];
+        this.points = new double[3 * size];
+        int[] pixels = new int[size];
+        for (int k = 0; k < size; k++) {
+            int i = (int) keys[k];
+            pixels[k] = (int) (keys[k] >>> 32);
+            indices[k] = i;
+            double cosLat = Math.cos(lonLat[2 * i + 1]);
+            points[3 * k] = cosLat * Math.cos(lonLat[2 * i]);
+            points[3 * k + 1] = cosLat * Math.sin(lonLat[2 * i]);
+            points[3 * k + 2] = Math.sin(lonLat[2 * i + 1]);
+        }
+
+        this.roots = new ArrayList<Node>();
+        int from = 0;
+        for (int face = 0; face < BASE_PIXELS; face++) {
+            int to = upperBound(pixels, from, (face + 1) << (2 * MAX_ORDER));
+            if (from < to) {
+                roots.add(this.buildNode(pixels, from, to, 0, face));
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Returns the number of points indexed.
+     *
+     * @return the number of points indexed.
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the indices of the points whose angular distance to the given center is at most the given radius.
+     *
+     * @param lon    longitude of the center of the cone, in radians.
+     * @param lat    latitude of the center of the cone, in radians.
+     * @param radius angular radius of the cone, in radians.
+     * @return the indices of the points in the cone, in increasing order.
+     * @throws IllegalArgumentException if the radius is negative.
+     */
+    public int[] indicesWithin(double lon, double lat, double radius) {
+        Preconditions.checkArgument(radius >= 0);
+        if (radius >= Math.PI) {
+            int[] all = new int[indices.length];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        double cosLat = Math.cos(lat);
+        Cone cone = new Cone(cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat), radius);
+        for (Node root : roots) {
+            this.collect(root, cone);
+        }
+        int[] result = Arrays.copyOf(cone.result, cone.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Adds the points of the given node lying in the cone to the result of the query.
+     *
+     * @param node the node.
+     * @param cone the query.
+     */
+    private void collect(Node node, Cone cone) {
+        double angle = angle(cone.x * node.x + cone.y * node.y + cone.z * node.z);
+        if (angle - node.radius > cone.radius) {
+            return;
+        }
+        if (angle + node.radius <= cone.radius) {
+            cone.addAll(indices, node.from, node.to);
+        } else if (node.children == null) {
+            for (int k = node.from; k < node.to; k++) {
+                double dot = cone.x * points[3 * k] + cone.y * points[3 * k + 1] + cone.z * points[3 * k + 2];
+                if (dot >= cone.cosRadius) {
+                    cone.add(indices[k]);
+                }
+            }
+        } else {
+            for (Node child : node.children) {
+                this.collect(child, cone);
+            }
+        }
+    }
+
+    /**
+     * Builds the node of the given pixel, whose points are those of the range [from, to[.
+     *
+     * @param pixels pixel of each point at the finest order.
+     * @param from   index of the first point of the node (included).
+     * @param to     index of the last point of the node (excluded).
+     * @param order  order of the pixel.
+     * @param pixel  nested index of the pixel at its order.
+     * @return the node.
+     */
+    private Node buildNode(int[] pixels, int from, int to, int order, int pixel) {
+        double x = 0, y = 0, z = 0;
+        for (int k = from; k < to; k++) {
+            x += points[3 * k];
+            y += points[3 * k + 1];
+            z += points[3 * k + 2];
+        }
+        double norm = Math.sqrt(x * x + y * y + z * z);
+        if (norm < EPSILON) {
+            x = points[3 * from];
+            y = points[3 * from + 1];
+            z = points[3 * from + 2];
+        } else {
+            x /= norm;
+            y /= norm;
+            z /= norm;
+        }
+        double minDot = 1;
+        for (int k = from; k < to; k++) {
+            minDot = Math.min(minDot, x * points[3 * k] + y * points[3 * k + 1] + z * points[3 * k + 2]);
+        }
+        Node node = new Node(x, y, z, angle(minDot) + EPSILON, from, to);
+
+        if (to - from > LEAF_SIZE && order < MAX_ORDER) {
+            List<Node> children = new ArrayList<Node>(4);
+            int childFrom = from;
+            for (int c = 0; c < 4; c++) {
+                int childPixel = 4 * pixel + c;
+                int childTo = upperBound(pixels, childFrom, (childPixel + 1) << (2 * (MAX_ORDER - order - 1)));
+                if (childFrom < childTo) {
+                    children.add(this.buildNode(pixels, childFrom, childTo, order + 1, childPixel));
+                }
+                childFrom = childTo;
+            }
+            node.children = children.toArray(new Node[0]);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the index of the first pixel of the sorted array greater or equal to the given bound,
+     * starting the search at the given index.
+     */
+    private static int upperBound(int[] pixels, int from, int bound) {
+        int low = from;
+        int high = pixels.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (pixels[middle] < bound) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the angle whose cosine is given, tolerating rounding errors outside of [-1, 1].
+     */
+    private static double angle(double cos) {
+        return Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
+
+    /**
+     * Computes the nested HEALPix pixel containing the given point at the finest order.
+     *
+     * @param lon longitude in radians.
+     * @param lat latitude in radians.
+     * @return the nested index of the pixel.
+     */
+    static int nestedPixel(double lon, double lat) {
+        double z = Math.sin(lat);
+        double za = Math.abs(z);
+        double tt = lon / (Math.PI / 2);
+        tt -= 4 * Math.floor(tt / 4);
+        if (tt >= 4) tt = 0;
+
+        int face;
+        int ix;
+        int iy;
+        if (za <= 2.0 / 3) {
+            //Equatorial region.
+            double temp1 = NSIDE * (0.5 + tt);
+            double temp2 = NSIDE * (z * 0.75);
+            int jp = (int) (temp1 - temp2);
+            int jm = (int) (temp1 + temp2);
+            int ifp = jp >> MAX_ORDER;
+            int ifm = jm >> MAX_ORDER;
+            face = ifp == ifm ? (ifp | 4) : (ifp < ifm ? ifp : ifm + 8);
+            ix = jm & (NSIDE - 1);
+            iy = NSIDE - (jp & (NSIDE - 1)) - 1;
+        } else {
+            //Polar caps.
+            int ntt = Math.min((int) tt, 3);
+            double tp = tt - ntt;
+            double tmp = NSIDE * Math.sqrt(3 * (1 - za));
+            int jp = Math.min((int) (tp * tmp), NSIDE - 1);
+            int jm = Math.min((int) ((1 - tp) * tmp), NSIDE - 1);
+            if (z >= 0) {
+                face = ntt;
+                ix = NSIDE - jm - 1;
+                iy = NSIDE - jp - 1;
+            } else {
+                face = ntt + 8;
+                ix = jp;
+                iy = jm;
+            }
+        }
+        return (face << (2 * MAX_ORDER)) | spreadBits(ix) | (spreadBits(iy) << 1);
+    }
+
+    /**
+     * Inserts a zero bit before each bit of the given value.
+     */
+    private static int spreadBits(int value) {
+        int result = 0;
+        for (int bit = 0; bit < MAX_ORDER; bit++) {
+            result |= ((value >> bit) & 1) << (2 * bit);
+        }
+        return result;
+    }
+
+    /**
+     * Node of the tree: a non empty pixel and its bounding cap.
+     */
+    private static final class Node {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double radius;
+        private final int from;
+        private final int to;
+        private Node[] children;
+
+        private Node(double x, double y, double z, double radius, int from, int to) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * State of a cone query.
+     */
+    private static final class Cone {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double radius;
+        private final double cosRadius;
+        private int[] result = new int[64];
+        private int size = 0;
+
+        private Cone(double x, double y, double z, double radius) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+            this.cosRadius = Math.cos(radius);
+        }
+
+        private void add(int index) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, 2 * size);
+            }
+            result[size++] = index;
+        }
+
+        private void addAll(int[] indices, int from, int to) {
+            if (size + to - from > result.length) {
+                result = Arrays.copyOf(result, Math.max(2 * result.length, size + to - from));
+            }
+            System.arraycopy(indices, from, result, size, to - from);
+            size += to - from;
+        }
+    }
+}
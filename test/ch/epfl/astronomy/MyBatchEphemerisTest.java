@@ -0,0 +1,86 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.BatchEphemeris;
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.CelestialObjectModel;
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyBatchEphemerisTest {
+
+    private static final ZonedDateTime ORIGIN = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+
+    private static List<CelestialObjectModel<?>> models() {
+        List<CelestialObjectModel<?>> models = new ArrayList<CelestialObjectModel<?>>();
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+        for (PlanetModel planet : PlanetModel.ALL) {
+            if (planet != PlanetModel.EARTH) models.add(planet);
+        }
+        return models;
+    }
+
+    private static void assertBatchMatchesModels(List<ZonedDateTime> instants, boolean parallel) {
+        int count = instants.size();
+        double[] days = new double[count];
+        for (int i = 0; i < count; i++) {
+            days[i] = Epoch.J2010.daysUntil(instants.get(i));
+        }
+        double[] ra = new double[count], dec = new double[count];
+        double[] magnitude = new double[count], angularSize = new double[count];
+        for (CelestialObjectModel<?> model : models()) {
+            BatchEphemeris.compute(model, days, ra, dec, magnitude, angularSize, parallel);
+            for (int i = 0; i < count; i++) {
+                CelestialObject expected = (CelestialObject) model.at(days[i], new EclipticToEquatorialConversion(instants.get(i)));
+                assertEquals(expected.equatorialPos().ra(), ra[i]);
+                assertEquals(expected.equatorialPos().dec(), dec[i]);
+                assertEquals(expected.magnitude(), magnitude[i]);
+                assertEquals(expected.angularSize(), angularSize[i]);
+            }
+        }
+    }
+
+    @Test
+    void batchMatchesTheModelsAtRandomInstants() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        List<ZonedDateTime> instants = new ArrayList<ZonedDateTime>();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            instants.add(ORIGIN.plusNanos(1_000_000L * rng.nextLong(-1_000_000_000_000L, 1_000_000_000_000L)));
+        }
+        assertBatchMatchesModels(instants, false);
+    }
+
+    @Test
+    void parallelBatchMatchesTheModels() {
+        List<ZonedDateTime> instants = new ArrayList<ZonedDateTime>();
+        for (int i = 0; i < 5000; i++) {
+            instants.add(ORIGIN.plusMinutes(97 * i));
+        }
+        assertBatchMatchesModels(instants, true);
+    }
+
+    @Test
+    void batchFailsOnInvalidArguments() {
+        double[] days = new double[10];
+        double[] values = new double[10];
+        assertThrows(IllegalArgumentException.class, () ->
+                BatchEphemeris.compute(PlanetModel.EARTH, days, values, values, values, values, false));
+        assertThrows(IllegalArgumentException.class, () ->
+                BatchEphemeris.compute(SunModel.SUN, days, values, new double[9], values, values, false));
+        assertThrows(NullPointerException.class, () ->
+                BatchEphemeris.compute(null, days, values, values, values, values, false));
+    }
+}
@@ -0,0 +1,128 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.BinaryCatalogueConverter;
+import ch.epfl.rigel.astronomy.BinaryCatalogueLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyBinaryCatalogueLoaderTest {
+
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+
+    private byte[] convertedCatalogue() throws IOException {
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryCatalogueConverter.convert(hygStream, out);
+            return out.toByteArray();
+        }
+    }
+
+    private List<Star> csvStars() throws IOException {
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            return new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).stars();
+        }
+    }
+
+    private static void assertSameStars(List<Star> expected, List<Star> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Star e = expected.get(i);
+            Star a = actual.get(i);
+            assertEquals(e.hipparcosId(), a.hipparcosId());
+            assertEquals(e.name(), a.name());
+            assertEquals(e.equatorialPos().ra(), a.equatorialPos().ra());
+            assertEquals(e.equatorialPos().dec(), a.equatorialPos().dec());
+            assertEquals(e.magnitude(), a.magnitude());
+            assertEquals(e.colorTemperature(), a.colorTemperature());
+        }
+    }
+
+    @Test
+    void binaryCatalogueMatchesCsv() throws IOException {
+        List<Star> stars = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(convertedCatalogue()), BinaryCatalogueLoader.INSTANCE)
+                .stars();
+        assertSameStars(csvStars(), stars);
+    }
+
+    @Test
+    void mappedFileMatchesCsv() throws IOException {
+        Path file = Files.createTempFile("catalogue", ".bin");
+        try {
+            Files.write(file, convertedCatalogue());
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            BinaryCatalogueLoader.INSTANCE.load(file, builder);
+            assertSameStars(csvStars(), builder.stars());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shippedCatalogueMatchesCsv() throws IOException {
+        try (InputStream binStream = getClass().getResourceAsStream("/hygdata_v3.bin")) {
+            List<Star> stars = new StarCatalogue.Builder().loadFrom(binStream, BinaryCatalogueLoader.INSTANCE).stars();
+            assertSameStars(csvStars(), stars);
+        }
+    }
+
+    @Test
+    void shippedCatalogueIsConvertedFromCsv() throws IOException {
+        try (InputStream binStream = getClass().getResourceAsStream("/hygdata_v3.bin")) {
+            assertArrayEquals(convertedCatalogue(), binStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void resourceMatchesCsv() throws IOException {
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        BinaryCatalogueLoader.INSTANCE.load(getClass().getResource("/hygdata_v3.bin"), builder);
+        assertSameStars(csvStars(), builder.stars());
+
+        Path file = Files.createTempFile("catalogue", ".bin");
+        try {
+            Files.write(file, convertedCatalogue());
+            StarCatalogue.Builder fileBuilder = new StarCatalogue.Builder();
+            BinaryCatalogueLoader.INSTANCE.load(file.toUri().toURL(), fileBuilder);
+            assertSameStars(csvStars(), fileBuilder.stars());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void loaderFailsOnInvalidData() throws IOException {
+        byte[] catalogue = convertedCatalogue();
+        byte[] truncated = Arrays.copyOf(catalogue, catalogue.length / 2);
+        assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(truncated), BinaryCatalogueLoader.INSTANCE));
+        assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(new byte[32]), BinaryCatalogueLoader.INSTANCE));
+
+
+        //Counts larger than the file, which must not be allocated.
+        for (int[] counts : new int[][]{{Integer.MAX_VALUE, 0}, {1 << 26, 0}, {0, Integer.MAX_VALUE}}) {
+            byte[] header = ByteBuffer.wrap(Arrays.copyOf(catalogue, catalogue.length)).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(8, counts[0]).putInt(12, counts[1]).array();
+            assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                    .loadFrom(new ByteArrayInputStream(header), BinaryCatalogueLoader.INSTANCE));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.SolarSystemModel;
+import ch.epfl.rigel.astronomy.SolarSystemState;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyEphemerisCacheTest {
+
+    private static final ZonedDateTime ORIGIN = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+
+    private static double angle(EquatorialCoordinates a, EquatorialCoordinates b) {
+        double cos = Math.sin(a.dec()) * Math.sin(b.dec())
+                + Math.cos(a.dec()) * Math.cos(b.dec()) * Math.cos(a.ra() - b.ra());
+        return Math.acos(Math.min(1, cos));
+    }
+
+    private static void assertClose(CelestialObject expected, CelestialObject actual, double maxError) {
+        assertEquals(expected.name(), actual.name());
+        assertTrue(angle(expected.equatorialPos(), actual.equatorialPos()) <= maxError);
+        assertEquals(expected.angularSize(), actual.angularSize(), 1e-6);
+        assertEquals(expected.magnitude(), actual.magnitude(), 2e-2);
+    }
+
+    @Test
+    void interpolatedStatesAreWithinTheMaximalError() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        double maxError = Angle.ofArcsec(1);
+        EphemerisCache cache = new EphemerisCache(2, 12, 64, maxError, Runnable::run);
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            ZonedDateTime when = ORIGIN.plusMinutes(rng.nextLong(-30 * 24 * 60, 30 * 24 * 60));
+            SolarSystemState expected = SolarSystemState.at(when);
+            SolarSystemState actual = cache.at(when);
+
+            assertEquals(expected.daysSinceJ2010(), actual.daysSinceJ2010(), 1e-9);
+            assertEquals(expected.sun().equatorialPos().ra(), actual.sun().equatorialPos().ra());
+            assertEquals(expected.sun().equatorialPos().dec(), actual.sun().equatorialPos().dec());
+            //The error checked is the one of the positions, with some margin between the instants checked.
+            assertClose(expected.moon(), actual.moon(), 2 * maxError);
+            assertEquals(expected.moon().phase(), actual.moon().phase(), 1e-4);
+            assertEquals(expected.planets().size(), actual.planets().size());
+            for (int p = 0; p < expected.planets().size(); p++) {
+                assertClose(expected.planets().get(p), actual.planets().get(p), 2 * maxError);
+            }
+        }
+    }
+
+    @Test
+    void tooSmallErrorFallsBackToTheExactStates() {
+        EphemerisCache cache = new EphemerisCache(2, 2, 8, 1e-15, Runnable::run);
+        for (int i = 0; i < 50; i++) {
+            ZonedDateTime when = ORIGIN.plusHours(7 * i);
+            SolarSystemState expected = SolarSystemState.at(when);
+            SolarSystemState actual = cache.at(when);
+            assertEquals(expected.moon().equatorialPos().ra(), actual.moon().equatorialPos().ra(), 1e-12);
+            assertEquals(expected.moon().equatorialPos().dec(), actual.moon().equatorialPos().dec(), 1e-12);
+            for (int p = 0; p < expected.planets().size(); p++) {
+                assertEquals(expected.planets().get(p).equatorialPos().ra(), actual.planets().get(p).equatorialPos().ra(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedWindowsAreEvicted() {
+        EphemerisCache cache = new EphemerisCache(1, 8, 4, Angle.ofDeg(1), Runnable::run);
+        for (int i = 0; i < 20; i++) {
+            cache.at(ORIGIN.plusDays(i));
+            assertTrue(cache.size() <= 4);
+        }
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void nextWindowIsFittedAhead() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        EphemerisCache cache = new EphemerisCache(1, 8, 16, Angle.ofDeg(1), tasks::add);
+        cache.at(ORIGIN);
+        assertEquals(0, tasks.size());
+        cache.at(ORIGIN.plusDays(1));
+        assertEquals(1, tasks.size());
+        assertEquals(2, cache.size());
+
+        tasks.get(0).run();
+        assertEquals(3, cache.size());
+        //Already fitted: nothing left to fit ahead.
+        cache.at(ORIGIN.plusDays(1).plusHours(1));
+        assertEquals(1, tasks.size());
+
+        cache.at(ORIGIN.minusDays(3));
+        assertEquals(2, tasks.size());
+        tasks.get(1).run();
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void constructorFailsOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new EphemerisCache(0, 12, 64, 1e-6, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new EphemerisCache(2, 0, 64, 1e-6, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new EphemerisCache(2, 12, 1, 1e-6, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new EphemerisCache(2, 12, 64, 0, Runnable::run));
+        assertThrows(NullPointerException.class, () -> new EphemerisCache(2, 12, 64, 1e-6, null));
+    }
+
+    @Test
+    void exactModelIsTheExactState() {
+        SolarSystemState expected = SolarSystemState.at(ORIGIN);
+        SolarSystemState actual = SolarSystemModel.EXACT.at(ORIGIN);
+        assertEquals(expected.moon().equatorialPos().ra(), actual.moon().equatorialPos().ra());
+        assertEquals(expected.planets().get(3).equatorialPos().dec(), actual.planets().get(3).equatorialPos().dec());
+    }
+}
@@ -0,0 +1,154 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.AstronomicalEvent;
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.EventSearchEngine;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.SolarSystemState;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyEventSearchEngineTest {
+
+    private static final ZonedDateTime START_2020 = ZonedDateTime.parse("2020-01-01T00:00Z");
+
+    private static StarCatalogue catalogue;
+    private static List<AstronomicalEvent> events2020;
+
+    @BeforeAll
+    static void search2020() throws IOException {
+        try (InputStream hygStream = MyEventSearchEngineTest.class.getResourceAsStream("/hygdata_v3.csv")) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        events2020 = new EventSearchEngine(catalogue).search(START_2020, START_2020.plusYears(1))
+                .collect(Collectors.toList());
+    }
+
+    private static AstronomicalEvent find(List<AstronomicalEvent> events, AstronomicalEvent.Type type, String first, String second) {
+        List<AstronomicalEvent> found = events.stream()
+                .filter(e -> e.type() == type && e.first().equals(first) && e.second().equals(second))
+                .collect(Collectors.toList());
+        assertEquals(1, found.size());
+        return found.get(0);
+    }
+
+    private static void assertNear(String expected, ZonedDateTime actual, double hours) {
+        double difference = Duration.between(ZonedDateTime.parse(expected), actual).toMinutes() / 60d;
+        assertTrue(Math.abs(difference) <= hours);
+    }
+
+    private static CelestialObject object(SolarSystemState state, String name) {
+        List<CelestialObject> objects = new ArrayList<CelestialObject>(state.planets());
+        objects.add(state.sun());
+        objects.add(state.moon());
+        return objects.stream().filter(o -> o.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static double separation(AstronomicalEvent event, ZonedDateTime when) {
+        SolarSystemState state = SolarSystemState.at(when);
+        EquatorialCoordinates second = catalogue.stars().stream()
+                .filter(s -> s.name().equals(event.second())).findFirst()
+                .map(CelestialObject::equatorialPos)
+                .orElseGet(() -> object(state, event.second()).equatorialPos());
+        return EquatorialCoordinates.angularDistance(object(state, event.first()).equatorialPos(), second);
+    }
+
+    @Test
+    void greatConjunctionOf2020IsFound() {
+        AstronomicalEvent conjunction = events2020.stream()
+                .filter(e -> e.type() == AstronomicalEvent.Type.CONJUNCTION && e.first().equals("Jupiter"))
+                .filter(e -> e.separation() < Angle.ofDeg(1))
+                .findFirst().orElseThrow();
+        assertEquals("Saturne", conjunction.second());
+        assertNear("2020-12-21T18:00Z", conjunction.when(), 12);
+        assertEquals(0.1, Angle.toDeg(conjunction.separation()), 0.05);
+    }
+
+    @Test
+    void marsOppositionAndVenusElongationsOf2020AreFound() {
+        AstronomicalEvent opposition = find(events2020, AstronomicalEvent.Type.OPPOSITION, "Mars", "Soleil");
+        assertNear("2020-10-13T23:00Z", opposition.when(), 48);
+
+        AstronomicalEvent east = find(events2020, AstronomicalEvent.Type.GREATEST_EASTERN_ELONGATION, "Vénus", "Soleil");
+        assertNear("2020-03-24T22:00Z", east.when(), 24);
+        assertEquals(46.1, Angle.toDeg(east.separation()), 0.2);
+
+        AstronomicalEvent west = find(events2020, AstronomicalEvent.Type.GREATEST_WESTERN_ELONGATION, "Vénus", "Soleil");
+        assertNear("2020-08-13T00:00Z", west.when(), 24);
+        assertEquals(45.8, Angle.toDeg(west.separation()), 0.2);
+    }
+
+    @Test
+    void eventsAreSortedInRangeAndExtrema() {
+        ZonedDateTime from = ZonedDateTime.parse("2023-01-01T00:00Z");
+        ZonedDateTime to = from.plusYears(3);
+        List<AstronomicalEvent> events = new EventSearchEngine(catalogue).search(from, to).collect(Collectors.toList());
+        assertFalse(events.isEmpty());
+        boolean lunarApproach = false;
+        for (int i = 0; i < events.size(); i++) {
+            AstronomicalEvent event = events.get(i);
+            assertFalse(event.when().isBefore(from) || event.when().isAfter(to));
+            if (i > 0) {
+                assertFalse(event.when().isBefore(events.get(i - 1).when()));
+            }
+            if (event.type() == AstronomicalEvent.Type.OPPOSITION) {
+                continue;
+            }
+
+            assertEquals(separation(event, event.when()), event.separation(), Angle.ofArcsec(1));
+            double before = separation(event, event.when().minusHours(2));
+            double after = separation(event, event.when().plusHours(2));
+            if (event.type() == AstronomicalEvent.Type.CONJUNCTION || event.type() == AstronomicalEvent.Type.LUNAR_APPROACH) {
+                assertTrue(event.separation() <= before && event.separation() <= after);
+                double max = event.type() == AstronomicalEvent.Type.CONJUNCTION
+                        ? EventSearchEngine.DEFAULT_MAX_CONJUNCTION_SEPARATION
+                        : EventSearchEngine.DEFAULT_MAX_LUNAR_SEPARATION;
+                assertTrue(event.separation() <= max);
+            } else {
+                assertTrue(event.separation() >= before && event.separation() >= after);
+            }
+            lunarApproach |= event.type() == AstronomicalEvent.Type.LUNAR_APPROACH && event.second().equals("Antares");
+        }
+        //The Moon occults Antares every month from 2023.
+        assertTrue(lunarApproach);
+    }
+
+    @Test
+    void sweepsDoNotLoseNorRepeatEvents() {
+        EventSearchEngine engine = new EventSearchEngine(catalogue, 1.5, Angle.ofDeg(5), Angle.ofDeg(2), 0.25);
+        ZonedDateTime to = START_2020.plusYears(3);
+        List<AstronomicalEvent> all = engine.search(START_2020, to).collect(Collectors.toList());
+        List<AstronomicalEvent> firstYear = all.stream()
+                .filter(e -> e.when().isBefore(START_2020.plusYears(1))).collect(Collectors.toList());
+        assertEquals(events2020.size(), firstYear.size());
+        for (int i = 0; i < firstYear.size(); i++) {
+            assertEquals(events2020.get(i).toString(), firstYear.get(i).toString());
+        }
+        assertEquals(all.size(), all.stream().map(AstronomicalEvent::toString).distinct().count());
+        assertTrue(engine.search(START_2020, to).limit(3).count() == 3);
+    }
+
+    @Test
+    void invalidArgumentsFail() {
+        assertThrows(IllegalArgumentException.class, () -> new EventSearchEngine(catalogue).search(START_2020, START_2020.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> new EventSearchEngine(catalogue, 1.5, 0, Angle.ofDeg(2), 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new EventSearchEngine(catalogue, 1.5, Angle.ofDeg(5), Angle.ofDeg(2), 2));
+        assertThrows(NullPointerException.class, () -> new EventSearchEngine(null));
+    }
+}
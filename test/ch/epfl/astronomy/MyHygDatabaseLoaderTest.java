@@ -1,12 +1,22 @@
 package ch.epfl.astronomy;
+import ch.epfl.rigel.astronomy.BinaryCatalogueLoader;
 import ch.epfl.rigel.astronomy.HygDatabaseLoader;
 import ch.epfl.rigel.astronomy.Star;
 import ch.epfl.rigel.astronomy.StarCatalogue;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -100,4 +110,99 @@ public class MyHygDatabaseLoaderTest {
         }
     }
 
+    @Test
+    void loaderParsesLineEndingsAndNumberFormats() throws IOException {
+        String header = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,x,y,z,vx,vy,vz,"
+                + "rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max";
+        String exponents = "1,42,,,,,,,,,,,,-1.5e-1,,,+2E0,,,,,,,1.2345678901234567e-1,-7.0E-3,,,Alp,,Ori,,,,,,,";
+        String truncated = "2,+7,,,,,,,,,,,,12,,,,,,,,,,6.2831,1.5707963267948966,,,,,Cet";
+        byte[] csv = (header + "\r\n" + exponents + "\r\n" + truncated + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        List<Star> stars = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(csv), HygDatabaseLoader.INSTANCE)
+                .stars();
+        assertEquals(2, stars.size());
+
+        assertEquals(42, stars.get(0).hipparcosId());
+        assertEquals("Alp Ori", stars.get(0).name());
+        assertEquals((float) -0.15, stars.get(0).magnitude());
+        assertEquals(Double.parseDouble("1.2345678901234567e-1"), stars.get(0).equatorialPos().ra());
+        assertEquals(-0.007, stars.get(0).equatorialPos().dec());
+
+        assertEquals(7, stars.get(1).hipparcosId());
+        assertEquals("? Cet", stars.get(1).name());
+        assertEquals(12, stars.get(1).magnitude());
+        assertEquals(6.2831, stars.get(1).equatorialPos().ra());
+        assertEquals(1.5707963267948966, stars.get(1).equatorialPos().dec());
+    }
+
+    @Test
+    void loaderParsesDecimalsAsParseDouble() throws IOException {
+        String header = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,x,y,z,vx,vy,vz,"
+                + "rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max";
+        SplittableRandom random = new SplittableRandom(2020);
+        List<String> ras = new ArrayList<String>();
+        List<String> decs = new ArrayList<String>();
+        StringBuilder csv = new StringBuilder(header).append('\n');
+        for (int i = 0; i < 10_000; i++) {
+            //Up to 19 significant digits, as printed by Double.toString or longer.
+            BigDecimal ra = BigDecimal.valueOf(random.nextDouble(6.28)).setScale(1 + random.nextInt(19), RoundingMode.DOWN);
+            BigDecimal dec = BigDecimal.valueOf(random.nextDouble(-1.57, 1.57)).setScale(1 + random.nextInt(19), RoundingMode.DOWN);
+            ras.add(ra.toPlainString());
+            decs.add(dec.toPlainString());
+            csv.append(",,,,,,,,,,,,,1,,,,,,,,,,").append(ra.toPlainString()).append(',').append(dec.toPlainString())
+                    .append(",,,,,And,,,,,,,\n");
+        }
+        List<Star> stars = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.US_ASCII)), HygDatabaseLoader.INSTANCE)
+                .stars();
+        for (int i = 0; i < stars.size(); i++) {
+            assertEquals(Double.parseDouble(ras.get(i)), stars.get(i).equatorialPos().ra(), ras.get(i));
+            assertEquals(Double.parseDouble(decs.get(i)), stars.get(i).equatorialPos().dec(), decs.get(i));
+        }
+    }
+
+    @Test
+    void mappedFileLoadsStarsInFileOrder() throws IOException {
+        List<Star> expected;
+        try (InputStream binStream = getClass().getResourceAsStream("/hygdata_v3.bin")) {
+            expected = new StarCatalogue.Builder().loadFrom(binStream, BinaryCatalogueLoader.INSTANCE).stars();
+        }
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        HygDatabaseLoader.INSTANCE.load(Path.of("resources/hygdata_v3.csv"), builder);
+        List<Star> stars = builder.stars();
+
+        assertEquals(expected.size(), stars.size());
+        for (int i = 0; i < stars.size(); i++) {
+            assertEquals(expected.get(i).hipparcosId(), stars.get(i).hipparcosId());
+            assertEquals(expected.get(i).name(), stars.get(i).name());
+            assertEquals(expected.get(i).equatorialPos().ra(), stars.get(i).equatorialPos().ra());
+            assertEquals(expected.get(i).equatorialPos().dec(), stars.get(i).equatorialPos().dec());
+            assertEquals(expected.get(i).magnitude(), stars.get(i).magnitude());
+        }
+    }
+
+    @Test
+    void mappedFileWithoutFinalLineEndIsLoaded() throws IOException {
+        String header = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,x,y,z,vx,vy,vz,"
+                + "rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max";
+        String row = ",,,,,,,,,,,,,1,,,,,,,,,,0.5,-0.5,,,,,And,,,,,,,";
+        Path file = Files.createTempFile("hyg", ".csv");
+        try {
+            Files.writeString(file, header + "\n" + row, StandardCharsets.US_ASCII);
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            HygDatabaseLoader.INSTANCE.load(file, builder);
+            assertEquals(1, builder.stars().size());
+            assertEquals("? And", builder.stars().get(0).name());
+            assertEquals(-0.5, builder.stars().get(0).equatorialPos().dec());
+
+            Files.writeString(file, header, StandardCharsets.US_ASCII);
+            StarCatalogue.Builder emptyBuilder = new StarCatalogue.Builder();
+            HygDatabaseLoader.INSTANCE.load(file, emptyBuilder);
+            assertEquals(0, emptyBuilder.stars().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
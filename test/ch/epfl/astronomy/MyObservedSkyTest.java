@@ -1,8 +1,10 @@
 package ch.epfl.astronomy;
+import ch.epfl.rigel.astronomy.Asterism;
 import ch.epfl.rigel.astronomy.AsterismLoader;
 import ch.epfl.rigel.astronomy.HygDatabaseLoader;
 import ch.epfl.rigel.astronomy.ObservedSky;
 import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarProjectionEngine;
 import ch.epfl.rigel.coordinates.*;
 import ch.epfl.rigel.math.Angle;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.*;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static ch.epfl.rigel.astronomy.HygDatabaseLoader.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MyObservedSkyTest {
 
@@ -59,4 +66,79 @@ public class MyObservedSkyTest {
 
         }
 
+        @Test
+        void starPositionsDoNotDependOnEngine(){
+            ObservedSky sequential = new ObservedSky(time, geographicCoordinates, stereo, catalogue,
+                    StarProjectionEngine.SEQUENTIAL);
+            ForkJoinPool pool = new ForkJoinPool(3);
+            ObservedSky parallel = new ObservedSky(time, geographicCoordinates, stereo, catalogue,
+                    new StarProjectionEngine(pool, 1));
+
+            assertEquals(2 * catalogue.stars().size(), parallel.starPositions().length);
+            assertArrayEquals(sequential.starPositions(), parallel.starPositions());
+            assertArrayEquals(sequential.starPositions(), sky.starPositions());
+            pool.shutdown();
+        }
+
+        @Test
+        void culledSkyOnlyProjectsVisibleStars(){
+            double radius = Angle.ofDeg(30);
+            ObservedSky culled = new ObservedSky(time, geographicCoordinates, stereo, catalogue,
+                    StarProjectionEngine.DEFAULT, radius);
+            double[] all = sky.starPositions();
+            double[] visible = culled.starPositions();
+            int projected = 0;
+            for (int i = 0; i < all.length; i += 2) {
+                if (!Double.isNaN(visible[i])) {
+                    projected++;
+                    assertEquals(all[i], visible[i], 1e-12);
+                    assertEquals(all[i + 1], visible[i + 1], 1e-12);
+                } else {
+                    //tan(a / 2) is the distance to the center of a point at an angle a from it.
+                    assertTrue(Math.hypot(all[i], all[i + 1]) > Math.tan(radius / 2) - 1e-9);
+                }
+            }
+            assertTrue(projected < all.length / 4);
+            for (Asterism asterism : catalogue.asterisms()) {
+                for (int index : catalogue.asterismIndices(asterism)) {
+                    assertFalse(Double.isNaN(visible[2 * index]));
+                }
+            }
+            assertSame(culled, culled.withProjection(stereo, radius / 2, culled.limitingMagnitude()));
+        }
+
+        @Test
+        void limitingMagnitudeOnlyProjectsBrightStars(){
+            ObservedSky bright = new ObservedSky(time, geographicCoordinates, stereo, catalogue,
+                    StarProjectionEngine.DEFAULT, Math.PI, 3);
+            double[] all = sky.starPositions();
+            double[] visible = bright.starPositions();
+            int projected = 0;
+            for (int i = 0; i < catalogue.stars().size(); i++) {
+                if (catalogue.stars().get(i).magnitude() <= 3) {
+                    projected++;
+                    assertEquals(all[2 * i], visible[2 * i], 1e-12);
+                    assertEquals(all[2 * i + 1], visible[2 * i + 1], 1e-12);
+                }
+            }
+            assertEquals(projected, bright.starStore().countBrighterThan(bright.limitingMagnitude()));
+            assertTrue(projected < catalogue.stars().size() / 2);
+        }
+
+        @Test
+        void withProjectionMatchesNewSky(){
+            StereographicProjection other = new StereographicProjection(HorizontalCoordinates.ofDeg(200, 60));
+            ObservedSky moved = sky.withProjection(other);
+            ObservedSky fresh = new ObservedSky(time, geographicCoordinates, other, catalogue);
+
+            assertTrue(sky.isObservedAt(time, GeographicCoordinates.ofDeg(30, 45)));
+            assertFalse(sky.isObservedAt(time.plusSeconds(1), geographicCoordinates));
+            assertEquals(fresh.sunPosition().x(), moved.sunPosition().x(), 1e-12);
+            assertEquals(fresh.moonPosition().y(), moved.moonPosition().y(), 1e-12);
+            assertArrayEquals(fresh.planetPositions(), moved.planetPositions(), 1e-12);
+            assertArrayEquals(fresh.starPositions(), moved.starPositions(), 1e-9);
+            assertArrayEquals(new ObservedSky(time, geographicCoordinates, stereo, catalogue).starPositions(),
+                    moved.withProjection(stereo).starPositions(), 1e-9);
+        }
+
 }
@@ -0,0 +1,202 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.RiseTransitSet;
+import ch.epfl.rigel.astronomy.RiseTransitSet.Twilight;
+import ch.epfl.rigel.astronomy.RiseTransitSetEngine;
+import ch.epfl.rigel.astronomy.RiseTransitSetEngine.Target;
+import ch.epfl.rigel.astronomy.SiderealTime;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyRiseTransitSetEngineTest {
+
+    private static final GeographicCoordinates EPFL = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Zurich");
+    private static final LocalDate EQUINOX = LocalDate.of(2020, 3, 20);
+
+    private static HorizontalCoordinates sunAt(ZonedDateTime when) {
+        double days = Epoch.J2010.daysUntil(when);
+        EquatorialCoordinates sun = SunModel.SUN.at(days, new EclipticToEquatorialConversion(when)).equatorialPos();
+        return new EquatorialToHorizontalConversion(when, EPFL).apply(sun);
+    }
+
+    private static boolean isBetween(ZonedDateTime when, int fromHour, int fromMinute, int toHour, int toMinute) {
+        LocalTime time = when.toLocalTime();
+        return !time.isBefore(LocalTime.of(fromHour, fromMinute)) && !time.isAfter(LocalTime.of(toHour, toMinute));
+    }
+
+    @Test
+    void sunEventsAtEquinoxAreCorrect() {
+        RiseTransitSet events = new RiseTransitSetEngine(EPFL, ZONE).compute(Target.of(SunModel.SUN), EQUINOX);
+        ZonedDateTime rise = events.rise().orElseThrow();
+        ZonedDateTime transit = events.transit().orElseThrow();
+        ZonedDateTime set = events.set().orElseThrow();
+
+        //Sunrise at 06:36 and sunset at 18:46 in Lausanne that day.
+        assertTrue(isBetween(rise, 6, 32, 6, 40));
+        assertTrue(isBetween(transit, 12, 38, 12, 44));
+        assertTrue(isBetween(set, 18, 42, 18, 50));
+        assertEquals(ZONE, rise.getZone());
+        assertEquals(EQUINOX, events.date());
+
+        //Upper limb on the horizon, the refraction taken into account.
+        assertEquals(-50.0 / 60, sunAt(rise).altDeg(), 0.02);
+        assertEquals(-50.0 / 60, sunAt(set).altDeg(), 0.02);
+        assertEquals(180, sunAt(transit).azDeg(), 0.05);
+        assertEquals(sunAt(transit).alt(), events.transitAltitude(), Angle.ofDeg(0.01));
+        assertFalse(events.isAlwaysAbove());
+        assertFalse(events.isAlwaysBelow());
+    }
+
+    @Test
+    void twilightsAreOrdered() {
+        RiseTransitSet events = new RiseTransitSetEngine(EPFL, ZONE).compute(Target.of(SunModel.SUN), EQUINOX);
+        ZonedDateTime astronomical = events.dawn(Twilight.ASTRONOMICAL).orElseThrow();
+        ZonedDateTime nautical = events.dawn(Twilight.NAUTICAL).orElseThrow();
+        ZonedDateTime civil = events.dawn(Twilight.CIVIL).orElseThrow();
+        assertTrue(astronomical.isBefore(nautical) && nautical.isBefore(civil)
+                && civil.isBefore(events.rise().orElseThrow()));
+
+        ZonedDateTime civilDusk = events.dusk(Twilight.CIVIL).orElseThrow();
+        ZonedDateTime nauticalDusk = events.dusk(Twilight.NAUTICAL).orElseThrow();
+        ZonedDateTime astronomicalDusk = events.dusk(Twilight.ASTRONOMICAL).orElseThrow();
+        assertTrue(events.set().orElseThrow().isBefore(civilDusk) && civilDusk.isBefore(nauticalDusk)
+                && nauticalDusk.isBefore(astronomicalDusk));
+
+        for (Twilight twilight : Twilight.values()) {
+            assertEquals(Angle.toDeg(twilight.altitude()), sunAt(events.dawn(twilight).orElseThrow()).altDeg(), 0.02);
+            assertEquals(Angle.toDeg(twilight.altitude()), sunAt(events.dusk(twilight).orElseThrow()).altDeg(), 0.02);
+        }
+    }
+
+    @Test
+    void noAstronomicalNightAtMidsummerFarNorth() {
+        RiseTransitSetEngine engine = new RiseTransitSetEngine(GeographicCoordinates.ofDeg(10.75, 59.91), ZoneId.of("Europe/Oslo"));
+        RiseTransitSet events = engine.compute(Target.of(SunModel.SUN), LocalDate.of(2020, 6, 21));
+        assertTrue(events.rise().isPresent());
+        assertTrue(events.dusk(Twilight.ASTRONOMICAL).isEmpty());
+        assertTrue(events.dawn(Twilight.ASTRONOMICAL).isEmpty());
+
+        RiseTransitSet polarDay = new RiseTransitSetEngine(GeographicCoordinates.ofDeg(15.6, 78.2), ZoneId.of("UTC"))
+                .compute(Target.of(SunModel.SUN), LocalDate.of(2020, 6, 21));
+        assertTrue(polarDay.isAlwaysAbove());
+        assertTrue(polarDay.transit().isPresent());
+    }
+
+    @Test
+    void circumpolarAndNeverVisibleStars() {
+        RiseTransitSetEngine engine = new RiseTransitSetEngine(EPFL, ZONE);
+        Star north = new Star(1, "North", EquatorialCoordinates.of(0, Angle.ofDeg(80)), 2f, 0f);
+        Star south = new Star(2, "South", EquatorialCoordinates.of(0, Angle.ofDeg(-80)), 2f, 0f);
+        RiseTransitSet northEvents = engine.compute(Target.of(north), EQUINOX);
+        RiseTransitSet southEvents = engine.compute(Target.of(south), EQUINOX);
+
+        assertTrue(northEvents.isAlwaysAbove());
+        assertTrue(northEvents.transit().isPresent());
+        assertEquals(90 - 46.52 + 80, 180 - Angle.toDeg(northEvents.transitAltitude()), 1e-6);
+        assertTrue(southEvents.isAlwaysBelow());
+        assertTrue(southEvents.dawn(Twilight.CIVIL).isEmpty());
+        assertEquals("North", northEvents.name());
+    }
+
+    @Test
+    void moonRisesAndSetsOnTheHorizon() {
+        RiseTransitSetEngine engine = new RiseTransitSetEngine(EPFL, ZONE);
+        Target moon = Target.of(MoonModel.MOON);
+        int rises = 0;
+        for (int d = 0; d < 30; d++) {
+            RiseTransitSet events = engine.compute(moon, EQUINOX.plusDays(d));
+            for (Optional<ZonedDateTime> event : List.of(events.rise(), events.set())) {
+                if (event.isEmpty()) {
+                    continue;
+                }
+                ZonedDateTime when = event.get();
+                double days = Epoch.J2010.daysUntil(when);
+                EquatorialCoordinates position = MoonModel.MOON.at(days, new EclipticToEquatorialConversion(when)).equatorialPos();
+                //Geocentric altitude: the parallax and the refraction are about a degree, the radius a quarter.
+                double altitude = new EquatorialToHorizontalConversion(when, EPFL).apply(position).altDeg();
+                assertTrue(0 < altitude && altitude < 1.2);
+            }
+            rises += events.rise().isPresent() ? 1 : 0;
+        }
+        //The Moon rises about 50 minutes later every day, missing a day in a month.
+        assertTrue(28 <= rises && rises <= 29);
+    }
+
+    @Test
+    void batchMatchesSingleDays() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        List<Target> targets = Target.brightObjects(catalogue, 1.5);
+        assertEquals("Soleil", targets.get(0).name());
+        long stars = catalogue.stars().stream().filter(star -> star.magnitude() <= 1.5).count();
+        assertEquals(2 + PlanetModel.ALL.size() - 1 + stars, targets.size());
+
+        RiseTransitSetEngine engine = new RiseTransitSetEngine(EPFL, ZONE);
+        int days = 45;
+        List<RiseTransitSet> batch = engine.compute(targets, EQUINOX, days);
+        assertEquals(targets.size() * days, batch.size());
+        for (int t = 0; t < targets.size(); t++) {
+            for (int d = 0; d < days; d++) {
+                RiseTransitSet expected = engine.compute(targets.get(t), EQUINOX.plusDays(d));
+                RiseTransitSet actual = batch.get(t * days + d);
+                assertEquals(expected.name(), actual.name());
+                assertEquals(expected.date(), actual.date());
+                assertEquals(expected.rise(), actual.rise());
+                assertEquals(expected.transit(), actual.transit());
+                assertEquals(expected.set(), actual.set());
+            }
+        }
+        assertEquals(0, engine.compute(targets, EQUINOX, 0).size());
+        assertThrows(IllegalArgumentException.class, () -> engine.compute(targets, EQUINOX, -1));
+    }
+
+    @Test
+    void targetRejectsTheEarth() {
+        assertThrows(IllegalArgumentException.class, () -> Target.of(PlanetModel.EARTH));
+    }
+
+    @Test
+    void siderealTimeOfDaysMatchesZonedDateTime() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        ZonedDateTime origin = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            ZonedDateTime when = origin.plusSeconds(rng.nextLong(-2_000_000_000L, 2_000_000_000L));
+            double expected = SiderealTime.greenwich(when);
+            double actual = SiderealTime.greenwich(Epoch.J2010.daysUntil(when));
+            double difference = Math.abs(expected - actual);
+            assertTrue(Math.min(difference, Angle.TAU - difference) < 1e-9);
+            assertEquals(when.toInstant(), Epoch.J2010.plusDays(Epoch.J2010.daysUntil(when)).toInstant());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SolarSystemState;
+import ch.epfl.rigel.astronomy.Sun;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MySolarSystemStateTest {
+
+    private static void assertSameObject(CelestialObject expected, CelestialObject actual) {
+        assertEquals(expected.name(), actual.name());
+        assertEquals(expected.equatorialPos().ra(), actual.equatorialPos().ra());
+        assertEquals(expected.equatorialPos().dec(), actual.equatorialPos().dec());
+        assertEquals(expected.angularSize(), actual.angularSize());
+        assertEquals(expected.magnitude(), actual.magnitude());
+    }
+
+    @Test
+    void stateMatchesTheModels() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        ZonedDateTime origin = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            ZonedDateTime when = origin.plusMinutes(rng.nextLong(-20_000_000L, 20_000_000L));
+            double days = Epoch.J2010.daysUntil(when);
+            EclipticToEquatorialConversion conversion = new EclipticToEquatorialConversion(when);
+            SolarSystemState state = SolarSystemState.at(when);
+
+            assertEquals(days, state.daysSinceJ2010());
+            Sun sun = SunModel.SUN.at(days, conversion);
+            assertSameObject(sun, state.sun());
+            assertEquals(sun.meanAnomaly(), state.sun().meanAnomaly());
+            assertSameObject(MoonModel.MOON.at(days, conversion), state.moon());
+            assertEquals(MoonModel.MOON.at(days, conversion).info(), state.moon().info());
+
+            List<PlanetModel> models = new ArrayList<PlanetModel>(PlanetModel.ALL);
+            models.remove(PlanetModel.EARTH);
+            assertEquals(models.size(), state.planets().size());
+            for (int p = 0; p < models.size(); p++) {
+                assertSameObject(models.get(p).at(days, conversion), state.planets().get(p));
+            }
+        }
+    }
+
+    @Test
+    void batchMatchesSingleStates() {
+        ZonedDateTime origin = ZonedDateTime.parse("2021-06-01T00:00:00Z");
+        List<ZonedDateTime> instants = new ArrayList<ZonedDateTime>();
+        for (int i = 0; i < 100; i++) {
+            instants.add(origin.plusHours(6 * i));
+        }
+        List<SolarSystemState> states = SolarSystemState.at(instants);
+        assertEquals(instants.size(), states.size());
+        for (int i = 0; i < instants.size(); i++) {
+            SolarSystemState expected = SolarSystemState.at(instants.get(i));
+            assertSameObject(expected.moon(), states.get(i).moon());
+            assertSameObject(expected.planets().get(3), states.get(i).planets().get(3));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> states.get(0).planets().clear());
+    }
+}
@@ -1,4 +1,5 @@
 package ch.epfl.astronomy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -132,4 +133,38 @@ public class MyStarCatalogueTest {
 
     }
 
+    @Test
+    void flattenedAsterismIndicesWork(){
+        var stars = createStarCollection();
+
+        Asterism ast1 = new Asterism(Arrays.asList(star1, star2), "Dummy");
+        Asterism ast2 = new Asterism(Arrays.asList(star3, star4, star1), "Dummy");
+        List<Asterism> astList = Arrays.asList(ast1, ast2, ast1);
+
+        var starCatalogue = new StarCatalogue(stars, astList);
+
+        assertEquals(2, starCatalogue.asterismCount());
+        assertEquals(ast1, starCatalogue.asterism(0));
+        assertEquals(ast2, starCatalogue.asterism(1));
+        assertArrayEquals(new int[]{0, 2, 5}, starCatalogue.asterismOffsets());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 0}, starCatalogue.asterismStarIndices());
+        assertEquals(List.of(2, 3, 0), starCatalogue.asterismIndices(ast2));
+        assertThrows(UnsupportedOperationException.class, () -> starCatalogue.asterismIndices(ast2).set(0, 1));
+    }
+
+    @Test
+    void asterismIndicesUseStarIdentityWithSharedHipparcosIds(){
+        Star unknown1 = new Star(0, "? Ori", EquatorialCoordinates.of(0, 0), 1f, 0f);
+        Star unknown2 = new Star(0, "? Ori", EquatorialCoordinates.of(0.1, 0), 1f, 0f);
+        Star copyOfStar1 = new Star(1, "Star", EquatorialCoordinates.of(0,0), 0.32f,0.01f);
+        var stars = Arrays.asList(star1, unknown1, unknown2);
+
+        Asterism ast = new Asterism(Arrays.asList(unknown2, star1, unknown1), "Dummy");
+        var starCatalogue = new StarCatalogue(stars, List.of(ast));
+        assertEquals(List.of(2, 0, 1), starCatalogue.asterismIndices(ast));
+
+        Asterism notInCatalogue = new Asterism(List.of(copyOfStar1), "Dummy");
+        assertThrows(IllegalArgumentException.class, () -> new StarCatalogue(stars, List.of(notInCatalogue)));
+    }
+
 }
@@ -0,0 +1,106 @@
+package ch.epfl.astronomy;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarStore;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyStarStoreTest {
+
+    private static Star star1 = new Star(1, "Star", EquatorialCoordinates.of(0.1, 0.2), 0.32f, 0.01f);
+    private static Star star2 = new Star(2, "? Ori", EquatorialCoordinates.of(1.5, -0.3), -1.2f, 3.5f);
+    private static Star star3 = new Star(3, "? Ori", EquatorialCoordinates.of(4, 1.2), 4.5f, -0.4f);
+
+    @Test
+    void storeMatchesStarList() {
+        var catalogue = new StarCatalogue(List.of(star1, star2, star3), List.of());
+        StarStore store = catalogue.starStore();
+
+        assertEquals(3, store.size());
+        for (int i = 0; i < store.size(); i++) {
+            Star s = catalogue.stars().get(i);
+            assertEquals(s.equatorialPos().ra(), store.ra(i));
+            assertEquals(s.equatorialPos().dec(), store.dec(i));
+            assertEquals(s.magnitude(), store.magnitude(i));
+            assertEquals(s.colorTemperature(), store.colorTemperature(i));
+            assertEquals(s.hipparcosId(), store.hipparcosId(i));
+            assertEquals(s.name(), store.name(i));
+        }
+    }
+
+    @Test
+    void storeInternsNames() {
+        var store = new StarCatalogue(List.of(star1, star2, star3), List.of()).starStore();
+        assertSame(store.name(1), store.name(2));
+    }
+
+    @Test
+    void magnitudeOrderIsSortedPermutation() {
+        var store = new StarCatalogue(List.of(star1, star2, star3), List.of()).starStore();
+        assertEquals(1, store.byMagnitude(0));
+        assertEquals(0, store.byMagnitude(1));
+        assertEquals(2, store.byMagnitude(2));
+        assertEquals(0, store.countBrighterThan(-2));
+        assertEquals(1, store.countBrighterThan(-1.2f));
+        assertEquals(2, store.countBrighterThan(4));
+        assertEquals(3, store.countBrighterThan(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void loadedStarsAreCreatedOnceFromColumns() throws IOException {
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            var catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .build();
+            var store = catalogue.starStore();
+            for (int i = 0; i < store.size(); i += 97) {
+                Star s = catalogue.stars().get(i);
+                assertSame(s, catalogue.stars().get(i));
+                assertEquals(store.ra(i), s.equatorialPos().ra());
+                assertEquals(store.dec(i), s.equatorialPos().dec());
+                assertEquals(store.magnitude(i), s.magnitude());
+                assertEquals(store.colorTemperature(i), s.colorTemperature());
+                assertEquals(store.hipparcosId(i), s.hipparcosId());
+                assertEquals(store.name(i), s.name());
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> catalogue.stars().get(store.size()));
+            assertThrows(UnsupportedOperationException.class, () -> catalogue.stars().clear());
+        }
+    }
+
+    @Test
+    void storeWorksOnHygDatabase() throws IOException {
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            var catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .build();
+            var store = catalogue.starStore();
+            assertEquals(catalogue.stars().size(), store.size());
+            for (int i = 0; i < store.size(); i++) {
+                assertEquals(catalogue.stars().get(i).name(), store.name(i));
+                assertEquals(catalogue.stars().get(i).colorTemperature(), store.colorTemperature(i));
+            }
+            boolean[] seen = new boolean[store.size()];
+            for (int rank = 0; rank < store.size(); rank++) {
+                seen[store.byMagnitude(rank)] = true;
+                if (rank > 0) {
+                    assertTrue(store.magnitude(store.byMagnitude(rank - 1)) <= store.magnitude(store.byMagnitude(rank)));
+                }
+            }
+            for (boolean b : seen) {
+                assertTrue(b);
+            }
+        }
+    }
+}
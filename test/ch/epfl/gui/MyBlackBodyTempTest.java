@@ -31,4 +31,18 @@ public class MyBlackBodyTempTest {
 
     }
 
+    @Test
+    void paletteMatchesColorForTemperature() {
+        assertEquals(391, BlackBodyColor.paletteSize());
+        for (int t = 1000; t <= 40000; t += 7) {
+            int index = BlackBodyColor.paletteIndex(t);
+            assertEquals(BlackBodyColor.colorForTemperature(t), BlackBodyColor.paletteColor(index));
+        }
+        assertEquals(0, BlackBodyColor.paletteIndex(1049));
+        assertEquals(1, BlackBodyColor.paletteIndex(1050));
+        assertEquals(390, BlackBodyColor.paletteIndex(40000));
+        assertThrows(IllegalArgumentException.class, () -> BlackBodyColor.paletteIndex(999.9));
+        assertThrows(IndexOutOfBoundsException.class, () -> BlackBodyColor.paletteColor(391));
+    }
+
 }
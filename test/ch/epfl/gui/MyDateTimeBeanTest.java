@@ -0,0 +1,43 @@
+package ch.epfl.gui;
+
+import ch.epfl.rigel.gui.DateTimeBean;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MyDateTimeBeanTest {
+
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(
+            LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC);
+
+    @Test
+    void setZonedDateTimeNotifiesOnce() {
+        DateTimeBean bean = new DateTimeBean();
+        assertNull(bean.zonedDateTimeProperty().get());
+        List<ZonedDateTime> changes = new ArrayList<>();
+        bean.zonedDateTimeProperty().addListener((p, o, n) -> changes.add(n));
+
+        bean.setZonedDateTime(WHEN);
+        bean.setZonedDateTime(WHEN.plusDays(1).plusHours(1));
+        assertEquals(List.of(WHEN, WHEN.plusDays(1).plusHours(1)), changes);
+    }
+
+    @Test
+    void componentsUpdateZonedDateTime() {
+        DateTimeBean bean = new DateTimeBean();
+        bean.setZonedDateTime(WHEN);
+        bean.setTime(LocalTime.of(3, 0));
+        assertEquals(WHEN.with(LocalTime.of(3, 0)), bean.zonedDateTimeProperty().get());
+        bean.setDate(LocalDate.of(2021, Month.MAY, 1));
+        assertEquals(bean.getZonedDateTime(), bean.zonedDateTimeProperty().get());
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class MyEquatorialToCanvasProjectionTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    void applyAllMatchesPerObjectPath() {
+        var rng = TestRandomizer.newRandom();
+        for (int k = 0; k < 50; k++) {
+            var when = ZonedDateTime.ofInstant(
+                    Instant.ofEpochSecond(rng.nextLong(0, 4_000_000_000L)), ZoneOffset.UTC);
+            var where = GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-90, 90));
+            var center = HorizontalCoordinates.ofDeg(rng.nextDouble(0, 360), rng.nextDouble(5, 90));
+            var conversion = new EquatorialToHorizontalConversion(when, where);
+            var projection = new StereographicProjection(center);
+            var kernel = new EquatorialToCanvasProjection(conversion, projection);
+
+            int count = 200;
+            double[] raDec = new double[2 * count];
+            for (int i = 0; i < count; i++) {
+                raDec[2 * i] = rng.nextDouble(0, 2 * Math.PI);
+                raDec[2 * i + 1] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            }
+            double[] xy = new double[2 * count];
+            kernel.applyAll(raDec, xy);
+
+            for (int i = 0; i < count; i++) {
+                var expected = projection.apply(
+                        conversion.apply(EquatorialCoordinates.of(raDec[2 * i], raDec[2 * i + 1])));
+                //Relative to the distance to the center, the projection diverging at the antipode.
+                double tolerance = DELTA * Math.max(1, Math.hypot(expected.x(), expected.y()));
+                assertEquals(expected.x(), xy[2 * i], tolerance);
+                assertEquals(expected.y(), xy[2 * i + 1], tolerance);
+            }
+        }
+    }
+
+    @Test
+    void applyAllAppliesAffineTransform() {
+        var when = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+        var conversion = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        var projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+        double scale = 800 / projection.applyToAngle(Math.toRadians(75));
+        var plane = new EquatorialToCanvasProjection(conversion, projection);
+        var canvas = new EquatorialToCanvasProjection(conversion, projection, scale, 0, 400, 0, -scale, 300);
+
+        double[] raDec = {1.2, 0.3, 4.1, 0.8, 0.2, -0.1};
+        double[] planeXY = new double[6];
+        double[] canvasXY = new double[6];
+        plane.applyAll(raDec, planeXY);
+        canvas.applyAll(raDec, canvasXY);
+
+        for (int i = 0; i < 6; i += 2) {
+            assertEquals(scale * planeXY[i] + 400, canvasXY[i], DELTA * scale);
+            assertEquals(-scale * planeXY[i + 1] + 300, canvasXY[i + 1], DELTA * scale);
+        }
+    }
+
+    @Test
+    void applyAllFailsOnInvalidArrays() {
+        var when = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+        var kernel = new EquatorialToCanvasProjection(
+                new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(0, 0)),
+                new StereographicProjection(HorizontalCoordinates.ofDeg(0, 45)));
+        assertThrows(IllegalArgumentException.class, () -> kernel.applyAll(new double[3], new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> kernel.applyAll(new double[4], new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> kernel.applyAll(new double[4], new double[4], 0, 3));
+    }
+}
@@ -0,0 +1,77 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class MyEquatorialToHorizontalConversionTest {
+
+    private static final ZonedDateTime TIME = ZonedDateTime.of(
+            LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+
+    @Test
+    void applyAllMatchesApply() {
+        var rng = TestRandomizer.newRandom();
+        var conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        int count = TestRandomizer.RANDOM_ITERATIONS;
+        double[] raDec = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            raDec[2 * i] = rng.nextDouble(0, 2 * Math.PI);
+            raDec[2 * i + 1] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+
+        double[] azAlt = new double[2 * count];
+        conversion.applyAll(raDec, azAlt);
+
+        for (int i = 0; i < count; i++) {
+            var expected = conversion.apply(EquatorialCoordinates.of(raDec[2 * i], raDec[2 * i + 1]));
+            assertEquals(expected.az(), azAlt[2 * i]);
+            assertEquals(expected.alt(), azAlt[2 * i + 1]);
+        }
+    }
+
+    @Test
+    void inverseApplyIsInverseOfApply() {
+        var rng = TestRandomizer.newRandom();
+        var conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            var equ = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-1.5, 1.5));
+            var back = conversion.inverseApply(conversion.apply(equ));
+            double cosDelta = Math.cos(equ.dec());
+            //Compared on the sphere, as right ascensions close to 0 and 2 pi are equivalent.
+            assertEquals(0, Math.hypot(cosDelta * Math.sin(back.ra() - equ.ra()), back.dec() - equ.dec()), 1e-9);
+        }
+    }
+
+    @Test
+    void applyAllOnlyWritesRange() {
+        var conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        double[] raDec = {0.1, 0.2, 1.1, -0.4, 3.2, 0.9};
+        double[] azAlt = new double[6];
+        conversion.applyAll(raDec, azAlt, 1, 2);
+
+        var expected = conversion.apply(EquatorialCoordinates.of(1.1, -0.4));
+        assertEquals(0, azAlt[0]);
+        assertEquals(expected.az(), azAlt[2]);
+        assertEquals(expected.alt(), azAlt[3]);
+        assertEquals(0, azAlt[4]);
+    }
+
+    @Test
+    void applyAllFailsOnInvalidArrays() {
+        var conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyAll(new double[3], new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyAll(new double[4], new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyAll(new double[4], new double[4], 1, 3));
+    }
+}
@@ -0,0 +1,84 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MySegmentClipperTest {
+
+    private static SegmentClipper clipper() {
+        SegmentClipper clipper = new SegmentClipper();
+        clipper.setBounds(0, 0, 800, 600);
+        return clipper;
+    }
+
+    @Test
+    void segmentInsideIsKeptAsItIs() {
+        SegmentClipper clipper = clipper();
+        assertTrue(clipper.clip(10.1, 20.2, 700.3, 500.4));
+        assertEquals(10.1, clipper.x0());
+        assertEquals(20.2, clipper.y0());
+        assertEquals(700.3, clipper.x1());
+        assertEquals(500.4, clipper.y1());
+    }
+
+    @Test
+    void segmentCrossingTheRectangleIsKept() {
+        SegmentClipper clipper = clipper();
+        assertTrue(clipper.clip(-100, 300, 900, 300));
+        assertEquals(0, clipper.x0(), 1e-9);
+        assertEquals(300, clipper.y0(), 1e-9);
+        assertEquals(800, clipper.x1(), 1e-9);
+        assertEquals(300, clipper.y1(), 1e-9);
+
+        assertTrue(clipper.clip(400, -300, 400, 900));
+        assertEquals(0, clipper.y0(), 1e-9);
+        assertEquals(600, clipper.y1(), 1e-9);
+    }
+
+    @Test
+    void segmentOutsideIsRejected() {
+        SegmentClipper clipper = clipper();
+        assertFalse(clipper.clip(-100, -100, -10, 700));
+        assertFalse(clipper.clip(-100, 50, 50, -100));
+        assertFalse(clipper.clip(900, 0, 1000, 600));
+        assertFalse(clipper.clip(Double.NaN, 10, 20, 30));
+        assertFalse(clipper.clip(10, 10, 20, Double.NaN));
+    }
+
+    @Test
+    void clippedSegmentIsThePartInsideTheRectangle() {
+        SegmentClipper clipper = clipper();
+        SplittableRandom rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            double ax = rng.nextDouble(-800, 1600), ay = rng.nextDouble(-600, 1200);
+            double bx = rng.nextDouble(-800, 1600), by = rng.nextDouble(-600, 1200);
+            //Fraction of the segment inside the rectangle, sampled.
+            int samples = 1000;
+            int inside = 0;
+            for (int s = 0; s < samples; s++) {
+                double t = (s + 0.5) / samples;
+                if (clipper.contains(ax + t * (bx - ax), ay + t * (by - ay))) inside++;
+            }
+            boolean clipped = clipper.clip(ax, ay, bx, by);
+            if (inside > 0) assertTrue(clipped);
+            if (clipped) {
+                assertTrue(clipper.contains(clipper.x0(), clipper.y0()) || near(clipper, clipper.x0(), clipper.y0()));
+                assertTrue(clipper.contains(clipper.x1(), clipper.y1()) || near(clipper, clipper.x1(), clipper.y1()));
+                double fraction = Math.hypot(clipper.x1() - clipper.x0(), clipper.y1() - clipper.y0())
+                        / Math.hypot(bx - ax, by - ay);
+                assertEquals((double) inside / samples, fraction, 2.0 / samples);
+            }
+        }
+    }
+
+    private static boolean near(SegmentClipper clipper, double x, double y) {
+        return clipper.contains(Math.min(800, Math.max(0, x)), Math.min(600, Math.max(0, y)))
+                && Math.abs(x - Math.min(800, Math.max(0, x))) < 1e-9 && Math.abs(y - Math.min(600, Math.max(0, y))) < 1e-9;
+    }
+}
@@ -0,0 +1,55 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MySkyCanvasManagerTest {
+
+    @Test
+    void clearedDateRequestsNoFrame() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        DateTimeBean dateTime = new DateTimeBean();
+        dateTime.setZonedDateTime(ZonedDateTime.parse("2020-02-17T20:15:00+01:00"));
+        ObserverLocationBean observerLocation = new ObserverLocationBean();
+        observerLocation.setCoordinates(GeographicCoordinates.ofDeg(6.57, 46.52));
+        ViewingParametersBean viewingParameters = new ViewingParametersBean();
+        viewingParameters.setCenter(HorizontalCoordinates.ofDeg(180, 42));
+        viewingParameters.setFieldOfViewDeg(70);
+        SkyCanvasManager manager = new SkyCanvasManager(catalogue, dateTime, observerLocation, viewingParameters);
+
+        //The exceptions of the listeners are handed to the handler of the thread.
+        List<Throwable> errors = new ArrayList<Throwable>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+        try {
+            dateTime.setDate(null);
+            assertNull(dateTime.zonedDateTimeProperty().get());
+            manager.drawSky();
+
+            dateTime.setDate(LocalDate.of(2020, 2, 18));
+            assertNotNull(dateTime.zonedDateTimeProperty().get());
+            manager.drawSky();
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+        assertEquals(List.of(), errors);
+    }
+}
@@ -0,0 +1,91 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.SolarSystemModel;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarProjectionEngine;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import javafx.scene.transform.Transform;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MySkyFramePipelineTest {
+
+    private static final ZonedDateTime TIME = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final StereographicProjection PROJECTION = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 42));
+    private static final Transform PLANE_TO_CANVAS = Transform.translate(400, 300).createConcatenation(Transform.scale(600, -600));
+
+    private final Semaphore framesReady = new Semaphore(0);
+
+    private static StarCatalogue catalogue() throws IOException {
+        try (InputStream hygStream = MySkyFramePipelineTest.class.getResourceAsStream("/hygdata_v3.csv")) {
+            return new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+    }
+
+    private static SkyFramePipeline.Request request(ZonedDateTime when) {
+        return new SkyFramePipeline.Request(when, WHERE, PROJECTION, PLANE_TO_CANVAS, Math.PI, Double.POSITIVE_INFINITY);
+    }
+
+    private SkyFrame awaitFrame(SkyFramePipeline pipeline, ZonedDateTime when) throws InterruptedException {
+        while (true) {
+            assertTrue(this.framesReady.tryAcquire(30, TimeUnit.SECONDS));
+            SkyFrame frame = pipeline.frame();
+            if (frame.sky().isObservedAt(when, WHERE)) {
+                return frame;
+            }
+        }
+    }
+
+    @Test
+    void lastRequestIsComputed() throws IOException, InterruptedException {
+        StarCatalogue catalogue = catalogue();
+        SkyFramePipeline pipeline = new SkyFramePipeline(catalogue, StarProjectionEngine.DEFAULT, SolarSystemModel.EXACT, this.framesReady::release);
+        assertNull(pipeline.frame());
+
+        ZonedDateTime last = TIME;
+        for (int i = 0; i < 20; i++) {
+            last = TIME.plusMinutes(10 * i);
+            pipeline.request(request(last));
+        }
+        SkyFrame frame = this.awaitFrame(pipeline, last);
+        assertSame(frame, pipeline.frame());
+
+        SkyFrame expected = new SkyFrame();
+        expected.update(new ObservedSky(last, WHERE, PROJECTION, catalogue), PLANE_TO_CANVAS, PROJECTION);
+        assertArrayEquals(expected.starPositions, frame.starPositions);
+        assertArrayEquals(expected.starDiameters, frame.starDiameters);
+        assertArrayEquals(expected.planetPositions, frame.planetPositions);
+        assertArrayEquals(expected.paletteIndices, frame.paletteIndices);
+    }
+
+    @Test
+    void framesAreRecycledOnceReplaced() throws IOException, InterruptedException {
+        SkyFramePipeline pipeline = new SkyFramePipeline(catalogue(), StarProjectionEngine.DEFAULT, SolarSystemModel.EXACT, this.framesReady::release);
+
+        pipeline.request(request(TIME));
+        SkyFrame first = this.awaitFrame(pipeline, TIME);
+        pipeline.request(request(TIME.plusHours(1)));
+        SkyFrame second = this.awaitFrame(pipeline, TIME.plusHours(1));
+        pipeline.request(request(TIME.plusHours(2)));
+        SkyFrame third = this.awaitFrame(pipeline, TIME.plusHours(2));
+
+        assertTrue(first != second);
+        assertSame(first, third);
+        assertTrue(third.sky().isObservedAt(TIME.plusHours(2), WHERE));
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.test.TestRandomizer;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MySkyRasterizerTest {
+
+    @Test
+    void blendWorksOnKnownValues() {
+        assertEquals(0xFFFFFFFF, SkyRasterizer.blend(0xFF000000, 0xFFFFFFFF, 255));
+        assertEquals(0xFF000000, SkyRasterizer.blend(0xFF000000, 0xFFFFFFFF, 0));
+        assertEquals(0xFF808080, SkyRasterizer.blend(0xFF000000, 0xFFFFFFFF, 128));
+        assertEquals(0xFF804000, SkyRasterizer.blend(0xFF008000, 0x80FF0000, 255));
+        assertEquals(0x80FF0000, SkyRasterizer.argb(Color.RED.deriveColor(0, 1, 1, 0.5)));
+    }
+
+    @Test
+    void discCoverageMatchesItsArea() {
+        SkyRasterizer rasterizer = new SkyRasterizer();
+        for (double diameter : new double[]{1.5, 4.25, 10, 31, 50}) {
+            rasterizer.begin(80, 60, Color.BLACK);
+            rasterizer.addDisc(40.3, 29.8, diameter, Color.WHITE);
+            assertNotNull(rasterizer.end());
+            double coverage = 0;
+            for (int pixel : rasterizer.pixels()) {
+                coverage += (pixel & 0xFF) / 255.0;
+            }
+            assertEquals(Math.PI * diameter * diameter / 4, coverage, 0.05 * diameter * diameter / 4 + 0.5);
+            assertEquals(0xFF000000, rasterizer.pixels()[0]);
+        }
+    }
+
+    @Test
+    void bandsGiveTheSameImageAsSequentialRasterization() {
+        var rng = TestRandomizer.newRandom();
+        int count = 3000;
+        double[] discs = new double[3 * count];
+        int[] colors = new int[count];
+        for (int i = 0; i < count; i++) {
+            discs[3 * i] = rng.nextDouble(-10, 330);
+            discs[3 * i + 1] = rng.nextDouble(-10, 250);
+            discs[3 * i + 2] = i % 100 == 0 ? rng.nextDouble(30, 60) : rng.nextDouble(0.5, 6);
+            colors[i] = rng.nextInt() | 0x20000000;
+        }
+
+        SkyRasterizer banded = new SkyRasterizer();
+        banded.begin(320, 240, Color.MIDNIGHTBLUE);
+        for (int i = 0; i < count; i++) {
+            banded.addDisc(discs[3 * i], discs[3 * i + 1], discs[3 * i + 2], colors[i]);
+        }
+        banded.end();
+
+        //Batches too small to be split, drawn one after the other.
+        SkyRasterizer sequential = new SkyRasterizer();
+        sequential.begin(320, 240, Color.MIDNIGHTBLUE);
+        for (int i = 0; i < count; i++) {
+            sequential.addDisc(discs[3 * i], discs[3 * i + 1], discs[3 * i + 2], colors[i]);
+            if (i % 1000 == 999) sequential.end();
+        }
+        sequential.end();
+
+        assertArrayEquals(sequential.pixels(), banded.pixels());
+    }
+
+    @Test
+    void emptyFrameHasNoImage() {
+        SkyRasterizer rasterizer = new SkyRasterizer();
+        rasterizer.begin(0, 10, Color.BLACK);
+        rasterizer.addDisc(1, 1, 2, Color.WHITE);
+        assertNull(rasterizer.end());
+    }
+}
@@ -0,0 +1,50 @@
+package ch.epfl.rigel.math;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyRootFinderTest {
+
+    @Test
+    void illinoisFindsTheRootOfSmoothFunctions() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i++) {
+            double root = rng.nextDouble(-10, 10);
+            double width = rng.nextDouble(1e-3, 5);
+            DoubleUnaryOperator f = x -> Math.sin((x - root) / (2 * width)) + 0.3 * (x - root) * (x - root) * (x - root);
+            double a = root - rng.nextDouble(0, width);
+            double b = root + rng.nextDouble(1e-9, width);
+            double found = RootFinder.illinois(f, a, f.applyAsDouble(a), b, f.applyAsDouble(b), 1e-10, 100);
+            assertEquals(root, found, 1e-9);
+        }
+    }
+
+    @Test
+    void illinoisConvergesOnBothEnds() {
+        //Regula falsi keeps the left end forever on a convex function, not the Illinois variant.
+        DoubleUnaryOperator f = x -> Math.exp(x) - 2;
+        double found = RootFinder.illinois(f, -5, f.applyAsDouble(-5), 5, f.applyAsDouble(5), 1e-12, 60);
+        assertEquals(Math.log(2), found, 1e-12);
+    }
+
+    @Test
+    void illinoisReturnsTheEndsWhenRoots() {
+        DoubleUnaryOperator f = x -> x - 1;
+        assertEquals(1, RootFinder.illinois(f, 1, 0, 3, 2, 1e-9, 10));
+        assertEquals(1, RootFinder.illinois(f, -1, -2, 1, 0, 1e-9, 10));
+    }
+
+    @Test
+    void illinoisFailsWithoutBracket() {
+        DoubleUnaryOperator f = x -> x;
+        assertThrows(IllegalArgumentException.class, () -> RootFinder.illinois(f, 1, 1, 2, 2, 1e-9, 10));
+        assertThrows(IllegalArgumentException.class, () -> RootFinder.illinois(f, 1, -1, -1, 1, 1e-9, 10));
+        assertThrows(IllegalArgumentException.class, () -> RootFinder.illinois(f, -1, -1, 1, 1, 0, 10));
+    }
+}
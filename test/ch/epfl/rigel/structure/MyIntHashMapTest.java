@@ -0,0 +1,51 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyIntHashMapTest {
+
+    @Test
+    void mapMatchesHashMap() {
+        var rng = TestRandomizer.newRandom();
+        IntHashMap map = new IntHashMap();
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = i % 3 == 0 ? rng.nextInt() : rng.nextInt(-1000, 1000);
+            int value = rng.nextInt();
+            assertEquals(!expected.containsKey(key), map.putIfAbsent(key, value));
+            expected.putIfAbsent(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey(), -1));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            int key = rng.nextInt();
+            assertEquals(expected.getOrDefault(key, 42), map.get(key, 42));
+        }
+    }
+
+    @Test
+    void firstValueIsKept() {
+        IntHashMap map = new IntHashMap(0);
+        assertTrue(map.putIfAbsent(0, 1));
+        assertFalse(map.putIfAbsent(0, 2));
+        assertEquals(1, map.get(0, -1));
+        assertEquals(-1, map.get(1, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void constructorFailsOnNegativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IntHashMap(-1));
+    }
+}
@@ -0,0 +1,66 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyKdTreeTest {
+
+    private static int bruteForce(double[] positions, double x, double y, double maxDistance) {
+        int best = -1;
+        double bestDistance = maxDistance * maxDistance;
+        for (int i = 0; i < positions.length / 2; i++) {
+            double dx = x - positions[2 * i];
+            double dy = y - positions[2 * i + 1];
+            double d = dx * dx + dy * dy;
+            if (d < bestDistance || (d == bestDistance && best == -1)) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void nearestWithinMatchesBruteForce() {
+        var rng = TestRandomizer.newRandom();
+        for (int k = 0; k < 20; k++) {
+            int count = rng.nextInt(0, 2000);
+            double[] positions = new double[2 * count];
+            for (int i = 0; i < positions.length; i++) {
+                //Few distinct values to get many ties.
+                positions[i] = k % 2 == 0 ? rng.nextDouble(-2, 2) : rng.nextInt(-20, 20) / 10.0;
+            }
+            KdTree tree = new KdTree(positions);
+            assertEquals(count, tree.size());
+            for (int q = 0; q < 200; q++) {
+                double x = rng.nextDouble(-2.5, 2.5);
+                double y = rng.nextDouble(-2.5, 2.5);
+                double d = rng.nextDouble(0, 1);
+                assertEquals(bruteForce(positions, x, y, d), tree.nearestWithin(x, y, d));
+            }
+        }
+    }
+
+    @Test
+    void nearestWithinIncludesMaxDistance() {
+        KdTree tree = new KdTree(new double[]{0, 0, 3, 4});
+        assertEquals(1, tree.nearestWithin(0, 8, 5));
+        assertEquals(-1, tree.nearestWithin(0, 8, 4.99));
+    }
+
+    @Test
+    void nanPointsAreIgnored() {
+        KdTree tree = new KdTree(new double[]{Double.NaN, 0, 1, 1, 0, Double.NaN});
+        assertEquals(1, tree.size());
+        assertEquals(1, tree.nearestWithin(0, 0, 10));
+    }
+
+    @Test
+    void constructorFailsOnOddLength() {
+        assertThrows(IllegalArgumentException.class, () -> new KdTree(new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> new KdTree(new double[2]).nearestWithin(0, 0, -1));
+    }
+}
@@ -0,0 +1,76 @@
+package ch.epfl.rigel.structure;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MySphereIndexTest {
+
+    private static double angle(double lon1, double lat1, double lon2, double lat2) {
+        double cos = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2);
+        return Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
+
+    @Test
+    void indicesWithinMatchesBruteForce() {
+        var rng = TestRandomizer.newRandom();
+        int count = 20_000;
+        double[] lonLat = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            lonLat[2 * i] = rng.nextDouble(0, 2 * Math.PI);
+            lonLat[2 * i + 1] = Math.asin(rng.nextDouble(-1, 1));
+        }
+        SphereIndex index = new SphereIndex(lonLat);
+        assertEquals(count, index.size());
+
+        for (int q = 0; q < 100; q++) {
+            double lon = rng.nextDouble(0, 2 * Math.PI);
+            double lat = Math.asin(rng.nextDouble(-1, 1));
+            double radius = rng.nextDouble(0, Math.PI);
+            int[] found = index.indicesWithin(lon, lat, radius);
+            for (int k = 1; k < found.length; k++) {
+                assertTrue(found[k - 1] < found[k]);
+            }
+            for (int i = 0; i < count; i++) {
+                double a = angle(lon, lat, lonLat[2 * i], lonLat[2 * i + 1]);
+                //Points on the border of the cone may go either way.
+                if (Math.abs(a - radius) > 1e-9) {
+                    assertEquals(a < radius, Arrays.binarySearch(found, i) >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void indicesWithinWholeSphereReturnsAll() {
+        SphereIndex index = new SphereIndex(new double[]{0, 0, 1, 1, 3, -1.5});
+        assertArrayEquals(new int[]{0, 1, 2}, index.indicesWithin(2, 0, Math.PI));
+        assertArrayEquals(new int[]{1}, index.indicesWithin(1, 1, 0.01));
+    }
+
+    @Test
+    void nestedPixelsAreEqualArea() {
+        var rng = TestRandomizer.newRandom();
+        int[] counts = new int[12];
+        int samples = 120_000;
+        for (int i = 0; i < samples; i++) {
+            int pixel = SphereIndex.nestedPixel(rng.nextDouble(0, 2 * Math.PI), Math.asin(rng.nextDouble(-1, 1)));
+            counts[pixel >>> 20]++;
+        }
+        for (int c : counts) {
+            assertEquals(samples / 12.0, c, samples / 12.0 * 0.05);
+        }
+    }
+
+    @Test
+    void constructorFailsOnOddLength() {
+        assertThrows(IllegalArgumentException.class, () -> new SphereIndex(new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> new SphereIndex(new double[2]).indicesWithin(0, 0, -1));
+    }
+}